@@ -0,0 +1,48 @@
+package com.app.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class BatchEnrollmentConfig {
+
+    /**
+     * Bounded pool for asynchronous batch enrollment jobs.
+     * Submissions beyond the queue capacity are rejected rather than queued without limit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor batchEnrollmentJobExecutor(BatchEnrollmentProperties properties) {
+        BatchEnrollmentProperties.Jobs jobs = properties.getJobs();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobs.getWorkerThreads());
+        executor.setMaxPoolSize(jobs.getWorkerThreads());
+        executor.setQueueCapacity(jobs.getQueueCapacity());
+        executor.setThreadNamePrefix("batch-enrollment-job-");
+        // Unfinished jobs are persisted and resumed on the next start
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers enrolling the chunks of an import in parallel, shared by all imports.
+     * When every worker is busy and the queue is full the submitting thread enrolls
+     * the chunk itself, which throttles CSV parsing to the speed of the database.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor batchEnrollmentChunkExecutor(BatchEnrollmentProperties properties) {
+        int parallelism = Math.max(1, properties.getParallelism());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism * 2);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("batch-enrollment-chunk-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
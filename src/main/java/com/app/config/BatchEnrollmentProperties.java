@@ -0,0 +1,94 @@
+package com.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tuning for the batch CSV enrollment engine (batch.enrollment.* properties)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "batch.enrollment")
+public class BatchEnrollmentProperties {
+
+    /**
+     * Number of CSV rows resolved and inserted together with one bulk lookup per table
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Chunks of one import enrolled concurrently, each in its own transaction.
+     * Every worker holds a database connection while its chunk runs.
+     */
+    private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private Jobs jobs = new Jobs();
+
+    private Idempotency idempotency = new Idempotency();
+
+    /**
+     * Asynchronous import jobs (batch.enrollment.jobs.* properties)
+     */
+    @Data
+    public static class Jobs {
+
+        /**
+         * Imports running at the same time
+         */
+        private int workerThreads = 2;
+
+        /**
+         * Imports allowed to wait for a worker; further submissions are rejected with 429
+         */
+        private int queueCapacity = 20;
+
+        /**
+         * Retry-After sent with a 429 when the queue is full
+         */
+        private int retryAfterSeconds = 30;
+
+        /**
+         * Directory where uploads are kept until their job finishes. It must survive restarts,
+         * and be shared by all nodes for one node to take over another's jobs.
+         */
+        private String spoolDir = "data/batch-enrollment-jobs";
+
+        /**
+         * A job whose node has not renewed it for this long is taken over by another node,
+         * or failed when its upload is not in the spool directory
+         */
+        private Duration lease = Duration.ofMinutes(2);
+
+        /**
+         * ERROR rows stored with a finished job's result, the first ones in CSV order. The counts
+         * cover every row; SUCCESS and SKIPPED rows are not stored.
+         */
+        private int resultErrorRows = 1000;
+    }
+
+    /**
+     * Re-upload detection for synchronous imports (batch.enrollment.idempotency.* properties)
+     */
+    @Data
+    public static class Idempotency {
+
+        /**
+         * How long a finished import's result is replayed to an identical upload; 0 turns detection off
+         */
+        private Duration window = Duration.ofMinutes(10);
+
+        /**
+         * Results kept at most; once full, new uploads run without being remembered
+         */
+        private int maxEntries = 20;
+
+        /**
+         * ERROR rows kept per result for a replay; the counts cover every row, SUCCESS and
+         * SKIPPED rows are not replayed
+         */
+        private int replayErrorRows = 1000;
+    }
+}
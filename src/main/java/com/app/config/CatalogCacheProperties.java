@@ -0,0 +1,33 @@
+package com.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-process cache of course and exam lookups (catalog.cache.* properties)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "catalog.cache")
+public class CatalogCacheProperties {
+
+    /**
+     * Serve course and exam lookups from memory; when false every lookup queries the database
+     */
+    private boolean enabled = true;
+
+    /**
+     * Entries kept per cache (courses, courses by code, exams, exam pages by course, and
+     * students for the student course lists), least recently used evicted first
+     */
+    private long maxEntries = 10_000;
+
+    /**
+     * How long an entry is served after it was loaded. Changes made through this node evict
+     * at once; changes made by other nodes or directly in the database show up after this.
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,27 @@
+package com.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory course search index (course.search.* properties)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "course.search")
+public class CourseSearchProperties {
+
+    /**
+     * Answer course searches from memory; when false every search queries the database by code and name
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often the index is rebuilt from the courses table, to pick up courses changed by other
+     * nodes or directly in the database. Changes made through this node are applied at once.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(30);
+}
@@ -23,7 +23,7 @@ public class DataInitializer {
         return args -> {
             try {
                 // Check if data already exists
-                if (userService.getAllUsers().isEmpty()) {
+                if (userService.getAllUsers("", 1).getItems().isEmpty()) {
                     System.out.println("🔄 Initializing sample data...");
 
                     // Create sample users
@@ -0,0 +1,28 @@
+package com.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Enrollment change feed (enrollment.changes.* properties)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "enrollment.changes")
+public class EnrollmentChangesProperties {
+
+    /**
+     * How often committed changes are given their place in the feed. A change shows up in the feed
+     * within about this long of its commit, however long its transaction ran.
+     */
+    private Duration sequenceInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long changes are kept. A reader whose cursor is older gets 410 Gone and must resync
+     * from the full list.
+     */
+    private Duration retention = Duration.ofDays(30);
+}
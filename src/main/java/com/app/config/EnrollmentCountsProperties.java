@@ -0,0 +1,23 @@
+package com.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Materialized per-course enrollment counts (enrollment.counts.* properties)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "enrollment.counts")
+public class EnrollmentCountsProperties {
+
+    /**
+     * How often every course's counts are checked against a GROUP BY over course_enrollments.
+     * Changes made through the application keep the counts exact; this catches changes made
+     * directly in the database. Each run scans the enrollments table once.
+     */
+    private Duration reconcileInterval = Duration.ofMinutes(15);
+}
@@ -0,0 +1,41 @@
+package com.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory enrollment membership index (enrollment.index.* properties)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "enrollment.index")
+public class EnrollmentIndexProperties {
+
+    /**
+     * Answer enrollment checks from memory; when false every check queries the database
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often the index reads the enrollment change feed for changes since it was last brought
+     * up to date. Writes made through this node are applied at once; writes made by other nodes
+     * show up after the next pass, so this (plus the feed's sequence interval) bounds how stale
+     * an answer can be.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    /**
+     * How often the index is rebuilt from course_enrollments instead, to drop any drift from
+     * writes that bypass the change feed. It is also rebuilt at startup and whenever changes it
+     * had not read yet were purged from the feed.
+     */
+    private Duration fullReloadInterval = Duration.ofHours(6);
+
+    /**
+     * Target false positive rate of the Bloom filter in front of the index
+     */
+    private double bloomFalsePositiveRate = 0.01;
+}
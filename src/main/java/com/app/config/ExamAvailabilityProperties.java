@@ -0,0 +1,27 @@
+package com.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory index of exam availability windows (exam.availability.* properties)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "exam.availability")
+public class ExamAvailabilityProperties {
+
+    /**
+     * Answer "which exams are open now" from memory; when false every lookup queries the database
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often the index is rebuilt from the exams table, to pick up exams changed by other
+     * nodes or directly in the database. Changes made through this node are applied at once.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(15);
+}
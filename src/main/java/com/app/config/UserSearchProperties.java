@@ -0,0 +1,28 @@
+package com.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory user name and email autocomplete index (user.search.* properties)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "user.search")
+public class UserSearchProperties {
+
+    /**
+     * Answer user autocomplete from memory; when false every lookup queries the database
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often the index is rebuilt from the users table. Users written through UserService are
+     * indexed at once; students created by bulk CSV loads and writes made elsewhere show up after
+     * the next rebuild.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(10);
+}
@@ -1,11 +1,13 @@
 package com.app.controller;
 
 import com.app.dto.CourseDTO;
+import com.app.dto.EnrollmentCountsDTO;
 import com.app.service.CourseService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -14,6 +16,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CourseController {
 
+    static final int MAX_COUNT_IDS = 500;
+    static final int DEFAULT_SEARCH_RESULTS = 20;
+    static final int MAX_SEARCH_RESULTS = 100;
+
     private final CourseService courseService;
 
     // CREATE
@@ -24,10 +30,25 @@ public class CourseController {
     }
 
     // READ - Get all courses
+    // Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
     @GetMapping
-    public ResponseEntity<List<CourseDTO>> getAllCourses() {
-        List<CourseDTO> courses = courseService.getAllCourses();
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<List<CourseDTO>> getAllCourses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(courseService.getAllCourses(Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
+    }
+
+    // READ - Search courses by code, name, description and semester: ?q=data struct&limit=20
+    // Prefix and one-typo matches, best first
+    @GetMapping("/search")
+    public ResponseEntity<List<CourseDTO>> searchCourses(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        if (q.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query must not be blank");
+        }
+        int results = limit == null ? DEFAULT_SEARCH_RESULTS : Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        return ResponseEntity.ok(courseService.searchCourses(q, results));
     }
 
     // READ - Get course by ID
@@ -47,17 +68,39 @@ public class CourseController {
     }
 
     // READ - Get courses by professor
+    // Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
     @GetMapping("/professor/{professorId}")
-    public ResponseEntity<List<CourseDTO>> getCoursesByProfessor(@PathVariable String professorId) {
-        List<CourseDTO> courses = courseService.getCoursesByProfessor(professorId);
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<List<CourseDTO>> getCoursesByProfessor(
+            @PathVariable String professorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(courseService.getCoursesByProfessor(professorId, Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
     }
 
     // READ - Get courses by status
+    // Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<CourseDTO>> getCoursesByStatus(@PathVariable String status) {
-        List<CourseDTO> courses = courseService.getCoursesByStatus(status);
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<List<CourseDTO>> getCoursesByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(courseService.getCoursesByStatus(status, Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
+    }
+
+    // READ - Enrollment counts by status of many courses: ?ids=course-1,course-2
+    @GetMapping("/enrollment-counts")
+    public ResponseEntity<List<EnrollmentCountsDTO>> getEnrollmentCounts(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_COUNT_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_COUNT_IDS + " course ids per request");
+        }
+        return ResponseEntity.ok(courseService.getEnrollmentCounts(ids));
+    }
+
+    // READ - Enrollment counts by status of one course
+    @GetMapping("/{id}/enrollment-counts")
+    public ResponseEntity<EnrollmentCountsDTO> getEnrollmentCountsOfCourse(@PathVariable String id) {
+        List<EnrollmentCountsDTO> counts = courseService.getEnrollmentCounts(List.of(id));
+        return counts.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(counts.get(0));
     }
 
     // UPDATE
@@ -32,11 +32,13 @@ public class CourseEnrollmentController {
     /**
      * Get all enrollments
      * GET /api/course-enrollments
+     * Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
      */
     @GetMapping
-    public ResponseEntity<List<CourseEnrollmentDTO>> getAllEnrollments() {
-        List<CourseEnrollmentDTO> enrollments = enrollmentService.getAllEnrollments();
-        return ResponseEntity.ok(enrollments);
+    public ResponseEntity<List<CourseEnrollmentDTO>> getAllEnrollments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(enrollmentService.getAllEnrollments(Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
     }
 
     /**
@@ -53,21 +55,32 @@ public class CourseEnrollmentController {
     /**
      * Get enrollments by course
      * GET /api/course-enrollments/by-course/{courseId}
+     * Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
      */
     @GetMapping("/by-course/{courseId}")
-    public ResponseEntity<List<CourseEnrollmentDTO>> getEnrollmentsByCourse(@PathVariable String courseId) {
-        List<CourseEnrollmentDTO> enrollments = enrollmentService.getEnrollmentsByCourse(courseId);
-        return ResponseEntity.ok(enrollments);
+    public ResponseEntity<List<CourseEnrollmentDTO>> getEnrollmentsByCourse(
+            @PathVariable String courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(enrollmentService.getEnrollmentsByCourse(courseId, Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
     }
 
     /**
      * Get courses by student
-     * GET /api/course-enrollments/by-student/{studentId}
+     * GET /api/course-enrollments/by-student/{studentId}?enrollmentStatus=enrolled&courseStatus=active&semester=Fall%202024
+     * All filters optional. Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header;
+     * with neither, the whole list (deprecated)
      */
     @GetMapping("/by-student/{studentId}")
-    public ResponseEntity<List<CourseDTO>> getCoursesByStudent(@PathVariable String studentId) {
-        List<CourseDTO> courses = courseService.getCoursesByStudent(studentId);
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<List<CourseDTO>> getCoursesByStudent(
+            @PathVariable String studentId,
+            @RequestParam(required = false) String enrollmentStatus,
+            @RequestParam(required = false) String courseStatus,
+            @RequestParam(required = false) String semester,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(courseService.getCoursesByStudent(studentId, enrollmentStatus, courseStatus, semester,
+                Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
     }
 
     /**
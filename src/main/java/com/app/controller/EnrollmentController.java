@@ -1,24 +1,63 @@
 package com.app.controller;
 
+import com.app.config.BatchEnrollmentProperties;
+import com.app.dto.BatchEnrollmentJobDTO;
 import com.app.dto.BatchEnrollmentResultDTO;
 import com.app.dto.CSVUploadRequest;
 import com.app.dto.CourseEnrollmentDTO;
+import com.app.dto.KeysetPage;
+import com.app.dto.EnrollmentBulkChangeDTO;
+import com.app.dto.EnrollmentChangeDTO;
+import com.app.dto.EnrollmentCheckRequest;
+import com.app.dto.EnrollmentCheckResultDTO;
+import com.app.dto.RosterEntryDTO;
+import com.app.service.BatchEnrollmentIdempotencyService;
+import com.app.service.BatchEnrollmentJobService;
+import com.app.service.BatchEnrollmentListener;
+import com.app.service.BatchEnrollmentNdjsonWriter;
 import com.app.service.BatchEnrollmentService;
 import com.app.service.CourseEnrollmentService;
+import com.app.util.CSVRowReader;
+import com.app.util.RowReader;
+import com.app.util.XlsxRowReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/enrollments")
 @RequiredArgsConstructor
 public class EnrollmentController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_CHECK_PAIRS = 1000;
+    static final Set<String> ENROLLMENT_STATUSES = Set.of("enrolled", "dropped", "completed");
+
     private final CourseEnrollmentService enrollmentService;
     private final BatchEnrollmentService batchEnrollmentService;
+    private final BatchEnrollmentJobService batchEnrollmentJobService;
+    private final BatchEnrollmentIdempotencyService idempotencyService;
+    private final BatchEnrollmentProperties properties;
+    private final ObjectMapper objectMapper;
 
     // ===== BATCH CSV ENROLLMENT ENDPOINTS =====
 
@@ -33,13 +72,318 @@ public class EnrollmentController {
      *   "emailColumnIndex": 1,
      *   "csvContent": "John Doe,john@example.com\nJane Smith,jane@example.com"
      * }
+     *
+     * With dryRun=true nothing is written: the response shows what the import would do
+     *
+     * Re-submitting the same upload (or the same Idempotency-Key header) while it runs or
+     * shortly after returns the first result, marked with Idempotent-Replayed: true.
+     * Responds 422 if the Idempotency-Key was already used for a different upload.
      */
     @PostMapping("/batch-csv")
-    public ResponseEntity<BatchEnrollmentResultDTO> enrollStudentsFromCSV(@RequestBody CSVUploadRequest request) {
-        BatchEnrollmentResultDTO result = batchEnrollmentService.processCSVEnrollment(request);
+    public ResponseEntity<BatchEnrollmentResultDTO> enrollStudentsFromCSV(
+            @RequestBody CSVUploadRequest request,
+            @RequestParam(defaultValue = "false") boolean errorsOnly,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) throws IOException {
+        String fingerprint = idempotencyService.fingerprint(options(errorsOnly, dryRun), request.getCourseId(),
+                request.getNameColumnIndex(), request.getEmailColumnIndex(), request.getCsvContent());
+        return runOnce(idempotencyKey, fingerprint, () -> enroll(request, dryRun,
+                errorsOnly ? BatchEnrollmentListener.ERRORS_ONLY : BatchEnrollmentListener.NONE));
+    }
+
+    /**
+     * Same as above, streamed as newline-delimited JSON (Accept: application/x-ndjson)
+     * POST /api/enrollments/batch-csv
+     *
+     * One line per row result, written as each chunk is enrolled, then a summary line
+     * with the counts. With errorsOnly=true only ERROR rows are written.
+     */
+    @PostMapping(value = "/batch-csv", produces = BatchEnrollmentNdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamStudentsFromCSV(
+            @RequestBody CSVUploadRequest request,
+            @RequestParam(defaultValue = "false") boolean errorsOnly,
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        return streamEnrollment(errorsOnly, listener -> enroll(request, dryRun, listener));
+    }
+
+    /**
+     * Process bulk student enrollment from an uploaded CSV file
+     * POST /api/enrollments/batch-csv (multipart/form-data)
+     *
+     * Form fields: courseId, nameColumnIndex, emailColumnIndex, file
+     * The file is streamed row by row instead of being loaded as one string.
+     * An Excel .xlsx file is also accepted: its first sheet is read the same way,
+     * column indices counting from column A = 0.
+     * Re-uploads are detected as for the JSON request above
+     */
+    @PostMapping(value = "/batch-csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BatchEnrollmentResultDTO> enrollStudentsFromCSVFile(
+            @RequestParam String courseId,
+            @RequestParam int nameColumnIndex,
+            @RequestParam int emailColumnIndex,
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean errorsOnly,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) throws IOException {
+        String fingerprint;
+        try (InputStream content = file.getInputStream()) {
+            fingerprint = idempotencyService.fingerprint(options(errorsOnly, dryRun), courseId,
+                    nameColumnIndex, emailColumnIndex, content);
+        }
+        return runOnce(idempotencyKey, fingerprint, () -> enroll(courseId, nameColumnIndex, emailColumnIndex, file, dryRun,
+                errorsOnly ? BatchEnrollmentListener.ERRORS_ONLY : BatchEnrollmentListener.NONE));
+    }
+
+    /**
+     * Same as above, streamed as newline-delimited JSON (Accept: application/x-ndjson)
+     * POST /api/enrollments/batch-csv (multipart/form-data)
+     */
+    @PostMapping(value = "/batch-csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = BatchEnrollmentNdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamStudentsFromCSVFile(
+            @RequestParam String courseId,
+            @RequestParam int nameColumnIndex,
+            @RequestParam int emailColumnIndex,
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean errorsOnly,
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        return streamEnrollment(errorsOnly,
+                listener -> enroll(courseId, nameColumnIndex, emailColumnIndex, file, dryRun, listener));
+    }
+
+    /**
+     * Enroll students into many courses from one CSV, a column giving each row's course code
+     * POST /api/enrollments/batch-csv/multi-course
+     *
+     * Request body:
+     * {
+     *   "nameColumnIndex": 0,
+     *   "emailColumnIndex": 1,
+     *   "courseCodeColumnIndex": 2,
+     *   "csvContent": "John Doe,john@example.com,CS101\nJohn Doe,john@example.com,MA201"
+     * }
+     */
+    @PostMapping("/batch-csv/multi-course")
+    public ResponseEntity<BatchEnrollmentResultDTO> enrollStudentsFromMultiCourseCSV(
+            @RequestBody CSVUploadRequest request,
+            @RequestParam(defaultValue = "false") boolean errorsOnly) {
+        if (request.getCourseCodeColumnIndex() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        BatchEnrollmentResultDTO result = batchEnrollmentService.processMultiCourseCSVEnrollment(request,
+                errorsOnly ? BatchEnrollmentListener.ERRORS_ONLY : BatchEnrollmentListener.NONE);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Multi-course enrollment from an uploaded CSV file
+     * POST /api/enrollments/batch-csv/multi-course (multipart/form-data)
+     *
+     * Form fields: nameColumnIndex, emailColumnIndex, courseCodeColumnIndex, file
+     */
+    @PostMapping(value = "/batch-csv/multi-course", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BatchEnrollmentResultDTO> enrollStudentsFromMultiCourseCSVFile(
+            @RequestParam int nameColumnIndex,
+            @RequestParam int emailColumnIndex,
+            @RequestParam int courseCodeColumnIndex,
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean errorsOnly) throws IOException {
+        try (RowReader rows = openRows(file)) {
+            BatchEnrollmentResultDTO result = batchEnrollmentService.processMultiCourseEnrollment(
+                    nameColumnIndex, emailColumnIndex, courseCodeColumnIndex, rows,
+                    errorsOnly ? BatchEnrollmentListener.ERRORS_ONLY : BatchEnrollmentListener.NONE);
+            return ResponseEntity.ok(result);
+        }
+    }
+
+    /**
+     * Bulk load a very large CSV into a course with set-based statements
+     * POST /api/enrollments/batch-csv/bulk
+     *
+     * Same request body as /batch-csv. All or nothing; responds with the counts only.
+     */
+    @PostMapping("/batch-csv/bulk")
+    public ResponseEntity<BatchEnrollmentResultDTO> bulkLoadStudentsFromCSV(@RequestBody CSVUploadRequest request) {
+        BatchEnrollmentResultDTO result = batchEnrollmentService.bulkLoadCSVEnrollment(request);
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Bulk load from an uploaded CSV file
+     * POST /api/enrollments/batch-csv/bulk (multipart/form-data)
+     *
+     * Form fields: courseId, nameColumnIndex, emailColumnIndex, file
+     */
+    @PostMapping(value = "/batch-csv/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BatchEnrollmentResultDTO> bulkLoadStudentsFromCSVFile(
+            @RequestParam String courseId,
+            @RequestParam int nameColumnIndex,
+            @RequestParam int emailColumnIndex,
+            @RequestPart("file") MultipartFile file) throws IOException {
+        try (RowReader rows = openRows(file)) {
+            BatchEnrollmentResultDTO result = batchEnrollmentService.bulkLoadEnrollment(
+                    courseId, nameColumnIndex, emailColumnIndex, rows);
+            return ResponseEntity.ok(result);
+        }
+    }
+
+    // ===== ASYNCHRONOUS BATCH CSV ENROLLMENT JOBS =====
+
+    /**
+     * Queue a batch CSV enrollment job, returns immediately with the job ID
+     * POST /api/enrollments/batch-csv/jobs
+     *
+     * Same request body as /batch-csv. Responds 202 with the job status,
+     * or 429 with Retry-After when the job queue is full.
+     */
+    @PostMapping("/batch-csv/jobs")
+    public ResponseEntity<BatchEnrollmentJobDTO> submitBatchCSVJob(@RequestBody CSVUploadRequest request) throws IOException {
+        try {
+            return accepted(batchEnrollmentJobService.submitJob(request));
+        } catch (TaskRejectedException e) {
+            return queueFull();
+        }
+    }
+
+    /**
+     * Queue a batch CSV enrollment job from an uploaded file
+     * POST /api/enrollments/batch-csv/jobs (multipart/form-data)
+     *
+     * CSV only: responds 415 for an Excel upload
+     */
+    @PostMapping(value = "/batch-csv/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BatchEnrollmentJobDTO> submitBatchCSVFileJob(
+            @RequestParam String courseId,
+            @RequestParam int nameColumnIndex,
+            @RequestParam int emailColumnIndex,
+            @RequestPart("file") MultipartFile file) throws IOException {
+        if (XlsxRowReader.isXlsx(file.getOriginalFilename(), file.getContentType())) {
+            // Jobs spool and re-read their upload as CSV
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+        try (InputStream content = file.getInputStream()) {
+            return accepted(batchEnrollmentJobService.submitJob(courseId, nameColumnIndex, emailColumnIndex, content));
+        } catch (TaskRejectedException e) {
+            return queueFull();
+        }
+    }
+
+    /**
+     * Get job status and progress (rows parsed, succeeded, skipped, failed)
+     * GET /api/enrollments/batch-csv/jobs/{jobId}
+     */
+    @GetMapping("/batch-csv/jobs/{jobId}")
+    public ResponseEntity<BatchEnrollmentJobDTO> getBatchCSVJob(@PathVariable String jobId) {
+        return batchEnrollmentJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get the final enrollment result of a job
+     * GET /api/enrollments/batch-csv/jobs/{jobId}/result
+     *
+     * Responds 202 with no body while the job has not finished yet
+     */
+    @GetMapping("/batch-csv/jobs/{jobId}/result")
+    public ResponseEntity<BatchEnrollmentResultDTO> getBatchCSVJobResult(@PathVariable String jobId) {
+        if (batchEnrollmentJobService.getJob(jobId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return batchEnrollmentJobService.getJobResult(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.ACCEPTED).build());
+    }
+
+    /**
+     * Cancel a queued or running job
+     * DELETE /api/enrollments/batch-csv/jobs/{jobId}
+     *
+     * Responds 409 if the job had already finished
+     */
+    @DeleteMapping("/batch-csv/jobs/{jobId}")
+    public ResponseEntity<BatchEnrollmentJobDTO> cancelBatchCSVJob(@PathVariable String jobId) {
+        return batchEnrollmentJobService.cancelJob(jobId)
+                .map(job -> "cancelled".equals(job.getStatus())
+                        ? ResponseEntity.ok(job)
+                        : ResponseEntity.status(HttpStatus.CONFLICT).body(job))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<BatchEnrollmentJobDTO> accepted(BatchEnrollmentJobDTO job) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/enrollments/batch-csv/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    private ResponseEntity<BatchEnrollmentJobDTO> queueFull() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getJobs().getRetryAfterSeconds()))
+                .build();
+    }
+
+    private ResponseEntity<BatchEnrollmentResultDTO> runOnce(String idempotencyKey,
+                                                             String fingerprint,
+                                                             BatchEnrollmentIdempotencyService.ImportRun run) throws IOException {
+        BatchEnrollmentIdempotencyService.Outcome outcome = idempotencyService.runOnce(idempotencyKey, fingerprint, run);
+        return switch (outcome.status()) {
+            case RAN -> ResponseEntity.ok(outcome.result());
+            case REPLAYED -> ResponseEntity.ok().header(IDEMPOTENT_REPLAYED_HEADER, "true").body(outcome.result());
+            case KEY_REUSED -> ResponseEntity.unprocessableEntity().build();
+        };
+    }
+
+    // Uploads differing only in these options are different imports
+    private String options(boolean errorsOnly, boolean dryRun) {
+        return (dryRun ? "preview" : "enroll") + (errorsOnly ? "-errors" : "");
+    }
+
+    private BatchEnrollmentResultDTO enroll(CSVUploadRequest request,
+                                            boolean dryRun,
+                                            BatchEnrollmentListener listener) {
+        return dryRun
+                ? batchEnrollmentService.previewCSVEnrollment(request, listener)
+                : batchEnrollmentService.processCSVEnrollment(request, listener);
+    }
+
+    private BatchEnrollmentResultDTO enroll(String courseId,
+                                            int nameColumnIndex,
+                                            int emailColumnIndex,
+                                            MultipartFile file,
+                                            boolean dryRun,
+                                            BatchEnrollmentListener listener) throws IOException {
+        try (RowReader rows = openRows(file)) {
+            return dryRun
+                    ? batchEnrollmentService.previewEnrollment(courseId, nameColumnIndex, emailColumnIndex, rows, listener)
+                    : batchEnrollmentService.processEnrollment(courseId, nameColumnIndex, emailColumnIndex, rows, listener);
+        }
+    }
+
+    // Excel workbooks are read sheet row by sheet row, anything else as UTF-8 CSV
+    private RowReader openRows(MultipartFile file) throws IOException {
+        if (XlsxRowReader.isXlsx(file.getOriginalFilename(), file.getContentType())) {
+            try (InputStream content = file.getInputStream()) {
+                return XlsxRowReader.open(content);
+            }
+        }
+        return new CSVRowReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamEnrollment(boolean errorsOnly, EnrollmentRun run) {
+        StreamingResponseBody body = output -> {
+            BatchEnrollmentNdjsonWriter writer = new BatchEnrollmentNdjsonWriter(output, objectMapper, errorsOnly);
+            writer.writeSummary(run.process(writer));
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(BatchEnrollmentNdjsonWriter.MEDIA_TYPE))
+                .body(body);
+    }
+
+    @FunctionalInterface
+    private interface EnrollmentRun {
+        BatchEnrollmentResultDTO process(BatchEnrollmentListener listener) throws IOException;
+    }
+
     // ===== INDIVIDUAL ENROLLMENT ENDPOINTS =====
 
     /**
@@ -55,11 +399,13 @@ public class EnrollmentController {
     /**
      * Get all enrollments
      * GET /api/enrollments
+     * Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
      */
     @GetMapping
-    public ResponseEntity<List<CourseEnrollmentDTO>> getAllEnrollments() {
-        List<CourseEnrollmentDTO> enrollments = enrollmentService.getAllEnrollments();
-        return ResponseEntity.ok(enrollments);
+    public ResponseEntity<List<CourseEnrollmentDTO>> getAllEnrollments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(enrollmentService.getAllEnrollments(Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
     }
 
     /**
@@ -76,21 +422,76 @@ public class EnrollmentController {
     /**
      * Get all students enrolled in a course
      * GET /api/enrollments/course/{courseId}
+     * Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
      */
     @GetMapping("/course/{courseId}")
-    public ResponseEntity<List<CourseEnrollmentDTO>> getEnrollmentsByCourse(@PathVariable String courseId) {
-        List<CourseEnrollmentDTO> enrollments = enrollmentService.getEnrollmentsByCourse(courseId);
-        return ResponseEntity.ok(enrollments);
+    public ResponseEntity<List<CourseEnrollmentDTO>> getEnrollmentsByCourse(
+            @PathVariable String courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(enrollmentService.getEnrollmentsByCourse(courseId, Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
+    }
+
+    /**
+     * Roster of a course: each enrollment with the student's name and email
+     * GET /api/enrollments/course/{courseId}/roster
+     * Paginated: ?limit= (default 50, max 500) and ?cursor= from the Next-Cursor header
+     */
+    @GetMapping("/course/{courseId}/roster")
+    public ResponseEntity<List<RosterEntryDTO>> getCourseRoster(
+            @PathVariable String courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(enrollmentService.getCourseRoster(courseId, Pagination.afterKey(cursor), Pagination.limit(limit)));
     }
 
     /**
      * Get all courses a student is enrolled in
      * GET /api/enrollments/student/{studentId}
+     * Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
      */
     @GetMapping("/student/{studentId}")
-    public ResponseEntity<List<CourseEnrollmentDTO>> getEnrollmentsByStudent(@PathVariable String studentId) {
-        List<CourseEnrollmentDTO> enrollments = enrollmentService.getEnrollmentsByStudent(studentId);
-        return ResponseEntity.ok(enrollments);
+    public ResponseEntity<List<CourseEnrollmentDTO>> getEnrollmentsByStudent(
+            @PathVariable String studentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(enrollmentService.getEnrollmentsByStudent(studentId, Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
+    }
+
+    /**
+     * Enrollment changes (created, updated, deleted) in the order they were committed, for incremental sync
+     * GET /api/enrollments/changes?cursor=...&limit=...
+     *
+     * Every response carries a Next-Cursor header to continue from, also when the body is empty
+     * (nothing new yet). Keep reading while pages come back full. Without a cursor the feed starts
+     * at the oldest change kept. Responds 410 Gone when changes after the cursor were already
+     * purged: resync from the full list.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<List<EnrollmentChangeDTO>> getChanges(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        long afterSeq = changeSeq(Pagination.afterKey(cursor));
+        if (enrollmentService.isChangeCursorExpired(afterSeq)) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Changes after this cursor were purged, resync from the full list");
+        }
+        KeysetPage<EnrollmentChangeDTO> page = enrollmentService.getChangesAfter(afterSeq, Pagination.limit(limit));
+        List<EnrollmentChangeDTO> changes = page.getItems();
+        long lastSeq = changes.isEmpty() ? afterSeq : changes.get(changes.size() - 1).getSeq();
+        return ResponseEntity.ok()
+                .header(Pagination.NEXT_CURSOR_HEADER, Pagination.cursor(String.valueOf(lastSeq)))
+                .body(changes);
+    }
+
+    /**
+     * Cursor of the latest change, to take before a full download and sync from afterwards
+     * GET /api/enrollments/changes/head
+     */
+    @GetMapping("/changes/head")
+    public ResponseEntity<Void> getChangesHead() {
+        return ResponseEntity.ok()
+                .header(Pagination.NEXT_CURSOR_HEADER, Pagination.cursor(String.valueOf(enrollmentService.getChangesHead())))
+                .build();
     }
 
     /**
@@ -105,6 +506,54 @@ public class EnrollmentController {
         return ResponseEntity.ok(enrolled);
     }
 
+    /**
+     * Check many enrollments in one call
+     * POST /api/enrollments/check
+     *
+     * Request body, one of:
+     * { "pairs": [{ "courseId": "c1", "studentId": "s1" }, { "courseId": "c2", "studentId": "s1" }] }
+     * { "studentId": "s1", "courseIds": ["c1", "c2"] }
+     * { "courseId": "c1", "studentIds": ["s1", "s2"] }
+     *
+     * Response: { "enrolled": [true, false], "enrolledCount": 1 }, one flag per pair in request order.
+     * At most MAX_CHECK_PAIRS pairs per request.
+     */
+    @PostMapping("/check")
+    public ResponseEntity<EnrollmentCheckResultDTO> areStudentsEnrolled(@RequestBody EnrollmentCheckRequest request) {
+        List<String> courseIds = new ArrayList<>();
+        List<String> studentIds = new ArrayList<>();
+        if (request.getPairs() != null) {
+            for (EnrollmentCheckRequest.Pair pair : request.getPairs()) {
+                courseIds.add(pair.getCourseId());
+                studentIds.add(pair.getStudentId());
+            }
+        } else if (request.getStudentId() != null && request.getCourseIds() != null) {
+            courseIds.addAll(request.getCourseIds());
+            studentIds.addAll(Collections.nCopies(courseIds.size(), request.getStudentId()));
+        } else if (request.getCourseId() != null && request.getStudentIds() != null) {
+            studentIds.addAll(request.getStudentIds());
+            courseIds.addAll(Collections.nCopies(studentIds.size(), request.getCourseId()));
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Expected pairs, studentId with courseIds, or courseId with studentIds");
+        }
+        if (courseIds.size() > MAX_CHECK_PAIRS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_CHECK_PAIRS + " pairs per request");
+        }
+        if (courseIds.contains(null) || studentIds.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every pair needs a courseId and a studentId");
+        }
+
+        boolean[] enrolled = enrollmentService.areStudentsEnrolled(courseIds, studentIds);
+        List<Boolean> flags = new ArrayList<>(enrolled.length);
+        int enrolledCount = 0;
+        for (boolean flag : enrolled) {
+            flags.add(flag);
+            enrolledCount += flag ? 1 : 0;
+        }
+        return ResponseEntity.ok(new EnrollmentCheckResultDTO(flags, enrolledCount));
+    }
+
     /**
      * Update enrollment status
      * PUT /api/enrollments/{id}
@@ -118,6 +567,59 @@ public class EnrollmentController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Set the status of every enrollment of a course, e.g. at the end of term
+     * PUT /api/enrollments/course/{courseId}/status?status=completed
+     *
+     * Response: { "affected": 120 }, enrollments already in that status are not counted
+     */
+    @PutMapping("/course/{courseId}/status")
+    public ResponseEntity<EnrollmentBulkChangeDTO> updateStatusByCourse(
+            @PathVariable String courseId,
+            @RequestParam String status) {
+        int updated = enrollmentService.updateStatusByCourse(courseId, checkStatus(status));
+        return ResponseEntity.ok(new EnrollmentBulkChangeDTO(updated));
+    }
+
+    /**
+     * Set the status of every enrollment in the courses of a semester
+     * PUT /api/enrollments/semester/{semester}/status?status=completed
+     */
+    @PutMapping("/semester/{semester}/status")
+    public ResponseEntity<EnrollmentBulkChangeDTO> updateStatusBySemester(
+            @PathVariable String semester,
+            @RequestParam String status) {
+        int updated = enrollmentService.updateStatusBySemester(semester, checkStatus(status));
+        return ResponseEntity.ok(new EnrollmentBulkChangeDTO(updated));
+    }
+
+    /**
+     * Drop students from a course (status "dropped", the enrollments are kept)
+     * POST /api/enrollments/course/{courseId}/drop
+     *
+     * Request body: ["student-id-1", "student-id-2"]
+     */
+    @PostMapping("/course/{courseId}/drop")
+    public ResponseEntity<EnrollmentBulkChangeDTO> dropStudents(
+            @PathVariable String courseId,
+            @RequestBody List<String> studentIds) {
+        if (studentIds.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Student ids must not be null");
+        }
+        int dropped = enrollmentService.dropStudents(courseId, studentIds);
+        return ResponseEntity.ok(new EnrollmentBulkChangeDTO(dropped));
+    }
+
+    /**
+     * Remove every enrollment of a course
+     * DELETE /api/enrollments/course/{courseId}
+     */
+    @DeleteMapping("/course/{courseId}")
+    public ResponseEntity<EnrollmentBulkChangeDTO> removeAllFromCourse(@PathVariable String courseId) {
+        int deleted = enrollmentService.removeAllFromCourse(courseId);
+        return ResponseEntity.ok(new EnrollmentBulkChangeDTO(deleted));
+    }
+
     /**
      * Remove student from course
      * DELETE /api/enrollments/course/{courseId}/student/{studentId}
@@ -143,4 +645,25 @@ public class EnrollmentController {
         }
         return ResponseEntity.notFound().build();
     }
+
+    // Bulk status changes touch many rows: reject a mistyped status instead of writing it everywhere
+    private static String checkStatus(String status) {
+        if (!ENROLLMENT_STATUSES.contains(status)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Status must be one of enrolled, dropped, completed");
+        }
+        return status;
+    }
+
+    // Change feed cursors carry a seq; "" is the start of the feed
+    private static long changeSeq(String key) {
+        if (key.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
 }
@@ -3,10 +3,13 @@ package com.app.controller;
 import com.app.dto.ExamDTO;
 import com.app.service.ExamService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -14,6 +17,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ExamController {
 
+    static final int MAX_OPEN_COURSE_IDS = 500;
+
     private final ExamService examService;
 
     /**
@@ -29,11 +34,40 @@ public class ExamController {
     /**
      * Get all exams
      * GET /api/exams
+     * Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
      */
     @GetMapping
-    public ResponseEntity<List<ExamDTO>> getAllExams() {
-        List<ExamDTO> exams = examService.getAllExams();
-        return ResponseEntity.ok(exams);
+    public ResponseEntity<List<ExamDTO>> getAllExams(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(examService.getAllExams(Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
+    }
+
+    /**
+     * Get the exams of some courses open for taking
+     * GET /api/exams/available?courseIds=course-1,course-2
+     * ?at= (ISO date-time, default now) asks about another instant; closing soonest first
+     */
+    @GetMapping("/available")
+    public ResponseEntity<List<ExamDTO>> getOpenExams(
+            @RequestParam List<String> courseIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        if (courseIds.size() > MAX_OPEN_COURSE_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_OPEN_COURSE_IDS + " course ids per request");
+        }
+        return ResponseEntity.ok(examService.getOpenExams(courseIds, at != null ? at : LocalDateTime.now()));
+    }
+
+    /**
+     * Get the exams a student can take, from the courses they are enrolled in
+     * GET /api/exams/available/by-student/{studentId}
+     * ?at= (ISO date-time, default now) asks about another instant; closing soonest first
+     */
+    @GetMapping("/available/by-student/{studentId}")
+    public ResponseEntity<List<ExamDTO>> getOpenExamsForStudent(
+            @PathVariable String studentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(examService.getOpenExamsForStudent(studentId, at != null ? at : LocalDateTime.now()));
     }
 
     /**
@@ -50,11 +84,14 @@ public class ExamController {
     /**
      * Get exams by course
      * GET /api/exams/by-course/{courseId}
+     * Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
      */
     @GetMapping("/by-course/{courseId}")
-    public ResponseEntity<List<ExamDTO>> getExamsByCourse(@PathVariable String courseId) {
-        List<ExamDTO> exams = examService.getExamsByCourse(courseId);
-        return ResponseEntity.ok(exams);
+    public ResponseEntity<List<ExamDTO>> getExamsByCourse(
+            @PathVariable String courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(examService.getExamsByCourse(courseId, Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
     }
 
     // @GetMapping("/by-course-code/{courseCode}")
@@ -66,11 +103,14 @@ public class ExamController {
     /**
      * Get exams by professor
      * GET /api/exams/by-professor/{professorId}
+     * Paginated: ?limit= (max 500) and ?cursor= from the Next-Cursor header; with neither, the whole list (deprecated)
      */
     @GetMapping("/by-professor/{professorId}")
-    public ResponseEntity<List<ExamDTO>> getExamsByProfessor(@PathVariable String professorId) {
-        List<ExamDTO> exams = examService.getExamsByProfessor(professorId);
-        return ResponseEntity.ok(exams);
+    public ResponseEntity<List<ExamDTO>> getExamsByProfessor(
+            @PathVariable String professorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(examService.getExamsByProfessor(professorId, Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
     }
 
     /**
@@ -0,0 +1,81 @@
+package com.app.controller;
+
+import com.app.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/exports")
+@RequiredArgsConstructor
+public class ExportController {
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    private final ExportService exportService;
+
+    /**
+     * Export all users (no password hashes)
+     * GET /api/exports/users?format=json|csv
+     */
+    @GetMapping("/users")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "json") String format) {
+        return export("users", format(format), exportService::exportUsers);
+    }
+
+    /**
+     * Export all enrollments
+     * GET /api/exports/enrollments?format=json|csv
+     */
+    @GetMapping("/enrollments")
+    public ResponseEntity<StreamingResponseBody> exportEnrollments(@RequestParam(defaultValue = "json") String format) {
+        return export("enrollments", format(format), exportService::exportEnrollments);
+    }
+
+    /**
+     * Export all exams
+     * GET /api/exports/exams?format=json|csv
+     */
+    @GetMapping("/exams")
+    public ResponseEntity<StreamingResponseBody> exportExams(@RequestParam(defaultValue = "json") String format) {
+        return export("exams", format(format), exportService::exportExams);
+    }
+
+    // ===== HELPERS =====
+
+    private static ExportService.Format format(String format) {
+        try {
+            return ExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format " + format + ", expected json or csv");
+        }
+    }
+
+    // The body is written while the rows are read, after the headers are sent
+    private static ResponseEntity<StreamingResponseBody> export(String name, ExportService.Format format, ExportRun run) {
+        boolean csv = format == ExportService.Format.CSV;
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(name + (csv ? ".csv" : ".json"))
+                .build();
+        StreamingResponseBody body = output -> run.export(format, output);
+        return ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
+    @FunctionalInterface
+    private interface ExportRun {
+        void export(ExportService.Format format, OutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,85 @@
+package com.app.controller;
+
+import com.app.dto.KeysetPage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Request parameters and response headers shared by the paginated list endpoints.
+ * A list endpoint takes ?limit= (default DEFAULT_LIMIT, capped at MAX_LIMIT) and ?cursor=,
+ * and answers with the page as a JSON array. When more rows follow, the Next-Cursor header
+ * holds the opaque token to pass as ?cursor= for the next page.
+ * The lists that existed before pagination still return every row when called with neither
+ * parameter (see listLimit); that is deprecated and goes away in the next release.
+ */
+final class Pagination {
+
+    static final String NEXT_CURSOR_HEADER = "Next-Cursor";
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+    static final int UNPAGED = KeysetPage.UNPAGED;
+
+    // Sort keys are UUIDs; anything longer did not come from NEXT_CURSOR_HEADER
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private Pagination() {
+    }
+
+    /**
+     * Page size to read, within 1..MAX_LIMIT
+     */
+    static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Page size for a list that returned every row before it was paginated.
+     * A call with neither limit nor cursor still gets the whole list, so existing clients are not
+     * cut off at DEFAULT_LIMIT rows without notice. Deprecated: in the next release such calls
+     * get DEFAULT_LIMIT rows like any other.
+     */
+    static int listLimit(Integer limit, String cursor) {
+        if (limit == null && (cursor == null || cursor.isEmpty())) {
+            return UNPAGED;
+        }
+        return limit(limit);
+    }
+
+    /**
+     * Sort key to continue after, "" (before any id) for the first page
+     */
+    static String afterKey(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return "";
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!key.isEmpty() && key.length() <= MAX_KEY_LENGTH) {
+                return key;
+            }
+        } catch (IllegalArgumentException e) {
+            // Not base64, reported below
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    static String cursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static <T> ResponseEntity<List<T>> ok(KeysetPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextKey() != null) {
+            response.header(NEXT_CURSOR_HEADER, cursor(page.getNextKey()));
+        }
+        return response.body(page.getItems());
+    }
+}
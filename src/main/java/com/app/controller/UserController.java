@@ -1,11 +1,13 @@
 package com.app.controller;
 
 import com.app.dto.UserDTO;
+import com.app.dto.UserSummaryDTO;
 import com.app.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -14,6 +16,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final int DEFAULT_SEARCH_RESULTS = 10;
+    private static final int MAX_SEARCH_RESULTS = 50;
+
     private final UserService userService;
 
     // CREATE
@@ -23,11 +28,27 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
     }
 
-    // READ - Get all users
+    // READ - Get all users, one page per request
     @GetMapping
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        List<UserDTO> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserDTO>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(userService.getAllUsers(Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
+    }
+
+    // READ - Autocomplete users by name or email: ?q=nguyen van&role=student&status=active&limit=10
+    // Every word must start a word of the name or email; a query with "@" must start the email
+    @GetMapping("/search")
+    public ResponseEntity<List<UserSummaryDTO>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer limit) {
+        if (q.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query must not be blank");
+        }
+        int results = limit == null ? DEFAULT_SEARCH_RESULTS : Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        return ResponseEntity.ok(userService.searchUsers(q, role, status, results));
     }
 
     // READ - Get user by ID
@@ -46,18 +67,22 @@ public class UserController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    // READ - Get users by role
+    // READ - Get users by role, one page per request
     @GetMapping("/role/{role}")
-    public ResponseEntity<List<UserDTO>> getUsersByRole(@PathVariable String role) {
-        List<UserDTO> users = userService.getUsersByRole(role);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserDTO>> getUsersByRole(
+            @PathVariable String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(userService.getUsersByRole(role, Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
     }
 
-    // READ - Get users by status
+    // READ - Get users by status, one page per request
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<UserDTO>> getUsersByStatus(@PathVariable String status) {
-        List<UserDTO> users = userService.getUsersByStatus(status);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserDTO>> getUsersByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return Pagination.ok(userService.getUsersByStatus(status, Pagination.afterKey(cursor), Pagination.listLimit(limit, cursor)));
     }
 
     // UPDATE
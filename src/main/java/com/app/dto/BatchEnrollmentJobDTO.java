@@ -0,0 +1,24 @@
+package com.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchEnrollmentJobDTO {
+    private String id;
+    private String courseId;
+    private String status;    // queued | running | completed | failed | cancelled
+    private int rowsParsed;
+    private int successCount;
+    private int skippedCount;
+    private int errorCount;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -1,5 +1,6 @@
 package com.app.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,10 +12,14 @@ import java.util.List;
 @AllArgsConstructor
 public class BatchEnrollmentResultDTO {
     private String courseId;
+    // True when nothing was written: the counts and results are what the import would do
+    private boolean dryRun;
     private int totalRecords;
     private int successCount;
     private int skippedCount;
     private int errorCount;
+    // Left out of the closing summary line of a streamed (NDJSON) response
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<EnrollmentResultDTO> results;
     private String timestamp;
 }
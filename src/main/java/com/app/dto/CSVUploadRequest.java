@@ -12,4 +12,5 @@ public class CSVUploadRequest {
     private int nameColumnIndex;      // 0-based column index for student name
     private int emailColumnIndex;     // 0-based column index for student email
     private String csvContent;        // Raw CSV content as string
+    private Integer courseCodeColumnIndex; // 0-based column index for course code (multi-course import only)
 }
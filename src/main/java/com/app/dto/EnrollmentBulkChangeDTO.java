@@ -0,0 +1,13 @@
+package com.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentBulkChangeDTO {
+    // Enrollments changed or deleted; rows already in the requested status are not counted
+    private int affected;
+}
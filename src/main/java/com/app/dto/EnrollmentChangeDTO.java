@@ -0,0 +1,24 @@
+package com.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the enrollment change feed: the enrollment as it was right after the change
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentChangeDTO {
+    // Position in the feed, increasing in the order changes were committed
+    private long seq;
+    private String changeType; // CREATED | UPDATED | DELETED
+    private String enrollmentId;
+    private String courseId;
+    private String studentId;
+    private String status;
+    private LocalDateTime changedAt;
+}
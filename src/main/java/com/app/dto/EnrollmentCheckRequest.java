@@ -0,0 +1,32 @@
+package com.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Enrollments to check in one call, given in one of three shapes:
+ * explicit pairs, one student against many courses, or many students against one course
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentCheckRequest {
+    private List<Pair> pairs;
+
+    private String studentId;
+    private List<String> courseIds;
+
+    private String courseId;
+    private List<String> studentIds;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pair {
+        private String courseId;
+        private String studentId;
+    }
+}
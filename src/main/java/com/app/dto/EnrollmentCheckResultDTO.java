@@ -0,0 +1,16 @@
+package com.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentCheckResultDTO {
+    // One flag per checked pair, in request order
+    private List<Boolean> enrolled;
+    private int enrolledCount;
+}
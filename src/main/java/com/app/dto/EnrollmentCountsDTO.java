@@ -0,0 +1,18 @@
+package com.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of enrollments of a course in each status
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentCountsDTO {
+    private String courseId;
+    private int enrolled;
+    private int dropped;
+    private int completed;
+}
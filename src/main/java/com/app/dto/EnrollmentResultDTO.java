@@ -1,5 +1,6 @@
 package com.app.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,4 +15,7 @@ public class EnrollmentResultDTO {
     private String enrollmentId;
     private String status;  // SUCCESS | SKIPPED | ERROR
     private String message;
+    // Only set by multi-course imports
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String courseCode;
 }
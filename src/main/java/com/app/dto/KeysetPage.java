@@ -0,0 +1,58 @@
+package com.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a list read in id order (keyset pagination).
+ * The next page is read with "id > nextKey", an index range scan, so a page costs
+ * the same however deep into the list it is and rows inserted meanwhile are not repeated.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+    private List<T> items;
+    // Id of the last item when more rows follow, null on the last page
+    private String nextKey;
+
+    // Limit asking for the whole list, for unpaged calls to the lists that predate pagination;
+    // one below MAX_VALUE so limit + 1 fits
+    public static final int UNPAGED = Integer.MAX_VALUE - 1;
+
+    /**
+     * Rows to read for a page of the given size: one more than asked, to know whether more follow
+     */
+    public static Pageable request(int limit) {
+        return PageRequest.of(0, limit + 1);
+    }
+
+    /**
+     * Page from rows read with request(limit), in id order
+     */
+    public static <E, T> KeysetPage<T> of(List<E> rows, int limit, Function<E, String> key, Function<E, T> mapper) {
+        int size = Math.min(rows.size(), limit);
+        List<T> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(mapper.apply(rows.get(i)));
+        }
+        String nextKey = rows.size() > limit ? key.apply(rows.get(limit - 1)) : null;
+        return new KeysetPage<>(items, nextKey);
+    }
+
+    /**
+     * Page from rows read with request(limit) that are already the items (DTO projections)
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, String> key) {
+        List<T> items = rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextKey = rows.size() > limit ? key.apply(rows.get(limit - 1)) : null;
+        return new KeysetPage<>(items, nextKey);
+    }
+}
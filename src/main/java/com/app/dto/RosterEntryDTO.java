@@ -0,0 +1,22 @@
+package com.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A student of a course roster: the enrollment and the student's name and email
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RosterEntryDTO {
+    private String enrollmentId;
+    private String studentId;
+    private String name;
+    private String email;
+    private String status;
+    private LocalDateTime enrolledAt;
+}
@@ -0,0 +1,19 @@
+package com.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a user picker shows of a user: no password hash or timestamps
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDTO {
+    private String id;
+    private String name;
+    private String email;
+    private String role;
+    private String status;
+}
@@ -0,0 +1,74 @@
+package com.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "batch_enrollment_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchEnrollmentJob {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "course_id", length = 36, nullable = false)
+    private String courseId;
+
+    @Column(name = "name_column_index")
+    private int nameColumnIndex;
+
+    @Column(name = "email_column_index")
+    private int emailColumnIndex;
+
+    @Column(name = "input_path", length = 1024)
+    private String inputPath; // spooled upload, deleted once the job finishes
+
+    @Column(name = "lease_owner", length = 36)
+    private String leaseOwner; // node running the job
+
+    // Renewed in database time while the owner is alive; only written by BatchEnrollmentJobRepository queries
+    @Column(name = "lease_renewed_at", insertable = false, updatable = false,
+            columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime leaseRenewedAt;
+
+    @Column(length = 50)
+    private String status; // queued | running | completed | failed | cancelled
+
+    @Column(name = "rows_parsed")
+    private int rowsParsed;
+
+    @Column(name = "success_count")
+    private int successCount;
+
+    @Column(name = "skipped_count")
+    private int skippedCount;
+
+    @Column(name = "error_count")
+    private int errorCount;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "result_json", columnDefinition = "LONGTEXT")
+    private String resultJson;
+
+    @Column(name = "created_at", columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -8,7 +8,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "courses")
+@Table(name = "courses", indexes = {
+    // Keyset pages of the courses with a status
+    @Index(name = "courses_status_id", columnList = "status, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -10,6 +10,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "course_enrollments", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"course_id", "student_id"})
+}, indexes = {
+    // A student's courses in course id order, status filtered from the index
+    @Index(name = "course_enrollments_student_course", columnList = "student_id, course_id, status")
 })
 @Data
 @NoArgsConstructor
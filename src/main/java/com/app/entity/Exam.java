@@ -8,7 +8,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "exams")
+@Table(name = "exams", indexes = {
+    // A course's exams by availability window, for open-exam lookups while the in-memory index is loading
+    @Index(name = "exams_course_window", columnList = "course_id, start_available_at, end_available_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
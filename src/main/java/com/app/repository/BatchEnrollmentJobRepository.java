@@ -0,0 +1,100 @@
+package com.app.repository;
+
+import com.app.entity.BatchEnrollmentJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BatchEnrollmentJobRepository extends JpaRepository<BatchEnrollmentJob, String> {
+    List<BatchEnrollmentJob> findByStatusIn(Collection<String> statuses);
+
+    @Query("SELECT j.status FROM BatchEnrollmentJob j WHERE j.id = :id")
+    Optional<String> findStatusById(@Param("id") String id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BatchEnrollmentJob j SET j.rowsParsed = :rowsParsed, j.successCount = :successCount, "
+            + "j.skippedCount = :skippedCount, j.errorCount = :errorCount WHERE j.id = :id")
+    int updateProgress(@Param("id") String id,
+                       @Param("rowsParsed") int rowsParsed,
+                       @Param("successCount") int successCount,
+                       @Param("skippedCount") int skippedCount,
+                       @Param("errorCount") int errorCount);
+
+    // Unfinished jobs whose owner has not renewed the lease for leaseSeconds, judged by the database clock
+    @Query(value = "SELECT id FROM batch_enrollment_jobs WHERE finished_at IS NULL "
+            + "AND (lease_renewed_at IS NULL OR lease_renewed_at < TIMESTAMPADD(SECOND, -:leaseSeconds, CURRENT_TIMESTAMP))",
+            nativeQuery = true)
+    List<String> findExpiredLeases(@Param("leaseSeconds") long leaseSeconds);
+
+    // Claims an expired job for owner; returns 0 when the lease was renewed or taken in the meantime
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE batch_enrollment_jobs SET lease_owner = :owner, lease_renewed_at = CURRENT_TIMESTAMP "
+            + "WHERE id = :id AND finished_at IS NULL "
+            + "AND (lease_renewed_at IS NULL OR lease_renewed_at < TIMESTAMPADD(SECOND, -:leaseSeconds, CURRENT_TIMESTAMP))",
+            nativeQuery = true)
+    int takeOver(@Param("id") String id, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+    // Extends the lease of unfinished jobs still held by owner; returns how many it still holds
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE batch_enrollment_jobs SET lease_renewed_at = CURRENT_TIMESTAMP "
+            + "WHERE id IN (:ids) AND lease_owner = :owner AND finished_at IS NULL",
+            nativeQuery = true)
+    int renewLease(@Param("ids") Collection<String> ids, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BatchEnrollmentJob j SET j.status = 'cancelled' WHERE j.id = :id AND j.status IN ('queued', 'running')")
+    int cancel(@Param("id") String id);
+
+    // State changes by the lease owner below are conditional, like cancel(): each returns 0 when the
+    // job was cancelled or taken over since the owner last read it, instead of overwriting that
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BatchEnrollmentJob j SET j.status = 'queued' WHERE j.id = :id AND j.leaseOwner = :owner "
+            + "AND j.finishedAt IS NULL AND j.status IN ('queued', 'running')")
+    int requeue(@Param("id") String id, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BatchEnrollmentJob j SET j.status = 'running', j.startedAt = :startedAt "
+            + "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = 'queued'")
+    int markRunning(@Param("id") String id, @Param("owner") String owner, @Param("startedAt") LocalDateTime startedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BatchEnrollmentJob j SET j.rowsParsed = :rowsParsed, j.successCount = :successCount, "
+            + "j.skippedCount = :skippedCount, j.errorCount = :errorCount, j.resultJson = :resultJson "
+            + "WHERE j.id = :id AND j.leaseOwner = :owner AND j.finishedAt IS NULL")
+    int saveResult(@Param("id") String id,
+                   @Param("owner") String owner,
+                   @Param("rowsParsed") int rowsParsed,
+                   @Param("successCount") int successCount,
+                   @Param("skippedCount") int skippedCount,
+                   @Param("errorCount") int errorCount,
+                   @Param("resultJson") String resultJson);
+
+    // Moves the job to a final status, only from one of the given statuses
+    @Transactional
+    @Modifying
+    @Query("UPDATE BatchEnrollmentJob j SET j.status = :status, j.message = :message, j.finishedAt = :finishedAt "
+            + "WHERE j.id = :id AND j.leaseOwner = :owner AND j.finishedAt IS NULL AND j.status IN :fromStatuses")
+    int finish(@Param("id") String id,
+               @Param("owner") String owner,
+               @Param("fromStatuses") Collection<String> fromStatuses,
+               @Param("status") String status,
+               @Param("message") String message,
+               @Param("finishedAt") LocalDateTime finishedAt);
+}
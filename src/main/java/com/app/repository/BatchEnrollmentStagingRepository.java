@@ -0,0 +1,181 @@
+package com.app.repository;
+
+import com.app.dto.UserSummaryDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Staging table for bulk CSV enrollment loads.
+ * Parsed rows are written with multi-row INSERTs, then merged into users and
+ * course_enrollments with a handful of set-based statements, whatever the number of rows.
+ * Rows of one load share an import id, so concurrent loads never see each other's rows.
+ */
+@Repository
+public class BatchEnrollmentStagingRepository {
+
+    /**
+     * Upper bound on the rows of a single multi-row INSERT, keeps the statement
+     * well under the server's placeholder and packet limits
+     */
+    public static final int MAX_ROWS_PER_INSERT = 1000;
+
+    private static final String CREATE_TABLE_SQL =
+            "CREATE TABLE IF NOT EXISTS batch_enrollment_staging ("
+                    + "import_id VARCHAR(36) NOT NULL, "
+                    + "row_no INTEGER NOT NULL, "
+                    + "name VARCHAR(255), "
+                    + "email VARCHAR(255) NOT NULL, "
+                    + "new_user_id VARCHAR(36) NOT NULL, "
+                    + "enrollment_id VARCHAR(36) NOT NULL, "
+                    + "user_id VARCHAR(36), "
+                    + "status VARCHAR(16) NOT NULL, "
+                    + "PRIMARY KEY (import_id, row_no))";
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO batch_enrollment_staging (import_id, row_no, name, email, new_user_id, enrollment_id, status) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, 'PENDING')";
+
+    // Accounts for staged emails with no user yet; the key clause covers a user created meanwhile
+    private static final String MERGE_USERS_SQL =
+            "INSERT INTO users (id, name, email, role, status, created_at) "
+                    + "SELECT s.new_user_id, s.name, s.email, 'student', 'active', CURRENT_TIMESTAMP "
+                    + "FROM batch_enrollment_staging s "
+                    + "WHERE s.import_id = ? "
+                    + "AND NOT EXISTS (SELECT 1 FROM users u WHERE u.email = s.email) "
+                    + "ON DUPLICATE KEY UPDATE role = users.role";
+
+    private static final String RESOLVE_USERS_SQL =
+            "UPDATE batch_enrollment_staging s "
+                    + "SET user_id = (SELECT u.id FROM users u WHERE u.email = s.email) "
+                    + "WHERE s.import_id = ?";
+
+    private static final String SKIP_ENROLLED_SQL =
+            "UPDATE batch_enrollment_staging s SET status = 'SKIPPED' "
+                    + "WHERE s.import_id = ? AND s.status = 'PENDING' "
+                    + "AND EXISTS (SELECT 1 FROM course_enrollments e WHERE e.course_id = ? AND e.student_id = s.user_id)";
+
+    // The key clause leaves enrollments made meanwhile untouched, those rows end up SKIPPED
+    private static final String MERGE_ENROLLMENTS_SQL =
+            "INSERT INTO course_enrollments (id, course_id, student_id, enrolled_at, status) "
+                    + "SELECT s.enrollment_id, ?, s.user_id, CURRENT_TIMESTAMP, 'enrolled' "
+                    + "FROM batch_enrollment_staging s "
+                    + "WHERE s.import_id = ? AND s.status = 'PENDING' "
+                    + "ON DUPLICATE KEY UPDATE status = course_enrollments.status";
+
+    private static final String MARK_ENROLLED_SQL =
+            "UPDATE batch_enrollment_staging s SET status = 'SUCCESS' "
+                    + "WHERE s.import_id = ? AND s.status = 'PENDING' "
+                    + "AND EXISTS (SELECT 1 FROM course_enrollments e WHERE e.id = s.enrollment_id)";
+
+    // Feeds the enrollment change log, in the transaction of the merge
+    private static final String LOG_CHANGES_SQL =
+            "INSERT INTO enrollment_changes (change_type, enrollment_id, course_id, student_id, status, changed_at) "
+                    + "SELECT 'CREATED', s.enrollment_id, ?, s.user_id, 'enrolled', CURRENT_TIMESTAMP(3) "
+                    + "FROM batch_enrollment_staging s "
+                    + "WHERE s.import_id = ? AND s.status = 'SUCCESS' ORDER BY s.row_no";
+
+    private static final String SKIP_REMAINING_SQL =
+            "UPDATE batch_enrollment_staging SET status = 'SKIPPED' WHERE import_id = ? AND status = 'PENDING'";
+
+    // A staged row created its user only when the user kept the id the row proposed
+    private static final String CREATED_USERS_SQL =
+            "SELECT u.id, u.name, u.email, u.role, u.status "
+                    + "FROM batch_enrollment_staging s JOIN users u ON u.id = s.new_user_id "
+                    + "WHERE s.import_id = ? ORDER BY s.row_no";
+
+    private static final String COUNT_SQL =
+            "SELECT status, COUNT(*) FROM batch_enrollment_staging WHERE import_id = ? GROUP BY status";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM batch_enrollment_staging WHERE import_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean tableCreated = false;
+
+    public BatchEnrollmentStagingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Create the staging table on first use; it is not mapped by JPA, so schema update does not manage it
+     */
+    public void createTableIfMissing() {
+        if (!tableCreated) {
+            jdbcTemplate.execute(CREATE_TABLE_SQL);
+            tableCreated = true;
+        }
+    }
+
+    /**
+     * Stage rows with multi-row INSERTs of at most MAX_ROWS_PER_INSERT rows each.
+     * Emails must already be distinct within the import.
+     */
+    public void stage(String importId, List<StagedRow> rows) {
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_INSERT) {
+            List<StagedRow> slice = rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_INSERT));
+
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + slice.size() * (INSERT_ROW.length() + 2));
+            sql.append(INSERT_PREFIX);
+            List<Object> args = new ArrayList<>(slice.size() * 6);
+            for (int i = 0; i < slice.size(); i++) {
+                StagedRow row = slice.get(i);
+                sql.append(i == 0 ? "" : ", ").append(INSERT_ROW);
+                args.add(importId);
+                args.add(row.rowNumber());
+                args.add(row.name());
+                args.add(row.email());
+                args.add(UUID.randomUUID().toString());
+                args.add(UUID.randomUUID().toString());
+            }
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    /**
+     * Merge the staged rows of an import into users and the course's enrollments.
+     * Must run inside a transaction so the load is all or nothing.
+     * Returns the number of staged rows per outcome (SUCCESS, SKIPPED)
+     */
+    public Map<String, Integer> merge(String importId, String courseId) {
+        jdbcTemplate.update(MERGE_USERS_SQL, importId);
+        jdbcTemplate.update(RESOLVE_USERS_SQL, importId);
+        jdbcTemplate.update(SKIP_ENROLLED_SQL, importId, courseId);
+        jdbcTemplate.update(MERGE_ENROLLMENTS_SQL, courseId, importId);
+        jdbcTemplate.update(MARK_ENROLLED_SQL, importId);
+        jdbcTemplate.update(SKIP_REMAINING_SQL, importId);
+        jdbcTemplate.update(LOG_CHANGES_SQL, courseId, importId);
+
+        Map<String, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(COUNT_SQL, rs -> {
+            counts.put(rs.getString(1), rs.getInt(2));
+        }, importId);
+        return counts;
+    }
+
+    /**
+     * Users created by merging an import, read in the merge's transaction before the rows are deleted
+     */
+    public List<UserSummaryDTO> findCreatedUsers(String importId) {
+        return jdbcTemplate.query(CREATED_USERS_SQL, (rs, rowNum) -> new UserSummaryDTO(
+                rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)), importId);
+    }
+
+    /**
+     * Remove the staged rows of an import
+     */
+    public void delete(String importId) {
+        jdbcTemplate.update(DELETE_SQL, importId);
+    }
+
+    /**
+     * A parsed CSV row waiting to be merged
+     */
+    public record StagedRow(int rowNumber, String name, String email) {
+    }
+}
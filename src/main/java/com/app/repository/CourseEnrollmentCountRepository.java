@@ -0,0 +1,154 @@
+package com.app.repository;
+
+import com.app.dto.EnrollmentCountsDTO;
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-course enrollment counts by status, kept in course_enrollment_counts.
+ * Writers add deltas in the transaction that changes the enrollments; changes made with
+ * set-based statements recount the courses they touched, and a periodic reconciliation
+ * recounts any course whose counts drifted from the course_enrollments table.
+ * A recount is a single INSERT ... SELECT, so it is exact even while enrollments change.
+ */
+@Repository
+public class CourseEnrollmentCountRepository {
+
+    private static final String CREATE_TABLE_SQL =
+            "CREATE TABLE IF NOT EXISTS course_enrollment_counts ("
+                    + "course_id VARCHAR(36) PRIMARY KEY, "
+                    + "enrolled INTEGER NOT NULL DEFAULT 0, "
+                    + "dropped INTEGER NOT NULL DEFAULT 0, "
+                    + "completed INTEGER NOT NULL DEFAULT 0)";
+
+    private static final String ADD_SQL =
+            "INSERT INTO course_enrollment_counts (course_id, enrolled, dropped, completed) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE enrolled = enrolled + VALUES(enrolled), "
+                    + "dropped = dropped + VALUES(dropped), completed = completed + VALUES(completed)";
+
+    private static final String COUNT_COLUMNS =
+            "COUNT(CASE WHEN e.status = 'enrolled' THEN 1 END), "
+                    + "COUNT(CASE WHEN e.status = 'dropped' THEN 1 END), "
+                    + "COUNT(CASE WHEN e.status = 'completed' THEN 1 END)";
+
+    private static final String REPLACE_COUNTS =
+            " ON DUPLICATE KEY UPDATE enrolled = VALUES(enrolled), dropped = VALUES(dropped), completed = VALUES(completed)";
+
+    // An aggregate without GROUP BY always yields a row, so a course with no enrollments gets zeros
+    private static final String RECOUNT_COURSE_SQL =
+            "INSERT INTO course_enrollment_counts (course_id, enrolled, dropped, completed) "
+                    + "SELECT ?, " + COUNT_COLUMNS + " FROM course_enrollments e WHERE e.course_id = ?"
+                    + REPLACE_COUNTS;
+
+    private static final String RECOUNT_SEMESTER_SQL =
+            "INSERT INTO course_enrollment_counts (course_id, enrolled, dropped, completed) "
+                    + "SELECT c.id, " + COUNT_COLUMNS + " FROM courses c "
+                    + "LEFT JOIN course_enrollments e ON e.course_id = c.id "
+                    + "WHERE c.semester = ? GROUP BY c.id"
+                    + REPLACE_COUNTS;
+
+    private static final String ACTUAL_COUNTS_SQL =
+            "SELECT c.id, " + COUNT_COLUMNS + " FROM courses c "
+                    + "LEFT JOIN course_enrollments e ON e.course_id = c.id";
+
+    private static final String FIND_ALL_SQL =
+            "SELECT course_id, enrolled, dropped, completed FROM course_enrollment_counts";
+
+    private static final String DELETE_SQL = "DELETE FROM course_enrollment_counts WHERE course_id = ?";
+
+    private static final RowMapper<EnrollmentCountsDTO> ROW_MAPPER = (rs, rowNum) ->
+            new EnrollmentCountsDTO(rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CourseEnrollmentCountRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Create the counts table at startup if missing; it is not mapped by JPA, so schema update does not
+     * manage it. Not done on first use: MySQL commits the open transaction on any DDL statement.
+     */
+    @PostConstruct
+    public void createTableIfMissing() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+    }
+
+    /**
+     * Add (or with negative values subtract) enrollments to a course's counts
+     */
+    public void add(String courseId, int enrolled, int dropped, int completed) {
+        jdbcTemplate.update(ADD_SQL, courseId, enrolled, dropped, completed);
+    }
+
+    /**
+     * Set a course's counts from its enrollments
+     */
+    public void recountCourse(String courseId) {
+        jdbcTemplate.update(RECOUNT_COURSE_SQL, courseId, courseId);
+    }
+
+    /**
+     * Remove a course's counts (the course no longer exists)
+     */
+    public void delete(String courseId) {
+        jdbcTemplate.update(DELETE_SQL, courseId);
+    }
+
+    /**
+     * Set the counts of every course of a semester from their enrollments
+     */
+    public void recountSemester(String semester) {
+        jdbcTemplate.update(RECOUNT_SEMESTER_SQL, semester);
+    }
+
+    /**
+     * Stored counts of the given courses, keyed by course id (one query); courses with no row are left out
+     */
+    public Map<String, EnrollmentCountsDTO> findByCourseIds(Collection<String> courseIds) {
+        Map<String, EnrollmentCountsDTO> counts = new HashMap<>();
+        if (courseIds.isEmpty()) {
+            return counts;
+        }
+        String sql = FIND_ALL_SQL + " WHERE course_id IN (" + String.join(", ", Collections.nCopies(courseIds.size(), "?")) + ")";
+        for (EnrollmentCountsDTO row : jdbcTemplate.query(sql, ROW_MAPPER, courseIds.toArray())) {
+            counts.put(row.getCourseId(), row);
+        }
+        return counts;
+    }
+
+    /**
+     * Stored counts of every course
+     */
+    public List<EnrollmentCountsDTO> findAll() {
+        return jdbcTemplate.query(FIND_ALL_SQL, ROW_MAPPER);
+    }
+
+    /**
+     * Counts of every course computed from course_enrollments with GROUP BY (a full scan)
+     */
+    public List<EnrollmentCountsDTO> countActual() {
+        return jdbcTemplate.query(ACTUAL_COUNTS_SQL + " GROUP BY c.id", ROW_MAPPER);
+    }
+
+    /**
+     * Counts of the given courses computed from course_enrollments; unknown courses are left out
+     */
+    public List<EnrollmentCountsDTO> countActual(Collection<String> courseIds) {
+        if (courseIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = ACTUAL_COUNTS_SQL + " WHERE c.id IN (" + String.join(", ", Collections.nCopies(courseIds.size(), "?")) + ")"
+                + " GROUP BY c.id";
+        return jdbcTemplate.query(sql, ROW_MAPPER, courseIds.toArray());
+    }
+}
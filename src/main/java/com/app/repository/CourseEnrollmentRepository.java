@@ -1,16 +1,81 @@
 package com.app.repository;
 
+import com.app.dto.CourseEnrollmentDTO;
+import com.app.dto.RosterEntryDTO;
 import com.app.entity.CourseEnrollment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface CourseEnrollmentRepository extends JpaRepository<CourseEnrollment, String> {
+public interface CourseEnrollmentRepository extends JpaRepository<CourseEnrollment, String>, CourseEnrollmentRepositoryCustom {
     List<CourseEnrollment> findByCourseId(String courseId);
     List<CourseEnrollment> findByStudentId(String studentId);
     Optional<CourseEnrollment> findByCourseIdAndStudentId(String courseId, String studentId);
+    boolean existsByCourseIdAndStudentId(String courseId, String studentId);
     List<CourseEnrollment> findByStatus(String status);
+
+    // DTO projections for the read paths
+    String SELECT_DTO = "SELECT new com.app.dto.CourseEnrollmentDTO(e.id, e.courseId, e.studentId, e.enrolledAt, e.status) "
+            + "FROM CourseEnrollment e ";
+
+    @Query(SELECT_DTO + "WHERE e.id = :id")
+    Optional<CourseEnrollmentDTO> findDtoById(@Param("id") String id);
+
+    @Query(SELECT_DTO + "WHERE e.courseId = :courseId AND e.studentId = :studentId")
+    Optional<CourseEnrollmentDTO> findDtoByCourseIdAndStudentId(@Param("courseId") String courseId,
+                                                                @Param("studentId") String studentId);
+
+    // Keyset pages: the rows after afterId in id order, pageable giving the page size
+    @Query(SELECT_DTO + "WHERE e.id > :afterId ORDER BY e.id")
+    List<CourseEnrollmentDTO> findDtoPage(@Param("afterId") String afterId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE e.courseId = :courseId AND e.id > :afterId ORDER BY e.id")
+    List<CourseEnrollmentDTO> findDtoPageByCourseId(@Param("courseId") String courseId,
+                                                    @Param("afterId") String afterId,
+                                                    Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE e.studentId = :studentId AND e.id > :afterId ORDER BY e.id")
+    List<CourseEnrollmentDTO> findDtoPageByStudentId(@Param("studentId") String studentId,
+                                                     @Param("afterId") String afterId,
+                                                     Pageable pageable);
+
+    // Courses of a student with an enrollment in the status, answered from the student_course index
+    @Query("SELECT e.courseId FROM CourseEnrollment e WHERE e.studentId = :studentId AND e.status = :status")
+    List<String> findCourseIdsByStudentIdAndStatus(@Param("studentId") String studentId, @Param("status") String status);
+
+    // Forward-only read of the whole table for exports, must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM CourseEnrollment e ORDER BY e.id")
+    Stream<CourseEnrollment> streamAll();
+
+    @Query("SELECT e.studentId FROM CourseEnrollment e WHERE e.courseId = :courseId AND e.studentId IN :studentIds")
+    List<String> findEnrolledStudentIds(@Param("courseId") String courseId,
+                                        @Param("studentIds") Collection<String> studentIds);
+
+    // Keyset page of a course roster: enrollment and student columns only, no User entity loaded
+    @Query("SELECT new com.app.dto.RosterEntryDTO(e.id, e.studentId, u.name, u.email, e.status, e.enrolledAt) "
+            + "FROM CourseEnrollment e JOIN User u ON u.id = e.studentId "
+            + "WHERE e.courseId = :courseId AND e.id > :afterId ORDER BY e.id")
+    List<RosterEntryDTO> findRoster(@Param("courseId") String courseId,
+                                    @Param("afterId") String afterId,
+                                    Pageable pageable);
+
+    // Enrolled (courseId, studentId) pairs among all combinations of the given ids
+    @Query("SELECT e.courseId, e.studentId FROM CourseEnrollment e WHERE e.courseId IN :courseIds AND e.studentId IN :studentIds")
+    List<Object[]> findEnrolledPairs(@Param("courseIds") Collection<String> courseIds,
+                                     @Param("studentIds") Collection<String> studentIds);
 }
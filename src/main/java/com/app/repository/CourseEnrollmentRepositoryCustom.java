@@ -0,0 +1,37 @@
+package com.app.repository;
+
+import com.app.entity.CourseEnrollment;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CourseEnrollmentRepositoryCustom {
+    /**
+     * Insert new enrollments in a single JDBC batch, bypassing the persistence context
+     */
+    void batchInsert(List<CourseEnrollment> enrollments);
+
+    /**
+     * Set the status of every enrollment of a course, returning how many changed.
+     * Set-based and chunked like the other bulk changes below: each chunk of rows is changed and
+     * logged to enrollment_changes in its own transaction (unless called inside one), so row locks
+     * are held one chunk at a time. Rows already in the target status are skipped, so re-running
+     * an interrupted change finishes it.
+     */
+    int updateStatusByCourseId(String courseId, String status);
+
+    /**
+     * Set the status of every enrollment in the courses of a semester, returning how many changed
+     */
+    int updateStatusBySemester(String semester, String status);
+
+    /**
+     * Set the status of the given students' enrollments in a course, returning how many changed
+     */
+    int updateStatusByCourseIdAndStudentIds(String courseId, Collection<String> studentIds, String status);
+
+    /**
+     * Delete every enrollment of a course, returning how many were deleted
+     */
+    int deleteByCourseIdInChunks(String courseId);
+}
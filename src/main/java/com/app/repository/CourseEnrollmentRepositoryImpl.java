@@ -0,0 +1,139 @@
+package com.app.repository;
+
+import com.app.entity.CourseEnrollment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class CourseEnrollmentRepositoryImpl implements CourseEnrollmentRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO course_enrollments (id, course_id, student_id, enrolled_at, status) VALUES (?, ?, ?, ?, ?)";
+
+    // Bulk changes, one transaction per chunk: lock the next ids to change, change them, log them.
+    // Selects run in id order so concurrent bulk changes lock rows in the same order.
+    private static final String SELECT_BY_COURSE_SQL =
+            "SELECT id FROM course_enrollments WHERE course_id = ? AND (status IS NULL OR status <> ?) "
+                    + "ORDER BY id LIMIT ? FOR UPDATE";
+    private static final String SELECT_BY_SEMESTER_SQL =
+            "SELECT id FROM course_enrollments WHERE course_id IN (SELECT id FROM courses WHERE semester = ?) "
+                    + "AND (status IS NULL OR status <> ?) ORDER BY id LIMIT ? FOR UPDATE";
+    private static final String SELECT_ALL_OF_COURSE_SQL =
+            "SELECT id FROM course_enrollments WHERE course_id = ? ORDER BY id LIMIT ? FOR UPDATE";
+    private static final int DEFAULT_CHUNK_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EnrollmentChangeRepository changeRepository;
+    private final TransactionTemplate transactionTemplate;
+    // Rows per bulk statement; package-private so tests can make chunks small
+    int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public CourseEnrollmentRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                          EnrollmentChangeRepository changeRepository,
+                                          PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeRepository = changeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void batchInsert(List<CourseEnrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, enrollments, enrollments.size(), (ps, enrollment) -> {
+            LocalDateTime enrolledAt = enrollment.getEnrolledAt() != null ? enrollment.getEnrolledAt() : LocalDateTime.now();
+            ps.setString(1, enrollment.getId());
+            ps.setString(2, enrollment.getCourseId());
+            ps.setString(3, enrollment.getStudentId());
+            ps.setTimestamp(4, Timestamp.valueOf(enrolledAt));
+            ps.setString(5, enrollment.getStatus());
+        });
+    }
+
+    @Override
+    public int updateStatusByCourseId(String courseId, String status) {
+        return inChunks(SELECT_BY_COURSE_SQL, ids -> setStatus(ids, status), courseId, status);
+    }
+
+    @Override
+    public int updateStatusBySemester(String semester, String status) {
+        return inChunks(SELECT_BY_SEMESTER_SQL, ids -> setStatus(ids, status), semester, status);
+    }
+
+    @Override
+    public int updateStatusByCourseIdAndStudentIds(String courseId, Collection<String> studentIds, String status) {
+        List<String> students = new ArrayList<>(studentIds);
+        int updated = 0;
+        // The student list is the chunk: at most chunkSize students per transaction
+        for (int from = 0; from < students.size(); from += chunkSize) {
+            List<String> chunk = students.subList(from, Math.min(from + chunkSize, students.size()));
+            String sql = "SELECT id FROM course_enrollments WHERE course_id = ? AND (status IS NULL OR status <> ?) "
+                    + "AND student_id IN (" + placeholders(chunk.size()) + ") ORDER BY id FOR UPDATE";
+            List<Object> args = new ArrayList<>(chunk.size() + 2);
+            args.add(courseId);
+            args.add(status);
+            args.addAll(chunk);
+            updated += transactionTemplate.execute(tx -> {
+                List<String> ids = jdbcTemplate.queryForList(sql, String.class, args.toArray());
+                setStatus(ids, status);
+                return ids.size();
+            });
+        }
+        return updated;
+    }
+
+    @Override
+    public int deleteByCourseIdInChunks(String courseId) {
+        return inChunks(SELECT_ALL_OF_COURSE_SQL, ids -> {
+            changeRepository.appendCurrent(EnrollmentChangeRepository.DELETED, ids);
+            jdbcTemplate.update("DELETE FROM course_enrollments WHERE id IN (" + placeholders(ids.size()) + ")", ids.toArray());
+        }, courseId);
+    }
+
+    // Select up to chunkSize ids with a query ending in "LIMIT ? FOR UPDATE" and change them, in one
+    // transaction per chunk, until fewer than chunkSize are left. The change must take the ids out of the query.
+    private int inChunks(String selectSql, Consumer<List<String>> change, Object... args) {
+        Object[] withLimit = Arrays.copyOf(args, args.length + 1);
+        withLimit[args.length] = chunkSize;
+        int total = 0;
+        int changed;
+        do {
+            changed = transactionTemplate.execute(tx -> {
+                List<String> ids = jdbcTemplate.queryForList(selectSql, String.class, withLimit);
+                if (!ids.isEmpty()) {
+                    change.accept(ids);
+                }
+                return ids.size();
+            });
+            total += changed;
+        } while (changed == chunkSize);
+        return total;
+    }
+
+    private void setStatus(List<String> ids, String status) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Object[] args = new Object[ids.size() + 1];
+        args[0] = status;
+        for (int i = 0; i < ids.size(); i++) {
+            args[i + 1] = ids.get(i);
+        }
+        jdbcTemplate.update("UPDATE course_enrollments SET status = ? WHERE id IN (" + placeholders(ids.size()) + ")", args);
+        changeRepository.appendCurrent(EnrollmentChangeRepository.UPDATED, ids);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -1,15 +1,62 @@
 package com.app.repository;
 
+import com.app.dto.CourseDTO;
 import com.app.entity.Course;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, String> {
     Optional<Course> findByCode(String code);
+    List<Course> findByCodeIn(Collection<String> codes);
     List<Course> findByProfessorId(String professorId);
     List<Course> findByStatus(String status);
+
+    // DTO projections for the read paths
+    String SELECT_DTO = "SELECT new com.app.dto.CourseDTO(c.id, c.code, c.name, c.description, c.professorId, "
+            + "c.semester, c.status, c.createdAt) FROM Course c ";
+
+    @Query(SELECT_DTO + "WHERE c.id = :id")
+    Optional<CourseDTO> findDtoById(@Param("id") String id);
+
+    @Query(SELECT_DTO + "WHERE c.code = :code")
+    Optional<CourseDTO> findDtoByCode(@Param("code") String code);
+
+    // Course search while the in-memory index is not loaded: a LIKE pattern over code and name
+    @Query(SELECT_DTO + "WHERE LOWER(c.code) LIKE :pattern ESCAPE '!' OR LOWER(c.name) LIKE :pattern ESCAPE '!' ORDER BY c.code")
+    List<CourseDTO> findDtoByCodeOrNameLike(@Param("pattern") String pattern, Pageable pageable);
+
+    // Keyset pages: the rows after afterId in id order, pageable giving the page size
+    @Query(SELECT_DTO + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CourseDTO> findDtoPage(@Param("afterId") String afterId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE c.professorId = :professorId AND c.id > :afterId ORDER BY c.id")
+    List<CourseDTO> findDtoPageByProfessorId(@Param("professorId") String professorId,
+                                             @Param("afterId") String afterId,
+                                             Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE c.status = :status AND c.id > :afterId ORDER BY c.id")
+    List<CourseDTO> findDtoPageByStatus(@Param("status") String status, @Param("afterId") String afterId, Pageable pageable);
+
+    // A student's courses in one join, read from the (student_id, course_id, status) index;
+    // a null filter matches everything. (course_id, student_id) is unique, so no course repeats.
+    @Query(SELECT_DTO + "JOIN CourseEnrollment e ON e.courseId = c.id "
+            + "WHERE e.studentId = :studentId AND c.id > :afterId "
+            + "AND (:enrollmentStatus IS NULL OR e.status = :enrollmentStatus) "
+            + "AND (:courseStatus IS NULL OR c.status = :courseStatus) "
+            + "AND (:semester IS NULL OR c.semester = :semester) "
+            + "ORDER BY c.id")
+    List<CourseDTO> findDtoPageByStudentId(@Param("studentId") String studentId,
+                                           @Param("enrollmentStatus") String enrollmentStatus,
+                                           @Param("courseStatus") String courseStatus,
+                                           @Param("semester") String semester,
+                                           @Param("afterId") String afterId,
+                                           Pageable pageable);
 }
@@ -0,0 +1,216 @@
+package com.app.repository;
+
+import com.app.dto.EnrollmentChangeDTO;
+import com.app.entity.CourseEnrollment;
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only log of enrollment changes, read as a feed ordered by feed_seq.
+ * Every write to course_enrollments appends here in the same transaction, so a change is
+ * logged exactly when it is committed. The seq taken at insert time does not follow commit
+ * order (a bulk merge can commit minutes after later changes), so readers never see it:
+ * sequence() later gives committed changes their feed_seq, one run at a time across nodes,
+ * and a feed_seq is only ever handed out above every one already visible. A reader can
+ * therefore never move past a change that is still to come.
+ */
+@Repository
+public class EnrollmentChangeRepository {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private static final String CREATE_TABLE_SQL =
+            "CREATE TABLE IF NOT EXISTS enrollment_changes ("
+                    + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "feed_seq BIGINT, "
+                    + "change_type VARCHAR(16) NOT NULL, "
+                    + "enrollment_id VARCHAR(36) NOT NULL, "
+                    + "course_id VARCHAR(36) NOT NULL, "
+                    + "student_id VARCHAR(36) NOT NULL, "
+                    + "status VARCHAR(50), "
+                    + "changed_at TIMESTAMP(3) NOT NULL, "
+                    + "UNIQUE KEY enrollment_changes_feed_seq (feed_seq))";
+
+    private static final String CREATE_SEQUENCE_TABLE_SQL =
+            "CREATE TABLE IF NOT EXISTS enrollment_change_sequence (id INT PRIMARY KEY, last_feed_seq BIGINT NOT NULL)";
+
+    private static final String INIT_SEQUENCE_SQL =
+            "INSERT IGNORE INTO enrollment_change_sequence (id, last_feed_seq) VALUES (1, 0)";
+
+    // changed_at is database time, the same clock on every node
+    private static final String INSERT_SQL =
+            "INSERT INTO enrollment_changes (change_type, enrollment_id, course_id, student_id, status, changed_at) "
+                    + "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP(3))";
+
+    // Copies the current state of enrollments, appended with "WHERE e.id IN (...)"
+    private static final String APPEND_CURRENT_SQL =
+            "INSERT INTO enrollment_changes (change_type, enrollment_id, course_id, student_id, status, changed_at) "
+                    + "SELECT ?, e.id, e.course_id, e.student_id, e.status, CURRENT_TIMESTAMP(3) FROM course_enrollments e";
+
+    private static final String FIND_AFTER_SQL =
+            "SELECT feed_seq, change_type, enrollment_id, course_id, student_id, status, changed_at FROM enrollment_changes "
+                    + "WHERE feed_seq > ? ORDER BY feed_seq LIMIT ?";
+
+    private static final String MIN_FEED_SEQ_SQL = "SELECT MIN(feed_seq) FROM enrollment_changes";
+
+    private static final String LAST_FEED_SEQ_SQL = "SELECT last_feed_seq FROM enrollment_change_sequence WHERE id = 1";
+
+    // Sequencing: lock the counter so one run at a time hands out feed_seqs, then number the
+    // committed changes still without one in insert order
+    private static final String LOCK_SEQUENCE_SQL =
+            "SELECT last_feed_seq FROM enrollment_change_sequence WHERE id = 1 FOR UPDATE";
+    private static final String UNSEQUENCED_SQL =
+            "SELECT seq FROM enrollment_changes WHERE feed_seq IS NULL ORDER BY seq LIMIT ?";
+    private static final String SET_FEED_SEQ_SQL = "UPDATE enrollment_changes SET feed_seq = ? WHERE seq = ?";
+    private static final String SAVE_SEQUENCE_SQL = "UPDATE enrollment_change_sequence SET last_feed_seq = ? WHERE id = 1";
+
+    // Only changes already in the feed, so a purge never races the sequencer. The cutoff is taken from
+    // the database clock that wrote changed_at, not the JVM's, so clock or time zone skew cannot cut it short
+    private static final String PURGE_SQL = "DELETE FROM enrollment_changes "
+            + "WHERE changed_at < TIMESTAMPADD(SECOND, -?, CURRENT_TIMESTAMP(3)) AND feed_seq IS NOT NULL LIMIT ?";
+
+    private static final RowMapper<EnrollmentChangeDTO> ROW_MAPPER = (rs, rowNum) -> new EnrollmentChangeDTO(
+            rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6),
+            rs.getTimestamp(7).toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EnrollmentChangeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Create the change tables at startup if missing; they are not mapped by JPA, so schema update does not
+     * manage them. Not done on first use: MySQL commits the open transaction on any DDL statement.
+     */
+    @PostConstruct
+    public void createTableIfMissing() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_SEQUENCE_TABLE_SQL);
+        jdbcTemplate.update(INIT_SEQUENCE_SQL);
+    }
+
+    /**
+     * Log a change of one enrollment, given as it is after the change
+     */
+    public void append(String changeType, CourseEnrollment enrollment) {
+        appendAll(changeType, List.of(enrollment));
+    }
+
+    /**
+     * Log the same change of many enrollments in one JDBC batch, in list order
+     */
+    public void appendAll(String changeType, List<CourseEnrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, enrollments, enrollments.size(), (ps, enrollment) -> {
+            ps.setString(1, changeType);
+            ps.setString(2, enrollment.getId());
+            ps.setString(3, enrollment.getCourseId());
+            ps.setString(4, enrollment.getStudentId());
+            ps.setString(5, enrollment.getStatus());
+        });
+    }
+
+    /**
+     * Log a change of the enrollments with the given ids, copying their current rows
+     * (so call it after an update and before a delete)
+     */
+    public void appendCurrent(String changeType, Collection<String> enrollmentIds) {
+        if (enrollmentIds.isEmpty()) {
+            return;
+        }
+        String sql = APPEND_CURRENT_SQL + " WHERE e.id IN (" + String.join(", ", Collections.nCopies(enrollmentIds.size(), "?"))
+                + ") ORDER BY e.id";
+        Object[] args = new Object[enrollmentIds.size() + 1];
+        args[0] = changeType;
+        int i = 1;
+        for (String id : enrollmentIds) {
+            args[i++] = id;
+        }
+        jdbcTemplate.update(sql, args);
+    }
+
+    /**
+     * Up to limit changes after afterFeedSeq, in feed order; changes not sequenced yet are left out
+     */
+    public List<EnrollmentChangeDTO> findAfter(long afterFeedSeq, int limit) {
+        return jdbcTemplate.query(FIND_AFTER_SQL, ROW_MAPPER, afterFeedSeq, limit);
+    }
+
+    /**
+     * Smallest feed_seq still in the log, or null when the feed is empty
+     */
+    public Long findMinFeedSeq() {
+        return jdbcTemplate.queryForObject(MIN_FEED_SEQ_SQL, Long.class);
+    }
+
+    /**
+     * Largest feed_seq handed out, or 0 when there is none
+     */
+    public long findLastFeedSeq() {
+        List<Long> last = jdbcTemplate.queryForList(LAST_FEED_SEQ_SQL, Long.class);
+        return last.isEmpty() ? 0 : last.get(0);
+    }
+
+    /**
+     * Whether every change after afterFeedSeq is still in the log, i.e. none was purged before
+     * a reader at that position could see it
+     */
+    public boolean reachesBack(long afterFeedSeq) {
+        Long minSeq = findMinFeedSeq();
+        if (minSeq == null) {
+            // Everything was purged: only a reader at the head missed nothing
+            return afterFeedSeq >= findLastFeedSeq();
+        }
+        return minSeq <= afterFeedSeq + 1;
+    }
+
+    /**
+     * Give up to limit committed changes their feed_seq, in the order they were logged; returns how many.
+     * Must run inside its own transaction: it holds the sequence lock until commit, and the numbers
+     * become visible all at once, after every number before them.
+     */
+    public int sequence(int limit) {
+        List<Long> last = jdbcTemplate.queryForList(LOCK_SEQUENCE_SQL, Long.class);
+        if (last.isEmpty()) {
+            throw new IllegalStateException("enrollment_change_sequence has no row, run createTableIfMissing()");
+        }
+        List<Long> seqs = jdbcTemplate.queryForList(UNSEQUENCED_SQL, Long.class, limit);
+        if (seqs.isEmpty()) {
+            return 0;
+        }
+        long first = last.get(0) + 1;
+        List<Object[]> args = new ArrayList<>(seqs.size());
+        for (int i = 0; i < seqs.size(); i++) {
+            args.add(new Object[]{first + i, seqs.get(i)});
+        }
+        jdbcTemplate.batchUpdate(SET_FEED_SEQ_SQL, args);
+        jdbcTemplate.update(SAVE_SEQUENCE_SQL, first + seqs.size() - 1);
+        return seqs.size();
+    }
+
+    /**
+     * Delete changes in the feed logged longer than retention ago, at most chunkSize rows per statement; returns how many
+     */
+    public int purgeOlderThan(Duration retention, int chunkSize) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, retention.toSeconds(), chunkSize);
+            total += deleted;
+        } while (deleted == chunkSize);
+        return total;
+    }
+}
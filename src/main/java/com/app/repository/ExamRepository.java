@@ -1,14 +1,59 @@
 package com.app.repository;
 
+import com.app.dto.ExamDTO;
 import com.app.entity.Exam;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ExamRepository extends JpaRepository<Exam, String> {
     List<Exam> findByCourseId(String courseId);
     // List<Exam> findByCourseCode(String courseCode);
     List<Exam> findByProfessorId(String professorId);
+
+    // DTO projections for the read paths
+    String SELECT_DTO = "SELECT new com.app.dto.ExamDTO(e.id, e.courseId, e.title, e.description, e.professorId, "
+            + "e.examFileUrl, e.durationMinutes, e.startAvailableAt, e.endAvailableAt, e.recordingRequired, "
+            + "e.createdAt) FROM Exam e ";
+
+    @Query(SELECT_DTO + "WHERE e.id = :id")
+    Optional<ExamDTO> findDtoById(@Param("id") String id);
+
+    // Keyset pages: the rows after afterId in id order, pageable giving the page size
+    @Query(SELECT_DTO + "WHERE e.id > :afterId ORDER BY e.id")
+    List<ExamDTO> findDtoPage(@Param("afterId") String afterId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE e.courseId = :courseId AND e.id > :afterId ORDER BY e.id")
+    List<ExamDTO> findDtoPageByCourseId(@Param("courseId") String courseId, @Param("afterId") String afterId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE e.professorId = :professorId AND e.id > :afterId ORDER BY e.id")
+    List<ExamDTO> findDtoPageByProfessorId(@Param("professorId") String professorId,
+                                           @Param("afterId") String afterId,
+                                           Pageable pageable);
+
+    // Exams of the courses whose availability window contains the instant, a missing bound leaving it open
+    @Query(SELECT_DTO + "WHERE e.courseId IN :courseIds "
+            + "AND (e.startAvailableAt IS NULL OR e.startAvailableAt <= :at) "
+            + "AND (e.endAvailableAt IS NULL OR e.endAvailableAt >= :at)")
+    List<ExamDTO> findDtoOpenByCourseIds(@Param("courseIds") Collection<String> courseIds, @Param("at") LocalDateTime at);
+
+    // Forward-only read of the whole table for exports, must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM Exam e ORDER BY e.id")
+    Stream<Exam> streamAll();
 }
@@ -1,15 +1,63 @@
 package com.app.repository;
 
+import com.app.dto.UserDTO;
+import com.app.dto.UserSummaryDTO;
 import com.app.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, String> {
+public interface UserRepository extends JpaRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByEmail(String email);
+    List<User> findByEmailIn(Collection<String> emails);
     List<User> findByRole(String role);
     List<User> findByStatus(String status);
+
+    // Read paths project straight into the DTO: no entity is loaded into the persistence context
+    String SELECT_DTO = "SELECT new com.app.dto.UserDTO(u.id, u.name, u.email, u.passwordHash, u.role, u.status, "
+            + "u.createdAt, u.lastLoginAt) FROM User u ";
+
+    @Query(SELECT_DTO + "WHERE u.id = :id")
+    Optional<UserDTO> findDtoById(@Param("id") String id);
+
+    @Query(SELECT_DTO + "WHERE u.email = :email")
+    Optional<UserDTO> findDtoByEmail(@Param("email") String email);
+
+    // User autocomplete while the in-memory index is not loaded: name or email starting with the prefix
+    @Query("SELECT new com.app.dto.UserSummaryDTO(u.id, u.name, u.email, u.role, u.status) FROM User u "
+            + "WHERE (LOWER(u.name) LIKE :prefix ESCAPE '!' OR LOWER(u.email) LIKE :prefix ESCAPE '!') "
+            + "AND (:role IS NULL OR u.role = :role) AND (:status IS NULL OR u.status = :status) ORDER BY u.name")
+    List<UserSummaryDTO> findSummariesByPrefix(@Param("prefix") String prefix,
+                                               @Param("role") String role,
+                                               @Param("status") String status,
+                                               Pageable pageable);
+
+    // Keyset pages: the rows after afterId in id order, pageable giving the page size
+    @Query(SELECT_DTO + "WHERE u.id > :afterId ORDER BY u.id")
+    List<UserDTO> findDtoPage(@Param("afterId") String afterId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE u.role = :role AND u.id > :afterId ORDER BY u.id")
+    List<UserDTO> findDtoPageByRole(@Param("role") String role, @Param("afterId") String afterId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE u.status = :status AND u.id > :afterId ORDER BY u.id")
+    List<UserDTO> findDtoPageByStatus(@Param("status") String status, @Param("afterId") String afterId, Pageable pageable);
+
+    // Forward-only read of the whole table for exports, must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    Stream<User> streamAll();
 }
@@ -0,0 +1,12 @@
+package com.app.repository;
+
+import com.app.entity.User;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+    /**
+     * Insert new users in a single JDBC batch, bypassing the persistence context
+     */
+    void batchInsert(List<User> users);
+}
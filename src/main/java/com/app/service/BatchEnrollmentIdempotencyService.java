@@ -0,0 +1,173 @@
+package com.app.service;
+
+import com.app.config.BatchEnrollmentProperties;
+import com.app.dto.BatchEnrollmentResultDTO;
+import com.app.dto.EnrollmentResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects re-uploads of a batch CSV enrollment.
+ * An upload is identified by its Idempotency-Key header when the client sends one, otherwise by a
+ * fingerprint of the course, column indices, options and a SHA-256 of the content. A repeat
+ * attaches to the import still running for it, or gets the finished result back within the
+ * configured window, instead of running every lookup again.
+ * Results are kept in memory, so detection is per node. Only the counts and the first ERROR rows
+ * are kept for a replay, not a result per row, so remembered imports stay small whatever their size.
+ */
+@Service
+public class BatchEnrollmentIdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchEnrollmentIdempotencyService.class);
+
+    private final BatchEnrollmentProperties properties;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public BatchEnrollmentIdempotencyService(BatchEnrollmentProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Fingerprint of an upload given as a string (JSON request body)
+     */
+    public String fingerprint(String options, String courseId, int nameColumnIndex, int emailColumnIndex, String csvContent) {
+        MessageDigest digest = sha256();
+        digest.update((csvContent != null ? csvContent : "").getBytes(StandardCharsets.UTF_8));
+        return fingerprint(options, courseId, nameColumnIndex, emailColumnIndex, digest);
+    }
+
+    /**
+     * Fingerprint of an uploaded file, read once to hash it
+     */
+    public String fingerprint(String options, String courseId, int nameColumnIndex, int emailColumnIndex, InputStream csvContent) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = csvContent.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return fingerprint(options, courseId, nameColumnIndex, emailColumnIndex, digest);
+    }
+
+    /**
+     * Run the import once per upload.
+     * A repeat of an upload that is running waits for it; a repeat within the window after it
+     * finished gets its counts and ERROR rows. Failed imports are forgotten so the upload can be retried.
+     */
+    public Outcome runOnce(String idempotencyKey, String fingerprint, ImportRun run) throws IOException {
+        if (properties.getIdempotency().getWindow().isZero()) {
+            return new Outcome(run.run(), Status.RAN);
+        }
+
+        String key = idempotencyKey != null && !idempotencyKey.isBlank() ? "key:" + idempotencyKey : "upload:" + fingerprint;
+        while (true) {
+            evictExpired();
+            if (entries.size() >= properties.getIdempotency().getMaxEntries() && !entries.containsKey(key)) {
+                return new Outcome(run.run(), Status.RAN);
+            }
+
+            Entry mine = new Entry(fingerprint);
+            Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                return new Outcome(runAndRemember(key, mine, run), Status.RAN);
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                return new Outcome(null, Status.KEY_REUSED);
+            }
+            try {
+                BatchEnrollmentResultDTO previous = existing.result.join();
+                logger.info("Replaying batch enrollment result for repeated upload {}", key);
+                return new Outcome(previous, Status.REPLAYED);
+            } catch (CompletionException e) {
+                // The earlier run failed and was forgotten, run this one instead
+            }
+        }
+    }
+
+    private BatchEnrollmentResultDTO runAndRemember(String key, Entry entry, ImportRun run) throws IOException {
+        BatchEnrollmentResultDTO result;
+        try {
+            result = run.run();
+        } catch (IOException | RuntimeException e) {
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        entry.finishedAt = System.nanoTime();
+        entry.result.complete(replayOf(result));
+        return result;
+    }
+
+    // The counts and the first ERROR rows of a result, what a repeat gets back
+    private BatchEnrollmentResultDTO replayOf(BatchEnrollmentResultDTO result) {
+        List<EnrollmentResultDTO> errors = null;
+        if (result.getResults() != null) {
+            errors = result.getResults().stream()
+                    .filter(row -> "ERROR".equals(row.getStatus()))
+                    .limit(properties.getIdempotency().getReplayErrorRows())
+                    .toList();
+        }
+        return new BatchEnrollmentResultDTO(result.getCourseId(), result.isDryRun(), result.getTotalRecords(),
+                result.getSuccessCount(), result.getSkippedCount(), result.getErrorCount(), errors, result.getTimestamp());
+    }
+
+    // Running imports are never evicted, finished ones once the window has passed
+    private void evictExpired() {
+        long window = properties.getIdempotency().getWindow().toNanos();
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.result.isDone() && now - entry.finishedAt >= window);
+    }
+
+    private String fingerprint(String options, String courseId, int nameColumnIndex, int emailColumnIndex, MessageDigest digest) {
+        return options + "/" + courseId + "/" + nameColumnIndex + "/" + emailColumnIndex + "/"
+                + HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public enum Status {
+        // This request ran the import
+        RAN,
+        // The result of an earlier identical upload
+        REPLAYED,
+        // The Idempotency-Key was already used for a different upload, nothing was run
+        KEY_REUSED
+    }
+
+    public record Outcome(BatchEnrollmentResultDTO result, Status status) {
+    }
+
+    @FunctionalInterface
+    public interface ImportRun {
+        BatchEnrollmentResultDTO run() throws IOException;
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<BatchEnrollmentResultDTO> result = new CompletableFuture<>();
+        private volatile long finishedAt;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.app.service;
+
+import com.app.config.BatchEnrollmentProperties;
+import com.app.dto.BatchEnrollmentJobDTO;
+import com.app.dto.BatchEnrollmentResultDTO;
+import com.app.dto.CSVUploadRequest;
+import com.app.dto.EnrollmentResultDTO;
+import com.app.entity.BatchEnrollmentJob;
+import com.app.repository.BatchEnrollmentJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs batch CSV enrollments as background jobs.
+ * Uploads are spooled to disk and the job row is persisted before it is queued,
+ * so progress can be polled from any node and unfinished jobs resume after a restart.
+ * The node running a job renews a lease on it; a job whose lease expires is taken over
+ * by another node, or failed when its upload cannot be found.
+ */
+@Service
+public class BatchEnrollmentJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchEnrollmentJobService.class);
+
+    // Statuses a job can be finished from, see finish()
+    private static final List<String> UNFINISHED = List.of("queued", "running");
+    private static final List<String> RUNNING = List.of("running");
+    private static final List<String> RUNNING_OR_CANCELLED = List.of("running", "cancelled");
+    private static final List<String> CANCELLED = List.of("cancelled");
+
+    private final BatchEnrollmentJobRepository jobRepository;
+    private final BatchEnrollmentService batchEnrollmentService;
+    private final TaskExecutor jobExecutor;
+    private final BatchEnrollmentProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService leaseScheduler;
+
+    // Lease owner name of this node, new on every start
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Jobs queued or running on this node, whose leases it renews
+    private final Set<String> ownedJobs = ConcurrentHashMap.newKeySet();
+
+    // Jobs cancelled through this node, checked by the worker between chunks
+    private final Set<String> cancelledJobs = ConcurrentHashMap.newKeySet();
+
+    public BatchEnrollmentJobService(BatchEnrollmentJobRepository jobRepository,
+                                     BatchEnrollmentService batchEnrollmentService,
+                                     @Qualifier("batchEnrollmentJobExecutor") TaskExecutor jobExecutor,
+                                     BatchEnrollmentProperties properties,
+                                     ObjectMapper objectMapper) {
+        this.jobRepository = jobRepository;
+        this.batchEnrollmentService = batchEnrollmentService;
+        this.jobExecutor = jobExecutor;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.leaseScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-enrollment-job-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // CREATE - Queue an import from a CSV stream
+    // Throws TaskRejectedException when the job queue is full
+    public BatchEnrollmentJobDTO submitJob(String courseId,
+                                           int nameColumnIndex,
+                                           int emailColumnIndex,
+                                           InputStream csvContent) throws IOException {
+        String jobId = UUID.randomUUID().toString();
+        Path input = spool(jobId, csvContent);
+
+        BatchEnrollmentJob job = new BatchEnrollmentJob();
+        job.setId(jobId);
+        job.setCourseId(courseId);
+        job.setNameColumnIndex(nameColumnIndex);
+        job.setEmailColumnIndex(emailColumnIndex);
+        job.setInputPath(input.toString());
+        job.setLeaseOwner(nodeId);
+        job.setStatus("queued");
+        BatchEnrollmentJobDTO queuedJob = convertToDTO(jobRepository.save(job));
+
+        ownedJobs.add(jobId);
+        try {
+            jobExecutor.execute(() -> runJob(jobId));
+        } catch (TaskRejectedException e) {
+            logger.warn("Batch enrollment job queue is full, rejecting job {}", jobId);
+            ownedJobs.remove(jobId);
+            jobRepository.deleteById(jobId);
+            Files.deleteIfExists(input);
+            throw e;
+        }
+
+        logger.info("Queued batch enrollment job {} for course {}", jobId, courseId);
+        return queuedJob;
+    }
+
+    // CREATE - Queue an import from a JSON upload request
+    public BatchEnrollmentJobDTO submitJob(CSVUploadRequest request) throws IOException {
+        String csvContent = request.getCsvContent() != null ? request.getCsvContent() : "";
+        return submitJob(
+                request.getCourseId(),
+                request.getNameColumnIndex(),
+                request.getEmailColumnIndex(),
+                new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+
+    // READ - Job status and progress
+    public Optional<BatchEnrollmentJobDTO> getJob(String jobId) {
+        return jobRepository.findById(jobId)
+                .map(this::convertToDTO);
+    }
+
+    // READ - Final result, empty until the job has finished
+    public Optional<BatchEnrollmentResultDTO> getJobResult(String jobId) {
+        return jobRepository.findById(jobId)
+                .map(BatchEnrollmentJob::getResultJson)
+                .map(this::readResult);
+    }
+
+    // UPDATE - Cancel a queued or running job
+    // A running job stops after its current chunk; rows already enrolled stay enrolled
+    public Optional<BatchEnrollmentJobDTO> cancelJob(String jobId) {
+        if (!jobRepository.existsById(jobId)) {
+            return Optional.empty();
+        }
+        if (jobRepository.cancel(jobId) > 0) {
+            cancelledJobs.add(jobId);
+            logger.info("Cancelled batch enrollment job {}", jobId);
+        }
+        return getJob(jobId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = Math.max(1000, properties.getJobs().getLease().toMillis() / 3);
+        leaseScheduler.scheduleWithFixedDelay(this::maintainLeasesQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        leaseScheduler.shutdownNow();
+    }
+
+    /**
+     * Renew the leases of this node's jobs, then take over jobs whose lease expired.
+     * That includes this node's own jobs from before a restart, once their lease has run out.
+     * Re-running an import is safe: rows enrolled before the takeover are reported as SKIPPED.
+     */
+    public void maintainLeases() {
+        if (!ownedJobs.isEmpty()) {
+            jobRepository.renewLease(List.copyOf(ownedJobs), nodeId);
+        }
+        long leaseSeconds = Math.max(1, properties.getJobs().getLease().toSeconds());
+        for (String jobId : jobRepository.findExpiredLeases(leaseSeconds)) {
+            if (jobRepository.takeOver(jobId, nodeId, leaseSeconds) > 0) {
+                jobRepository.findById(jobId).ifPresent(this::resume);
+            }
+        }
+    }
+
+    private void resume(BatchEnrollmentJob job) {
+        String jobId = job.getId();
+        if ("cancelled".equals(job.getStatus())) {
+            // Cancelled while running on a node that stopped before finishing it
+            finish(jobId, CANCELLED, "cancelled", null, null);
+            deleteQuietly(job.getInputPath());
+            return;
+        }
+        if (job.getInputPath() == null || !Files.exists(Paths.get(job.getInputPath()))) {
+            logger.warn("Upload of abandoned batch enrollment job {} is gone, failing it", jobId);
+            finish(jobId, UNFINISHED, "failed", null, "Upload lost when the server running the job stopped, please resubmit");
+            return;
+        }
+        if (jobRepository.requeue(jobId, nodeId) == 0) {
+            // Cancelled since it was read
+            finish(jobId, CANCELLED, "cancelled", null, null);
+            deleteQuietly(job.getInputPath());
+            return;
+        }
+        ownedJobs.add(jobId);
+        try {
+            jobExecutor.execute(() -> runJob(jobId));
+            logger.info("Took over batch enrollment job {}", jobId);
+        } catch (TaskRejectedException e) {
+            ownedJobs.remove(jobId);
+            finish(jobId, UNFINISHED, "failed", null, "Job queue full while taking the job over, please resubmit");
+            deleteQuietly(job.getInputPath());
+        }
+    }
+
+    private void maintainLeasesQuietly() {
+        try {
+            maintainLeases();
+        } catch (RuntimeException e) {
+            logger.warn("Could not maintain batch enrollment job leases: {}", e.getMessage());
+        }
+    }
+
+    private void runJob(String jobId) {
+        BatchEnrollmentJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || !nodeId.equals(job.getLeaseOwner())) {
+            ownedJobs.remove(jobId);
+            return;
+        }
+        JobProgressListener listener = new JobProgressListener(jobId);
+        // Set when another node owns the job now and needs its upload to run it again
+        boolean handedOver = false;
+        try {
+            if (jobRepository.markRunning(jobId, nodeId, LocalDateTime.now()) == 0) {
+                // Cancelled while waiting in the queue, unless another node took it over
+                handedOver = !finish(jobId, CANCELLED, "cancelled", null, null);
+                return;
+            }
+
+            try (Reader reader = Files.newBufferedReader(Paths.get(job.getInputPath()), StandardCharsets.UTF_8)) {
+                BatchEnrollmentResultDTO result = batchEnrollmentService.processCSVEnrollment(
+                        job.getCourseId(),
+                        job.getNameColumnIndex(),
+                        job.getEmailColumnIndex(),
+                        reader,
+                        listener
+                );
+                if (listener.isLeaseLost()) {
+                    // The new owner runs the job again from its spooled upload
+                    logger.warn("Batch enrollment job {} was taken over by another node, stopping here", jobId);
+                    handedOver = true;
+                    return;
+                }
+                // A cancel the worker saw with no rows left to skip gives way to "completed";
+                // one that arrived after its last check stands
+                handedOver = !finish(jobId, listener.isCancelled() ? RUNNING_OR_CANCELLED : RUNNING,
+                        listener.isStoppedEarly() ? "cancelled" : "completed", result, null);
+            }
+        } catch (Exception e) {
+            logger.error("Batch enrollment job {} failed", jobId, e);
+            handedOver = listener.isLeaseLost() || !finish(jobId, RUNNING, "failed", null, "Error: " + e.getMessage());
+        } finally {
+            ownedJobs.remove(jobId);
+            cancelledJobs.remove(jobId);
+            if (!handedOver) {
+                deleteQuietly(job.getInputPath());
+            }
+        }
+    }
+
+    /**
+     * Record the result and move the job to status, if it is still held by this node and in one of
+     * fromStatuses; a job cancelled meanwhile is finished as cancelled instead.
+     * Returns false when the job is no longer this node's to finish.
+     */
+    private boolean finish(String jobId, List<String> fromStatuses, String status,
+                           BatchEnrollmentResultDTO result, String message) {
+        if (result != null) {
+            jobRepository.saveResult(jobId, nodeId, result.getTotalRecords(), result.getSuccessCount(),
+                    result.getSkippedCount(), result.getErrorCount(), writeResult(result));
+        }
+        LocalDateTime finishedAt = LocalDateTime.now();
+        if (jobRepository.finish(jobId, nodeId, fromStatuses, status, message, finishedAt) > 0) {
+            return true;
+        }
+        if (jobRepository.finish(jobId, nodeId, CANCELLED, "cancelled", message, finishedAt) > 0) {
+            logger.info("Batch enrollment job {} was cancelled before it could finish as {}", jobId, status);
+            return true;
+        }
+        return false;
+    }
+
+    private Path spool(String jobId, InputStream csvContent) throws IOException {
+        Path spoolDir = Paths.get(properties.getJobs().getSpoolDir());
+        Files.createDirectories(spoolDir);
+        Path input = spoolDir.resolve(jobId + ".csv");
+        Files.copy(csvContent, input, StandardCopyOption.REPLACE_EXISTING);
+        return input;
+    }
+
+    private void deleteQuietly(String path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(path));
+        } catch (IOException e) {
+            logger.warn("Could not delete spooled upload {}", path, e);
+        }
+    }
+
+    private String writeResult(BatchEnrollmentResultDTO result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BatchEnrollmentResultDTO readResult(String json) {
+        try {
+            return objectMapper.readValue(json, BatchEnrollmentResultDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BatchEnrollmentJobDTO convertToDTO(BatchEnrollmentJob job) {
+        return new BatchEnrollmentJobDTO(
+                job.getId(),
+                job.getCourseId(),
+                job.getStatus(),
+                job.getRowsParsed(),
+                job.getSuccessCount(),
+                job.getSkippedCount(),
+                job.getErrorCount(),
+                job.getMessage(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt()
+        );
+    }
+
+    /**
+     * Persists running totals after every chunk, renews the job's lease,
+     * picks up cancellations made on any node, and keeps the result small enough to store
+     */
+    private class JobProgressListener implements BatchEnrollmentListener {
+        private final String jobId;
+        private int rowsParsed;
+        private int successCount;
+        private int skippedCount;
+        private int errorCount;
+        private boolean cancelled;
+        private boolean leaseLost;
+        private boolean stoppedEarly;
+        private int errorRowsKept;
+
+        JobProgressListener(String jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void onChunkProcessed(List<EnrollmentResultDTO> results) {
+            for (EnrollmentResultDTO result : results) {
+                rowsParsed++;
+                switch (result.getStatus()) {
+                    case "SUCCESS" -> successCount++;
+                    case "SKIPPED" -> skippedCount++;
+                    default -> errorCount++;
+                }
+            }
+            jobRepository.updateProgress(jobId, rowsParsed, successCount, skippedCount, errorCount);
+            leaseLost = jobRepository.renewLease(List.of(jobId), nodeId) == 0;
+            cancelled = jobRepository.findStatusById(jobId)
+                    .map("cancelled"::equals)
+                    .orElse(true);
+        }
+
+        @Override
+        public void onStoppedEarly() {
+            stoppedEarly = true;
+        }
+
+        // Only the first ERROR rows are stored with the job, see Jobs.resultErrorRows
+        @Override
+        public boolean keepResult(EnrollmentResultDTO result) {
+            if (!"ERROR".equals(result.getStatus()) || errorRowsKept >= properties.getJobs().getResultErrorRows()) {
+                return false;
+            }
+            errorRowsKept++;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled || leaseLost || cancelledJobs.contains(jobId);
+        }
+
+        boolean isLeaseLost() {
+            return leaseLost;
+        }
+
+        // Only a cancellation that left rows unprocessed makes the job end as cancelled
+        boolean isStoppedEarly() {
+            return stoppedEarly;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.app.service;
+
+import com.app.dto.EnrollmentResultDTO;
+
+import java.util.List;
+
+/**
+ * Callback for observing and stopping a running batch enrollment
+ */
+public interface BatchEnrollmentListener {
+
+    BatchEnrollmentListener NONE = new BatchEnrollmentListener() {};
+
+    /**
+     * Keeps only ERROR rows in the returned result, for a summary plus errors response
+     */
+    BatchEnrollmentListener ERRORS_ONLY = new BatchEnrollmentListener() {
+        @Override
+        public boolean keepResult(EnrollmentResultDTO result) {
+            return "ERROR".equals(result.getStatus());
+        }
+    };
+
+    /**
+     * Called after each chunk is enrolled, with that chunk's row results in CSV order
+     */
+    default void onChunkProcessed(List<EnrollmentResultDTO> results) {
+    }
+
+    /**
+     * Checked after each chunk; returning true stops the import after the rows done so far
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * Called once when a cancellation stopped the import with rows of the input left unprocessed.
+     * Not called when the cancellation came after the last row, the import is then complete.
+     */
+    default void onStoppedEarly() {
+    }
+
+    /**
+     * Whether a row's result is kept in the returned BatchEnrollmentResultDTO.
+     * Counts always include every row; returning false for rows that were already
+     * written out keeps memory flat however large the import is.
+     */
+    default boolean keepResult(EnrollmentResultDTO result) {
+        return true;
+    }
+}
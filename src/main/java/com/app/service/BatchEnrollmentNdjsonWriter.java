@@ -0,0 +1,89 @@
+package com.app.service;
+
+import com.app.dto.BatchEnrollmentResultDTO;
+import com.app.dto.EnrollmentResultDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes batch enrollment results as newline-delimited JSON while the import runs.
+ * One line per row result, flushed after every chunk, then a closing summary line
+ * with the counts. Rows are not kept in memory once written.
+ * A client that disconnects cancels the import after the chunks already started.
+ */
+public class BatchEnrollmentNdjsonWriter implements BatchEnrollmentListener {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchEnrollmentNdjsonWriter.class);
+
+    private final JsonGenerator generator;
+    private final boolean errorsOnly;
+    private boolean disconnected = false;
+
+    public BatchEnrollmentNdjsonWriter(OutputStream output, ObjectMapper objectMapper, boolean errorsOnly) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(output);
+        // The servlet container owns the response stream
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are ended explicitly, no separator between root values
+        this.generator.setRootValueSeparator(null);
+        this.errorsOnly = errorsOnly;
+    }
+
+    @Override
+    public void onChunkProcessed(List<EnrollmentResultDTO> results) {
+        if (disconnected) {
+            return;
+        }
+        try {
+            for (EnrollmentResultDTO result : results) {
+                if (!errorsOnly || "ERROR".equals(result.getStatus())) {
+                    writeLine(result);
+                }
+            }
+            generator.flush();
+        } catch (IOException e) {
+            logger.warn("Client disconnected from streamed batch enrollment, stopping import: {}", e.getMessage());
+            disconnected = true;
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return disconnected;
+    }
+
+    @Override
+    public boolean keepResult(EnrollmentResultDTO result) {
+        return false;
+    }
+
+    /**
+     * Write the messages about the file itself (course not found, unreadable CSV)
+     * followed by the summary line
+     */
+    public void writeSummary(BatchEnrollmentResultDTO result) throws IOException {
+        if (disconnected) {
+            return;
+        }
+        if (result.getResults() != null) {
+            for (EnrollmentResultDTO error : result.getResults()) {
+                writeLine(error);
+            }
+        }
+        result.setResults(null);
+        writeLine(result);
+        generator.flush();
+    }
+
+    private void writeLine(Object value) throws IOException {
+        generator.writeObject(value);
+        generator.writeRaw('\n');
+    }
+}
@@ -1,144 +1,900 @@
 package com.app.service;
 
+import com.app.config.BatchEnrollmentProperties;
 import com.app.dto.BatchEnrollmentResultDTO;
 import com.app.dto.CSVUploadRequest;
 import com.app.dto.CourseEnrollmentDTO;
 import com.app.dto.EnrollmentResultDTO;
 import com.app.dto.UserDTO;
+import com.app.repository.BatchEnrollmentStagingRepository;
+import com.app.repository.BatchEnrollmentStagingRepository.StagedRow;
 import com.app.util.CSVParser;
 import com.app.util.CSVParser.StudentData;
-import lombok.RequiredArgsConstructor;
+import com.app.util.CSVRowReader;
+import com.app.util.RowReader;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
-@RequiredArgsConstructor
 public class BatchEnrollmentService {
 
     private final UserService userService;
     private final CourseEnrollmentService enrollmentService;
     private final CourseService courseService;
+    private final BatchEnrollmentProperties properties;
+    private final BatchEnrollmentTransactions transactions;
+    private final TaskExecutor chunkExecutor;
+    private final BatchEnrollmentStagingRepository stagingRepository;
+
+    public BatchEnrollmentService(UserService userService,
+                                  CourseEnrollmentService enrollmentService,
+                                  CourseService courseService,
+                                  BatchEnrollmentProperties properties,
+                                  BatchEnrollmentTransactions transactions,
+                                  @Qualifier("batchEnrollmentChunkExecutor") TaskExecutor chunkExecutor,
+                                  BatchEnrollmentStagingRepository stagingRepository) {
+        this.userService = userService;
+        this.enrollmentService = enrollmentService;
+        this.courseService = courseService;
+        this.properties = properties;
+        this.transactions = transactions;
+        this.chunkExecutor = chunkExecutor;
+        this.stagingRepository = stagingRepository;
+    }
 
     /**
      * Process CSV and enroll students in a course
      * Returns detailed enrollment results
      */
     public BatchEnrollmentResultDTO processCSVEnrollment(CSVUploadRequest request) {
+        return processCSVEnrollment(request, BatchEnrollmentListener.NONE);
+    }
+
+    /**
+     * Same as above, reporting to the listener as chunks are enrolled
+     */
+    public BatchEnrollmentResultDTO processCSVEnrollment(CSVUploadRequest request, BatchEnrollmentListener listener) {
+        String csvContent = request.getCsvContent() != null ? request.getCsvContent() : "";
+        return processCSVEnrollment(
+                request.getCourseId(),
+                request.getNameColumnIndex(),
+                request.getEmailColumnIndex(),
+                new StringReader(csvContent),
+                listener
+        );
+    }
+
+    /**
+     * Process a CSV stream and enroll students in a course
+     * Rows are parsed incrementally and enrolled in chunks: each chunk costs one
+     * bulk user lookup, one batched user insert, one bulk enrollment lookup and
+     * one batched enrollment insert, instead of several round trips per row.
+     * Chunks run concurrently, each committed in its own transaction, and the
+     * results are reported in CSV order.
+     */
+    public BatchEnrollmentResultDTO processCSVEnrollment(String courseId,
+                                                         int nameColumnIndex,
+                                                         int emailColumnIndex,
+                                                         Reader csvReader) {
+        return processCSVEnrollment(courseId, nameColumnIndex, emailColumnIndex, csvReader, BatchEnrollmentListener.NONE);
+    }
+
+    /**
+     * Same as above, reporting progress to the listener after every chunk
+     * and stopping early once the listener reports cancellation
+     */
+    public BatchEnrollmentResultDTO processCSVEnrollment(String courseId,
+                                                         int nameColumnIndex,
+                                                         int emailColumnIndex,
+                                                         Reader csvReader,
+                                                         BatchEnrollmentListener listener) {
+        return processEnrollment(courseId, nameColumnIndex, emailColumnIndex, new CSVRowReader(csvReader), listener);
+    }
+
+    /**
+     * Same as above for rows from any source, e.g. an Excel sheet
+     */
+    public BatchEnrollmentResultDTO processEnrollment(String courseId,
+                                                      int nameColumnIndex,
+                                                      int emailColumnIndex,
+                                                      RowReader rows,
+                                                      BatchEnrollmentListener listener) {
+        return run(courseId, nameColumnIndex, emailColumnIndex, rows, listener, false);
+    }
+
+    /**
+     * Dry run: parse and validate the CSV and report what processCSVEnrollment would do,
+     * without writing anything. Uses the same bulk lookups per chunk (existing users,
+     * existing enrollments), so the breakdown matches a real import run at the same moment.
+     */
+    public BatchEnrollmentResultDTO previewCSVEnrollment(CSVUploadRequest request, BatchEnrollmentListener listener) {
+        String csvContent = request.getCsvContent() != null ? request.getCsvContent() : "";
+        return previewCSVEnrollment(
+                request.getCourseId(),
+                request.getNameColumnIndex(),
+                request.getEmailColumnIndex(),
+                new StringReader(csvContent),
+                listener
+        );
+    }
+
+    /**
+     * Dry run of a CSV stream, see above
+     */
+    public BatchEnrollmentResultDTO previewCSVEnrollment(String courseId,
+                                                         int nameColumnIndex,
+                                                         int emailColumnIndex,
+                                                         Reader csvReader,
+                                                         BatchEnrollmentListener listener) {
+        return previewEnrollment(courseId, nameColumnIndex, emailColumnIndex, new CSVRowReader(csvReader), listener);
+    }
+
+    /**
+     * Dry run of rows from any source, see above
+     */
+    public BatchEnrollmentResultDTO previewEnrollment(String courseId,
+                                                      int nameColumnIndex,
+                                                      int emailColumnIndex,
+                                                      RowReader rows,
+                                                      BatchEnrollmentListener listener) {
+        return run(courseId, nameColumnIndex, emailColumnIndex, rows, listener, true);
+    }
+
+    /**
+     * Process a CSV where a column holds each row's course code, enrolling students into many courses in one pass
+     */
+    public BatchEnrollmentResultDTO processMultiCourseCSVEnrollment(CSVUploadRequest request, BatchEnrollmentListener listener) {
+        String csvContent = request.getCsvContent() != null ? request.getCsvContent() : "";
+        return processMultiCourseCSVEnrollment(
+                request.getNameColumnIndex(),
+                request.getEmailColumnIndex(),
+                request.getCourseCodeColumnIndex(),
+                new StringReader(csvContent),
+                listener
+        );
+    }
+
+    /**
+     * Multi-course import of a CSV stream
+     * Course codes are resolved in bulk and each email is upserted once, however many courses
+     * it appears in (once per stretch of the file while its id stays in a bounded cache). Enrollments then go through the same parallel
+     * chunk pipeline as a single-course import, with one enrollment lookup per course and
+     * the inserts grouped by course.
+     */
+    public BatchEnrollmentResultDTO processMultiCourseCSVEnrollment(int nameColumnIndex,
+                                                                    int emailColumnIndex,
+                                                                    int courseCodeColumnIndex,
+                                                                    Reader csvReader,
+                                                                    BatchEnrollmentListener listener) {
+        return processMultiCourseEnrollment(nameColumnIndex, emailColumnIndex, courseCodeColumnIndex,
+                new CSVRowReader(csvReader), listener);
+    }
+
+    /**
+     * Multi-course import of rows from any source, e.g. an Excel sheet
+     */
+    public BatchEnrollmentResultDTO processMultiCourseEnrollment(int nameColumnIndex,
+                                                                 int emailColumnIndex,
+                                                                 int courseCodeColumnIndex,
+                                                                 RowReader rowReader,
+                                                                 BatchEnrollmentListener listener) {
         BatchEnrollmentResultDTO result = new BatchEnrollmentResultDTO();
-        result.setCourseId(request.getCourseId());
         result.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
-        
-        // Validate course exists
-        if (courseService.getCourseById(request.getCourseId()).isEmpty()) {
-            result.setTotalRecords(0);
-            result.setSuccessCount(0);
-            result.setSkippedCount(0);
-            result.setErrorCount(1);
-            result.setResults(new ArrayList<>());
-            
-            EnrollmentResultDTO error = new EnrollmentResultDTO();
-            error.setStatus("ERROR");
-            error.setMessage("Course not found: " + request.getCourseId());
-            result.getResults().add(error);
-            
-            return result;
-        }
-
-        // Parse CSV
-        List<String[]> records = CSVParser.parseCSV(request.getCsvContent());
-        
-        // Validate column indices
-        if (records.isEmpty()) {
-            result.setTotalRecords(0);
-            result.setSuccessCount(0);
-            result.setSkippedCount(0);
-            result.setErrorCount(1);
-            result.setResults(new ArrayList<>());
-            
-            EnrollmentResultDTO error = new EnrollmentResultDTO();
-            error.setStatus("ERROR");
-            error.setMessage("CSV is empty");
-            result.getResults().add(error);
-            
-            return result;
-        }
-
-        // Extract student data
-        List<StudentData> students = CSVParser.extractStudentData(
-                records,
+        result.setResults(new ArrayList<>());
+
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        Deque<PendingChunk> inFlight = new ArrayDeque<>();
+        MultiCourseImport courseImport = new MultiCourseImport(chunkSize);
+        List<CourseCsvRow> rows = new ArrayList<>(chunkSize);
+
+        try (RowReader reader = rowReader) {
+            String[] record = reader.readRow();
+            if (record == null) {
+                return failed(result, "CSV is empty");
+            }
+
+            do {
+                StudentData student = CSVParser.extractStudent(record, nameColumnIndex, emailColumnIndex);
+                if (student == null) {
+                    continue;
+                }
+
+                String courseCode = courseCodeColumnIndex < record.length ? record[courseCodeColumnIndex].trim() : "";
+                rows.add(new CourseCsvRow(student, courseCode));
+                if (rows.size() == chunkSize) {
+                    submit(inFlight, courseImport.resolve(rows), false, result, listener);
+                    rows.clear();
+                    if (listener.isCancelled()) {
+                        break;
+                    }
+                }
+            } while ((record = reader.readRow()) != null);
+
+            if (!listener.isCancelled()) {
+                submit(inFlight, courseImport.resolve(rows), false, result, listener);
+            } else if (!rows.isEmpty() || hasMoreRows(reader)) {
+                listener.onStoppedEarly();
+            }
+            drain(inFlight, result, listener);
+        } catch (IOException e) {
+            // Rows read before the malformed one are still enrolled and reported
+            submit(inFlight, courseImport.resolve(rows), false, result, listener);
+            drain(inFlight, result, listener);
+            readError(result, e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Bulk load: enroll a very large CSV with set-based statements instead of per-chunk batches
+     */
+    public BatchEnrollmentResultDTO bulkLoadCSVEnrollment(CSVUploadRequest request) {
+        String csvContent = request.getCsvContent() != null ? request.getCsvContent() : "";
+        return bulkLoadCSVEnrollment(
+                request.getCourseId(),
                 request.getNameColumnIndex(),
-                request.getEmailColumnIndex()
+                request.getEmailColumnIndex(),
+                new StringReader(csvContent)
         );
+    }
+
+    /**
+     * Bulk load of a CSV stream
+     * Rows are staged with multi-row INSERTs as they are read, then merged into users and
+     * course_enrollments by a fixed number of INSERT ... SELECT / UPDATE statements in one
+     * transaction, so the cost no longer grows with round trips per chunk. The load is all
+     * or nothing and only counts are reported, results hold file-level errors only.
+     */
+    public BatchEnrollmentResultDTO bulkLoadCSVEnrollment(String courseId,
+                                                          int nameColumnIndex,
+                                                          int emailColumnIndex,
+                                                          Reader csvReader) {
+        return bulkLoadEnrollment(courseId, nameColumnIndex, emailColumnIndex, new CSVRowReader(csvReader));
+    }
+
+    /**
+     * Bulk load of rows from any source, e.g. an Excel sheet
+     */
+    public BatchEnrollmentResultDTO bulkLoadEnrollment(String courseId,
+                                                       int nameColumnIndex,
+                                                       int emailColumnIndex,
+                                                       RowReader rowReader) {
+        BatchEnrollmentResultDTO result = new BatchEnrollmentResultDTO();
+        result.setCourseId(courseId);
+        result.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+        result.setResults(new ArrayList<>());
+
+        // Validate course exists
+        if (courseService.getCourseById(courseId).isEmpty()) {
+            return failed(result, "Course not found: " + courseId);
+        }
+
+        stagingRepository.createTableIfMissing();
+        String importId = UUID.randomUUID().toString();
+        int batchSize = Math.min(Math.max(1, properties.getChunkSize()), BatchEnrollmentStagingRepository.MAX_ROWS_PER_INSERT);
+        Set<String> seenEmails = new HashSet<>();
+        List<StagedRow> rows = new ArrayList<>(batchSize);
+        int staged = 0;
+
+        try {
+            try (RowReader reader = rowReader) {
+                String[] record = reader.readRow();
+                if (record == null) {
+                    return failed(result, "CSV is empty");
+                }
 
-        result.setTotalRecords(students.size());
-        List<EnrollmentResultDTO> enrollmentResults = new ArrayList<>();
-        int successCount = 0;
-        int skippedCount = 0;
-        int errorCount = 0;
+                do {
+                    StudentData student = CSVParser.extractStudent(record, nameColumnIndex, emailColumnIndex);
+                    if (student == null) {
+                        continue;
+                    }
 
-        // Process each student
-        for (StudentData student : students) {
+                    result.setTotalRecords(result.getTotalRecords() + 1);
+                    if (!seenEmails.add(UserService.emailKey(student.email))) {
+                        // Listed more than once in the CSV
+                        result.setSkippedCount(result.getSkippedCount() + 1);
+                        continue;
+                    }
+                    rows.add(new StagedRow(staged++, student.name, student.email));
+                    if (rows.size() == batchSize) {
+                        stagingRepository.stage(importId, rows);
+                        rows.clear();
+                    }
+                } while ((record = reader.readRow()) != null);
+            } catch (IOException e) {
+                // Rows read before the malformed one are still enrolled
+                readError(result, e);
+            }
+            stagingRepository.stage(importId, rows);
+
+            int stagedRows = staged;
             try {
-                // Upsert user (create if not exists, or get existing)
-                UserDTO userDTO = userService.upsertUser(student.name, student.email);
-
-                // Check if already enrolled
-                if (enrollmentService.isStudentEnrolled(request.getCourseId(), userDTO.getId())) {
-                    skippedCount++;
-                    
-                    EnrollmentResultDTO skipResult = new EnrollmentResultDTO();
-                    skipResult.setStudentId(userDTO.getId());
-                    skipResult.setName(student.name);
-                    skipResult.setEmail(student.email);
-                    skipResult.setStatus("SKIPPED");
-                    skipResult.setMessage("Student already enrolled in this course");
-                    enrollmentResults.add(skipResult);
-                    
+                Map<String, Integer> counts = transactions.inTransaction(() -> {
+                    Map<String, Integer> merged = stagingRepository.merge(importId, courseId);
+                    userService.usersCreated(stagingRepository.findCreatedUsers(importId));
+                    return merged;
+                });
+                enrollmentService.courseEnrollmentsChanged(courseId);
+                result.setSuccessCount(result.getSuccessCount() + counts.getOrDefault("SUCCESS", 0));
+                result.setSkippedCount(result.getSkippedCount() + counts.getOrDefault("SKIPPED", 0));
+            } catch (RuntimeException e) {
+                EnrollmentResultDTO error = new EnrollmentResultDTO();
+                error.setStatus("ERROR");
+                error.setMessage("Bulk load failed, no student was enrolled: " + e.getMessage());
+                result.setErrorCount(result.getErrorCount() + stagedRows);
+                result.getResults().add(error);
+            }
+        } finally {
+            stagingRepository.delete(importId);
+        }
+
+        return result;
+    }
+
+    private BatchEnrollmentResultDTO run(String courseId,
+                                         int nameColumnIndex,
+                                         int emailColumnIndex,
+                                         RowReader rowReader,
+                                         BatchEnrollmentListener listener,
+                                         boolean dryRun) {
+        BatchEnrollmentResultDTO result = new BatchEnrollmentResultDTO();
+        result.setCourseId(courseId);
+        result.setDryRun(dryRun);
+        result.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+        result.setResults(new ArrayList<>());
+
+        // Validate course exists
+        if (courseService.getCourseById(courseId).isEmpty()) {
+            return failed(result, "Course not found: " + courseId);
+        }
+
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        Deque<PendingChunk> inFlight = new ArrayDeque<>();
+        // Each email is enrolled by exactly one chunk, so concurrent chunks never insert the same user
+        Set<String> seenEmails = new HashSet<>();
+        Chunk chunk = new Chunk(chunkSize);
+
+        try (RowReader reader = rowReader) {
+            String[] record = reader.readRow();
+            if (record == null) {
+                return failed(result, "CSV is empty");
+            }
+
+            do {
+                StudentData student = CSVParser.extractStudent(record, nameColumnIndex, emailColumnIndex);
+                if (student == null) {
                     continue;
                 }
 
-                // Create enrollment
+                if (seenEmails.add(UserService.emailKey(student.email))) {
+                    chunk.add(new EnrollmentRow(student, courseId, null, null));
+                } else {
+                    chunk.add(duplicate(student));
+                }
+
+                if (chunk.size() == chunkSize) {
+                    submit(inFlight, chunk, dryRun, result, listener);
+                    chunk = new Chunk(chunkSize);
+                    if (listener.isCancelled()) {
+                        break;
+                    }
+                }
+            } while ((record = reader.readRow()) != null);
+
+            if (!listener.isCancelled()) {
+                submit(inFlight, chunk, dryRun, result, listener);
+            } else if (chunk.size() > 0 || hasMoreRows(reader)) {
+                listener.onStoppedEarly();
+            }
+            drain(inFlight, result, listener);
+        } catch (IOException e) {
+            // Rows read before the malformed one are still enrolled and reported
+            submit(inFlight, chunk, dryRun, result, listener);
+            drain(inFlight, result, listener);
+            readError(result, e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Hand a chunk to the workers, then wait for the oldest chunks while too many are in flight
+     * This bounds memory and database connections whatever the size of the file
+     */
+    private void submit(Deque<PendingChunk> inFlight,
+                        Chunk chunk,
+                        boolean dryRun,
+                        BatchEnrollmentResultDTO result,
+                        BatchEnrollmentListener listener) {
+        if (chunk.size() == 0) {
+            return;
+        }
+        inFlight.add(startChunk(chunk, dryRun));
+        int maxChunksInFlight = Math.max(1, properties.getParallelism());
+        while (inFlight.size() >= maxChunksInFlight && !listener.isCancelled()) {
+            mergeChunk(inFlight.poll(), result, listener);
+        }
+    }
+
+    private PendingChunk startChunk(Chunk chunk, boolean dryRun) {
+        List<EnrollmentRow> rows = chunk.rows();
+        if (rows.isEmpty()) {
+            return new PendingChunk(chunk, CompletableFuture.completedFuture(List.of()));
+        }
+        CompletableFuture<List<EnrollmentResultDTO>> future = dryRun
+                ? CompletableFuture.supplyAsync(() -> previewChunk(rows), chunkExecutor)
+                : CompletableFuture.supplyAsync(() -> transactions.inTransaction(() -> processChunk(rows)), chunkExecutor);
+        return new PendingChunk(chunk, future);
+    }
+
+    private void drain(Deque<PendingChunk> inFlight, BatchEnrollmentResultDTO result, BatchEnrollmentListener listener) {
+        // Chunks already submitted are committed even after a cancellation, so they are always reported
+        while (!inFlight.isEmpty()) {
+            mergeChunk(inFlight.poll(), result, listener);
+        }
+    }
+
+    /**
+     * Wait for a chunk and append its results; called in submission order so results follow the CSV
+     */
+    private void mergeChunk(PendingChunk pending, BatchEnrollmentResultDTO result, BatchEnrollmentListener listener) {
+        List<EnrollmentResultDTO> processed;
+        try {
+            processed = pending.future().join();
+        } catch (CompletionException e) {
+            // The chunk transaction failed to commit, none of its rows were enrolled
+            Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            processed = new ArrayList<>();
+            for (EnrollmentRow row : pending.chunk().rows()) {
+                processed.add(forCourse(error(row.student(), cause), row.courseCode()));
+            }
+        }
+
+        List<EnrollmentResultDTO> chunkResults = pending.chunk().complete(processed);
+        result.setTotalRecords(result.getTotalRecords() + chunkResults.size());
+        for (EnrollmentResultDTO rowResult : chunkResults) {
+            count(result, rowResult);
+            if (listener.keepResult(rowResult)) {
+                result.getResults().add(rowResult);
+            }
+        }
+        listener.onChunkProcessed(chunkResults);
+    }
+
+    private void count(BatchEnrollmentResultDTO result, EnrollmentResultDTO rowResult) {
+        switch (rowResult.getStatus()) {
+            case "SUCCESS" -> result.setSuccessCount(result.getSuccessCount() + 1);
+            case "SKIPPED" -> result.setSkippedCount(result.getSkippedCount() + 1);
+            default -> result.setErrorCount(result.getErrorCount() + 1);
+        }
+    }
+
+    /**
+     * Whether a cancelled import left records of the input unread.
+     * A record that cannot be read still counts as one, it was not processed either.
+     */
+    private static boolean hasMoreRows(RowReader reader) {
+        try {
+            return reader.readRow() != null;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private void readError(BatchEnrollmentResultDTO result, IOException e) {
+        EnrollmentResultDTO error = new EnrollmentResultDTO();
+        error.setStatus("ERROR");
+        error.setMessage("Error reading CSV: " + e.getMessage());
+        result.setErrorCount(result.getErrorCount() + 1);
+        result.getResults().add(error);
+    }
+
+    /**
+     * Enroll one chunk inside its transaction
+     * The whole chunk is first tried in bulk behind a savepoint; if that is rejected
+     * (e.g. a unique constraint violation) it is rolled back and the rows are retried
+     * one by one, each behind its own savepoint, so a bad row only fails itself.
+     * The membership index and caches only hear of enrollments whose savepoint was released.
+     */
+    private List<EnrollmentResultDTO> processChunk(List<EnrollmentRow> rows) {
+        EnrolledChunk enrolled;
+        try {
+            enrolled = transactions.withSavepoint(() -> enrollChunk(rows));
+        } catch (RuntimeException e) {
+            return processRowByRow(rows);
+        }
+        enrollmentService.enrolledInBulk(enrolled.enrollments());
+        return enrolled.results();
+    }
+
+    private List<EnrollmentResultDTO> processRowByRow(List<EnrollmentRow> rows) {
+        List<EnrollmentResultDTO> results = new ArrayList<>(rows.size());
+        List<CourseEnrollmentDTO> enrollments = new ArrayList<>();
+        for (EnrollmentRow row : rows) {
+            EnrolledChunk enrolled;
+            try {
+                enrolled = transactions.withSavepoint(() -> enrollChunk(List.of(row)));
+            } catch (RuntimeException rowFailure) {
+                results.add(forCourse(error(row.student(), rowFailure), row.courseCode()));
+                continue;
+            }
+            results.add(enrolled.results().get(0));
+            enrollments.addAll(enrolled.enrollments());
+        }
+        enrollmentService.enrolledInBulk(enrollments);
+        return results;
+    }
+
+    /**
+     * Enroll rows using set-based lookups and batched inserts
+     * Results are returned in the same order as the rows, with the enrollments inserted
+     */
+    private EnrolledChunk enrollChunk(List<EnrollmentRow> rows) {
+        EnrollmentResultDTO[] results = new EnrollmentResultDTO[rows.size()];
+
+        // One lookup (plus one batched insert) for every user not resolved yet
+        Map<String, String> namesByEmail = new LinkedHashMap<>();
+        for (EnrollmentRow row : rows) {
+            if (row.user() == null) {
+                namesByEmail.putIfAbsent(row.student().email, row.student().name);
+            }
+        }
+        Map<String, UserDTO> usersByEmail = namesByEmail.isEmpty() ? Map.of() : userService.upsertUsers(namesByEmail);
+        List<UserDTO> users = new ArrayList<>(rows.size());
+        for (EnrollmentRow row : rows) {
+            users.add(row.user() != null ? row.user() : usersByEmail.get(UserService.emailKey(row.student().email)));
+        }
+
+        // One lookup per course for the existing enrollments
+        Map<String, Set<String>> enrolledByCourse = findEnrolledStudentIds(rows, users);
+
+        // New enrollments grouped by course, so each course's rows are inserted together
+        Map<String, List<Integer>> newRowsByCourse = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            EnrollmentRow row = rows.get(i);
+            UserDTO userDTO = users.get(i);
+
+            // add() is false for students already enrolled
+            if (!enrolledByCourse.get(row.courseId()).add(userDTO.getId())) {
+                results[i] = forCourse(skipped(row.student(), userDTO), row.courseCode());
+                continue;
+            }
+            newRowsByCourse.computeIfAbsent(row.courseId(), courseId -> new ArrayList<>()).add(i);
+        }
+
+        List<CourseEnrollmentDTO> newEnrollments = new ArrayList<>();
+        List<Integer> newEnrollmentRows = new ArrayList<>();
+        newRowsByCourse.forEach((courseId, rowIndexes) -> {
+            for (int i : rowIndexes) {
                 CourseEnrollmentDTO enrollment = new CourseEnrollmentDTO();
                 enrollment.setId(UUID.randomUUID().toString());
-                enrollment.setCourseId(request.getCourseId());
-                enrollment.setStudentId(userDTO.getId());
+                enrollment.setCourseId(courseId);
+                enrollment.setStudentId(users.get(i).getId());
                 enrollment.setStatus("enrolled");
-                
-                CourseEnrollmentDTO savedEnrollment = enrollmentService.enrollStudent(enrollment);
-                
-                successCount++;
-                
-                EnrollmentResultDTO successResult = new EnrollmentResultDTO();
-                successResult.setStudentId(userDTO.getId());
-                successResult.setName(student.name);
-                successResult.setEmail(student.email);
-                successResult.setEnrollmentId(savedEnrollment.getId());
-                successResult.setStatus("SUCCESS");
-                successResult.setMessage("Successfully enrolled");
-                enrollmentResults.add(successResult);
-                
-            } catch (Exception e) {
-                errorCount++;
-                
-                EnrollmentResultDTO errorResult = new EnrollmentResultDTO();
-                errorResult.setName(student.name);
-                errorResult.setEmail(student.email);
-                errorResult.setStatus("ERROR");
-                errorResult.setMessage("Error: " + e.getMessage());
-                enrollmentResults.add(errorResult);
-            }
-        }
-
-        result.setSuccessCount(successCount);
-        result.setSkippedCount(skippedCount);
-        result.setErrorCount(errorCount);
-        result.setResults(enrollmentResults);
+                newEnrollments.add(enrollment);
+                newEnrollmentRows.add(i);
+            }
+        });
+
+        // One JDBC batch for every new enrollment in the chunk
+        List<CourseEnrollmentDTO> saved = List.of();
+        if (!newEnrollments.isEmpty()) {
+            saved = enrollmentService.enrollStudents(newEnrollments);
+            for (int j = 0; j < saved.size(); j++) {
+                int i = newEnrollmentRows.get(j);
+                results[i] = forCourse(success(rows.get(i).student(), saved.get(j).getStudentId(), saved.get(j).getId()),
+                        rows.get(i).courseCode());
+            }
+        }
+
+        return new EnrolledChunk(Arrays.asList(results), saved);
+    }
+
+    /**
+     * Work out what enrollChunk would do for the rows, with the same bulk lookups and no writes
+     */
+    private List<EnrollmentResultDTO> previewChunk(List<EnrollmentRow> rows) {
+        Set<String> emails = new HashSet<>();
+        for (EnrollmentRow row : rows) {
+            emails.add(row.student().email);
+        }
+        Map<String, UserDTO> existingUsers = userService.findUsersByEmails(emails);
+        List<UserDTO> users = new ArrayList<>(rows.size());
+        for (EnrollmentRow row : rows) {
+            users.add(existingUsers.get(UserService.emailKey(row.student().email)));
+        }
+
+        Map<String, Set<String>> enrolledByCourse = findEnrolledStudentIds(rows, users);
+
+        List<EnrollmentResultDTO> results = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            EnrollmentRow row = rows.get(i);
+            UserDTO userDTO = users.get(i);
+            if (userDTO == null) {
+                results.add(wouldEnroll(row.student(), null, "Would create student account and enroll"));
+            } else if (!enrolledByCourse.get(row.courseId()).add(userDTO.getId())) {
+                results.add(skipped(row.student(), userDTO));
+            } else {
+                results.add(wouldEnroll(row.student(), userDTO.getId(), "Would enroll"));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Student ids already enrolled, per course of the rows, with one lookup per course
+     * Rows without a user (not created yet) are left out of the lookup
+     */
+    private Map<String, Set<String>> findEnrolledStudentIds(List<EnrollmentRow> rows, List<UserDTO> users) {
+        Map<String, Set<String>> studentIdsByCourse = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Set<String> studentIds = studentIdsByCourse.computeIfAbsent(rows.get(i).courseId(), courseId -> new HashSet<>());
+            if (users.get(i) != null) {
+                studentIds.add(users.get(i).getId());
+            }
+        }
+
+        Map<String, Set<String>> enrolledByCourse = new HashMap<>();
+        studentIdsByCourse.forEach((courseId, studentIds) -> enrolledByCourse.put(courseId, studentIds.isEmpty()
+                ? new HashSet<>()
+                : enrollmentService.findEnrolledStudentIds(courseId, studentIds)));
+        return enrolledByCourse;
+    }
+
+    private EnrollmentResultDTO success(StudentData student, String studentId, String enrollmentId) {
+        EnrollmentResultDTO successResult = new EnrollmentResultDTO();
+        successResult.setStudentId(studentId);
+        successResult.setName(student.name);
+        successResult.setEmail(student.email);
+        successResult.setEnrollmentId(enrollmentId);
+        successResult.setStatus("SUCCESS");
+        successResult.setMessage("Successfully enrolled");
+        return successResult;
+    }
+
+    private EnrollmentResultDTO wouldEnroll(StudentData student, String studentId, String message) {
+        EnrollmentResultDTO previewResult = new EnrollmentResultDTO();
+        previewResult.setStudentId(studentId);
+        previewResult.setName(student.name);
+        previewResult.setEmail(student.email);
+        previewResult.setStatus("SUCCESS");
+        previewResult.setMessage(message);
+        return previewResult;
+    }
+
+    private EnrollmentResultDTO skipped(StudentData student, UserDTO userDTO) {
+        EnrollmentResultDTO skipResult = new EnrollmentResultDTO();
+        skipResult.setStudentId(userDTO.getId());
+        skipResult.setName(student.name);
+        skipResult.setEmail(student.email);
+        skipResult.setStatus("SKIPPED");
+        skipResult.setMessage("Student already enrolled in this course");
+        return skipResult;
+    }
+
+    private EnrollmentResultDTO duplicate(StudentData student) {
+        EnrollmentResultDTO skipResult = new EnrollmentResultDTO();
+        skipResult.setName(student.name);
+        skipResult.setEmail(student.email);
+        skipResult.setStatus("SKIPPED");
+        skipResult.setMessage("Student listed more than once in the CSV");
+        return skipResult;
+    }
+
+    private EnrollmentResultDTO error(StudentData student, Exception e) {
+        EnrollmentResultDTO errorResult = new EnrollmentResultDTO();
+        errorResult.setName(student.name);
+        errorResult.setEmail(student.email);
+        errorResult.setStatus("ERROR");
+        errorResult.setMessage("Error: " + e.getMessage());
+        return errorResult;
+    }
+
+    private EnrollmentResultDTO failedRow(StudentData student, String message) {
+        EnrollmentResultDTO errorResult = new EnrollmentResultDTO();
+        errorResult.setName(student.name);
+        errorResult.setEmail(student.email);
+        errorResult.setStatus("ERROR");
+        errorResult.setMessage(message);
+        return errorResult;
+    }
+
+    private EnrollmentResultDTO forCourse(EnrollmentResultDTO result, String courseCode) {
+        result.setCourseCode(courseCode);
+        return result;
+    }
+
+    private BatchEnrollmentResultDTO failed(BatchEnrollmentResultDTO result, String message) {
+        result.setTotalRecords(0);
+        result.setSuccessCount(0);
+        result.setSkippedCount(0);
+        result.setErrorCount(1);
+
+        EnrollmentResultDTO error = new EnrollmentResultDTO();
+        error.setStatus("ERROR");
+        error.setMessage(message);
+        result.getResults().add(error);
 
         return result;
     }
+
+    /**
+     * A run of consecutive CSV rows
+     * Rows that cannot be enrolled (repeated, unknown course) are answered when read;
+     * the others are left empty until the chunk has been enrolled
+     */
+    private static final class Chunk {
+        private final List<EnrollmentRow> rows;
+        private final List<EnrollmentResultDTO> results;
+
+        Chunk(int capacity) {
+            this.rows = new ArrayList<>(capacity);
+            this.results = new ArrayList<>(capacity);
+        }
+
+        void add(EnrollmentRow row) {
+            rows.add(row);
+            results.add(null);
+        }
+
+        void add(EnrollmentResultDTO answered) {
+            results.add(answered);
+        }
+
+        int size() {
+            return results.size();
+        }
+
+        List<EnrollmentRow> rows() {
+            return rows;
+        }
+
+        /**
+         * Fill the empty rows with the enrollment results, in order
+         */
+        List<EnrollmentResultDTO> complete(List<EnrollmentResultDTO> processed) {
+            Iterator<EnrollmentResultDTO> next = processed.iterator();
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) == null) {
+                    results.set(i, next.next());
+                }
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Reading-thread state of a multi-course import
+     * Course codes and users are looked up before a chunk reaches the workers, so every row
+     * has its course and user resolved and concurrent chunks only insert enrollments.
+     * Memory stays bounded whatever the file size: one id per course code, a bounded cache of
+     * student ids, and duplicates caught within a chunk here and across chunks by the database:
+     * the later row is found enrolled and SKIPPED, or when both chunks insert at once the unique
+     * (course_id, student_id) index fails that row alone.
+     */
+    private class MultiCourseImport {
+        // Upserting an email again after its id was evicted finds the user already there
+        private static final int CACHED_STUDENT_IDS = 10_000;
+
+        // Keyed by CourseService.codeKey, null for codes with no course
+        private final Map<String, String> courseIdsByCode = new HashMap<>();
+        // Keyed by UserService.emailKey, least recently used evicted first; holds a whole chunk at least
+        private final Map<String, String> studentIdsByEmail;
+
+        MultiCourseImport(int chunkSize) {
+            int capacity = Math.max(CACHED_STUDENT_IDS, chunkSize);
+            this.studentIdsByEmail = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        Chunk resolve(List<CourseCsvRow> csvRows) {
+            Chunk chunk = new Chunk(csvRows.size());
+            try {
+                resolveCourses(csvRows);
+                resolveUsers(csvRows);
+            } catch (RuntimeException e) {
+                for (CourseCsvRow csvRow : csvRows) {
+                    chunk.add(forCourse(error(csvRow.student(), e), csvRow.courseCode()));
+                }
+                return chunk;
+            }
+
+            Set<String> seenEnrollments = new HashSet<>();
+            for (CourseCsvRow csvRow : csvRows) {
+                StudentData student = csvRow.student();
+                String courseCode = csvRow.courseCode();
+                String courseId = courseIdsByCode.get(CourseService.codeKey(courseCode));
+                if (courseCode.isEmpty()) {
+                    chunk.add(forCourse(failedRow(student, "Missing course code"), courseCode));
+                } else if (courseId == null) {
+                    chunk.add(forCourse(failedRow(student, "Course not found: " + courseCode), courseCode));
+                } else {
+                    UserDTO user = new UserDTO();
+                    user.setId(studentIdsByEmail.get(UserService.emailKey(student.email)));
+                    if (seenEnrollments.add(user.getId() + "/" + courseId)) {
+                        chunk.add(new EnrollmentRow(student, courseId, courseCode, user));
+                    } else {
+                        chunk.add(forCourse(duplicate(student), courseCode));
+                    }
+                }
+            }
+            return chunk;
+        }
+
+        // One bulk lookup for the codes not seen in earlier chunks
+        private void resolveCourses(List<CourseCsvRow> csvRows) {
+            Set<String> newCodes = new HashSet<>();
+            for (CourseCsvRow csvRow : csvRows) {
+                if (!csvRow.courseCode().isEmpty() && !courseIdsByCode.containsKey(CourseService.codeKey(csvRow.courseCode()))) {
+                    newCodes.add(csvRow.courseCode());
+                }
+            }
+            if (newCodes.isEmpty()) {
+                return;
+            }
+            Map<String, String> found = courseService.getCourseIdsByCodes(newCodes);
+            for (String code : newCodes) {
+                courseIdsByCode.put(CourseService.codeKey(code), found.get(CourseService.codeKey(code)));
+            }
+        }
+
+        // One bulk upsert for the emails not in the cache, for rows with a known course
+        private void resolveUsers(List<CourseCsvRow> csvRows) {
+            Map<String, String> namesByEmail = new LinkedHashMap<>();
+            for (CourseCsvRow csvRow : csvRows) {
+                StudentData student = csvRow.student();
+                if (courseIdsByCode.get(CourseService.codeKey(csvRow.courseCode())) != null
+                        && studentIdsByEmail.get(UserService.emailKey(student.email)) == null) {
+                    namesByEmail.putIfAbsent(student.email, student.name);
+                }
+            }
+            if (!namesByEmail.isEmpty()) {
+                userService.upsertUsers(namesByEmail).forEach((email, user) -> studentIdsByEmail.put(email, user.getId()));
+            }
+        }
+    }
+
+    /**
+     * A CSV row ready to enroll: its course and, once resolved, the student's user
+     */
+    private record EnrollmentRow(StudentData student, String courseId, String courseCode, UserDTO user) {
+    }
+
+    private record CourseCsvRow(StudentData student, String courseCode) {
+    }
+
+    /**
+     * Results of enrolling some rows in CSV order, and the enrollments inserted for them
+     */
+    private record EnrolledChunk(List<EnrollmentResultDTO> results, List<CourseEnrollmentDTO> enrollments) {
+    }
+
+    private record PendingChunk(Chunk chunk, CompletableFuture<List<EnrollmentResultDTO>> future) {
+    }
 }
@@ -0,0 +1,93 @@
+package com.app.service;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.function.Supplier;
+
+/**
+ * Transaction boundaries for batch enrollment chunks.
+ * The JPA transaction manager does not support nested transactions, so savepoints are
+ * taken directly on the JDBC connection bound to the chunk's transaction. Work run under
+ * a savepoint must only use JDBC batches and queries, and must not pass through a
+ * @Transactional service method: a failed repository save() or a transactional method
+ * throwing would mark the whole chunk transaction rollback-only.
+ */
+@Component
+public class BatchEnrollmentTransactions {
+
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+
+    public BatchEnrollmentTransactions(PlatformTransactionManager transactionManager, DataSource dataSource) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Run the work in a new transaction, committed when it returns
+     */
+    public <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    /**
+     * Run the work behind a savepoint of the current transaction.
+     * If it throws, its changes are rolled back and the exception is rethrown,
+     * leaving the rest of the transaction intact.
+     */
+    public <T> T withSavepoint(Supplier<T> work) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            Savepoint savepoint = createSavepoint(connection);
+            T result;
+            try {
+                result = work.get();
+            } catch (RuntimeException e) {
+                rollbackToSavepoint(connection, savepoint);
+                throw e;
+            }
+            releaseSavepoint(connection, savepoint);
+            return result;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private Savepoint createSavepoint(Connection connection) {
+        try {
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new CannotCreateTransactionException("Could not create JDBC savepoint", e);
+        }
+    }
+
+    private void rollbackToSavepoint(Connection connection, Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new TransactionSystemException("Could not roll back to JDBC savepoint", e);
+        }
+    }
+
+    private void releaseSavepoint(Connection connection, Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw new TransactionSystemException("Could not release JDBC savepoint", e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.app.service;
+
+import com.app.config.CatalogCacheProperties;
+import com.app.dto.CourseDTO;
+import com.app.dto.ExamDTO;
+import com.app.dto.KeysetPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process caches in front of course lookups (by id and by code), exam lookups
+ * (by id and pages by course) and each student's course list, evicting least recently used
+ * entries and entries older than catalog.cache.ttl. A student's course list pages (one per
+ * filter and cursor) sit together under the student id, so a change evicts them in one call.
+ * Lookups that find nothing are not cached, nor are whole lists read with KeysetPage.UNPAGED:
+ * the caches are bounded in entries, not rows, so one such entry could hold any number of rows. The services evict what they change right after
+ * the write, and again when the surrounding transaction commits, so a lookup racing the write
+ * cannot keep the old value. Hits, misses and evictions are published as cache.gets and
+ * cache.evictions, tagged with the cache name.
+ */
+@Component
+public class CatalogCache {
+
+    // Course list pages kept per student; a student paging past this starts the map over
+    private static final int MAX_PAGES_PER_STUDENT = 32;
+
+    private final CatalogCacheProperties properties;
+    private final Cache<String, CourseDTO> courses;
+    private final Cache<String, CourseDTO> coursesByCode;
+    private final Cache<String, ExamDTO> exams;
+    private final Cache<ExamPageKey, KeysetPage<ExamDTO>> examPages;
+    private final Cache<String, Map<StudentCoursesKey, KeysetPage<CourseDTO>>> studentCourses;
+
+    public CatalogCache(CatalogCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.courses = build(meterRegistry, "courses");
+        this.coursesByCode = build(meterRegistry, "coursesByCode");
+        this.exams = build(meterRegistry, "exams");
+        this.examPages = build(meterRegistry, "examPagesByCourse");
+        this.studentCourses = build(meterRegistry, "coursesByStudent");
+    }
+
+    public Optional<CourseDTO> getCourse(String id, Supplier<Optional<CourseDTO>> loader) {
+        return get(courses, id, loader);
+    }
+
+    /**
+     * Course by code, matched case-insensitively as courses.code is
+     */
+    public Optional<CourseDTO> getCourseByCode(String code, Supplier<Optional<CourseDTO>> loader) {
+        return get(coursesByCode, CourseService.codeKey(code), loader);
+    }
+
+    public Optional<ExamDTO> getExam(String id, Supplier<Optional<ExamDTO>> loader) {
+        return get(exams, id, loader);
+    }
+
+    public KeysetPage<ExamDTO> getExamPage(String courseId, String afterId, int limit, Supplier<KeysetPage<ExamDTO>> loader) {
+        if (!properties.isEnabled() || limit == KeysetPage.UNPAGED) {
+            return loader.get();
+        }
+        return examPages.get(new ExamPageKey(courseId, afterId, limit), key -> loader.get());
+    }
+
+    public KeysetPage<CourseDTO> getStudentCourses(String studentId, String enrollmentStatus, String courseStatus,
+                                                   String semester, String afterId, int limit,
+                                                   Supplier<KeysetPage<CourseDTO>> loader) {
+        if (!properties.isEnabled() || limit == KeysetPage.UNPAGED) {
+            return loader.get();
+        }
+        Map<StudentCoursesKey, KeysetPage<CourseDTO>> pages =
+                studentCourses.get(studentId, id -> new ConcurrentHashMap<>());
+        StudentCoursesKey key = new StudentCoursesKey(enrollmentStatus, courseStatus, semester, afterId, limit);
+        KeysetPage<CourseDTO> page = pages.get(key);
+        if (page == null) {
+            if (pages.size() >= MAX_PAGES_PER_STUDENT) {
+                pages.clear();
+            }
+            page = pages.computeIfAbsent(key, k -> loader.get());
+        }
+        return page;
+    }
+
+    /**
+     * Evict every cached course list of the given students, after their enrollments changed
+     */
+    public void studentsChanged(Collection<String> studentIds) {
+        List<String> changed = List.copyOf(studentIds);
+        evict(() -> studentCourses.invalidateAll(changed));
+    }
+
+    /**
+     * Evict every cached student course list, after a change touching many students at once
+     * (a whole course or semester) or a course they list
+     */
+    public void allStudentCoursesChanged() {
+        evict(studentCourses::invalidateAll);
+    }
+
+    /**
+     * Evict a course, looked up by id or by any of the given codes (its old and new code)
+     */
+    public void courseChanged(String id, String... codes) {
+        evict(() -> {
+            courses.invalidate(id);
+            for (String code : codes) {
+                if (code != null) {
+                    coursesByCode.invalidate(CourseService.codeKey(code));
+                }
+            }
+        });
+    }
+
+    /**
+     * Evict an exam and every cached exam page of the given courses (its old and new course)
+     */
+    public void examChanged(String id, String... courseIds) {
+        evict(() -> {
+            exams.invalidate(id);
+            for (String courseId : courseIds) {
+                if (courseId != null) {
+                    examPages.asMap().keySet().removeIf(key -> key.courseId().equals(courseId));
+                }
+            }
+        });
+    }
+
+    private <K, V> Optional<V> get(Cache<K, V> cache, K key, Supplier<Optional<V>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        // A loader returning null leaves nothing cached
+        return Optional.ofNullable(cache.get(key, k -> loader.get().orElse(null)));
+    }
+
+    private static void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private <K, V> Cache<K, V> build(MeterRegistry meterRegistry, String name) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    private record ExamPageKey(String courseId, String afterId, int limit) {
+    }
+
+    private record StudentCoursesKey(String enrollmentStatus, String courseStatus, String semester,
+                                     String afterId, int limit) {
+    }
+}
@@ -1,14 +1,26 @@
 package com.app.service;
 
 import com.app.dto.CourseEnrollmentDTO;
+import com.app.dto.EnrollmentChangeDTO;
+import com.app.dto.KeysetPage;
+import com.app.dto.RosterEntryDTO;
 import com.app.entity.CourseEnrollment;
+import com.app.repository.CourseEnrollmentCountRepository;
 import com.app.repository.CourseEnrollmentRepository;
+import com.app.repository.EnrollmentChangeRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -20,9 +32,14 @@ import org.slf4j.LoggerFactory;
 public class CourseEnrollmentService {
     
     private final CourseEnrollmentRepository enrollmentRepository;
+    private final EnrollmentMembershipIndex membershipIndex;
+    private final CourseEnrollmentCountRepository countRepository;
+    private final EnrollmentChangeRepository changeRepository;
+    private final CatalogCache catalogCache;
     private static final Logger logger = LoggerFactory.getLogger(CourseEnrollmentService.class);
 
     // CREATE
+    @Transactional
     public CourseEnrollmentDTO enrollStudent(CourseEnrollmentDTO enrollmentDTO) {
         logger.info("Enrolling student: {}", enrollmentDTO);
         if (enrollmentDTO.getId() == null || enrollmentDTO.getId().isEmpty()) {
@@ -30,82 +47,245 @@ public class CourseEnrollmentService {
         }
         CourseEnrollment enrollment = convertToEntity(enrollmentDTO);
         CourseEnrollment savedEnrollment = enrollmentRepository.save(enrollment);
+        membershipIndex.added(savedEnrollment.getCourseId(), savedEnrollment.getStudentId());
+        count(savedEnrollment.getCourseId(), savedEnrollment.getStatus(), 1);
+        changeRepository.append(EnrollmentChangeRepository.CREATED, savedEnrollment);
+        catalogCache.studentsChanged(List.of(savedEnrollment.getStudentId()));
         // logger.info("Student enrolled successfully: {}", savedEnrollment);
         return convertToDTO(savedEnrollment);
     }
 
+    // CREATE (bulk) - Insert many enrollments in one JDBC batch, in the caller's transaction.
+    // Deliberately not @Transactional: batch chunks call this behind a JDBC savepoint, and a failed
+    // insert passing through the transaction interceptor would mark the whole chunk rollback-only.
+    // Only database writes happen here, so rolling back to the savepoint undoes all of it; once the
+    // savepoint is released, call enrolledInBulk for the in-memory effects.
+    public List<CourseEnrollmentDTO> enrollStudents(List<CourseEnrollmentDTO> enrollmentDTOs) {
+        List<CourseEnrollment> enrollments = new ArrayList<>(enrollmentDTOs.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (CourseEnrollmentDTO enrollmentDTO : enrollmentDTOs) {
+            if (enrollmentDTO.getId() == null || enrollmentDTO.getId().isEmpty()) {
+                enrollmentDTO.setId(UUID.randomUUID().toString());
+            }
+            CourseEnrollment enrollment = convertToEntity(enrollmentDTO);
+            enrollment.setEnrolledAt(now);
+            enrollments.add(enrollment);
+        }
+        enrollmentRepository.batchInsert(enrollments);
+        countAll(enrollments);
+        changeRepository.appendAll(EnrollmentChangeRepository.CREATED, enrollments);
+        logger.info("Enrolled {} students in one batch", enrollments.size());
+        return enrollments.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    // CREATE (bulk) - Update the membership index and student course caches for enrollments inserted by
+    // enrollStudents whose writes can no longer be rolled back short of the whole transaction; the
+    // index is only updated if that transaction commits
+    public void enrolledInBulk(List<CourseEnrollmentDTO> enrollments) {
+        if (enrollments.isEmpty()) {
+            return;
+        }
+        List<String[]> courseAndStudentIds = new ArrayList<>(enrollments.size());
+        for (CourseEnrollmentDTO enrollment : enrollments) {
+            courseAndStudentIds.add(new String[]{enrollment.getCourseId(), enrollment.getStudentId()});
+        }
+        membershipIndex.addedAll(courseAndStudentIds);
+        catalogCache.studentsChanged(enrollments.stream().map(CourseEnrollmentDTO::getStudentId).toList());
+    }
+
     // READ - Get by ID
+    @Transactional(readOnly = true)
     public Optional<CourseEnrollmentDTO> getEnrollmentById(String id) {
-        return enrollmentRepository.findById(id)
-                .map(this::convertToDTO);
+        return enrollmentRepository.findDtoById(id);
     }
 
-    // READ - Get all enrollments
-    public List<CourseEnrollmentDTO> getAllEnrollments() {
-        return enrollmentRepository.findAll()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get all enrollments, one page in id order after afterId ("" for the first page)
+    @Transactional(readOnly = true)
+    public KeysetPage<CourseEnrollmentDTO> getAllEnrollments(String afterId, int limit) {
+        return KeysetPage.of(enrollmentRepository.findDtoPage(afterId, KeysetPage.request(limit)),
+                limit, CourseEnrollmentDTO::getId);
     }
 
-    // READ - Get enrollments by course
-    public List<CourseEnrollmentDTO> getEnrollmentsByCourse(String courseId) {
-        return enrollmentRepository.findByCourseId(courseId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get enrollments by course, one page in id order
+    @Transactional(readOnly = true)
+    public KeysetPage<CourseEnrollmentDTO> getEnrollmentsByCourse(String courseId, String afterId, int limit) {
+        return KeysetPage.of(enrollmentRepository.findDtoPageByCourseId(courseId, afterId, KeysetPage.request(limit)),
+                limit, CourseEnrollmentDTO::getId);
     }
 
-    // READ - Get enrollments by student
-    public List<CourseEnrollmentDTO> getEnrollmentsByStudent(String studentId) {
-        return enrollmentRepository.findByStudentId(studentId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get enrollments by student, one page in id order
+    @Transactional(readOnly = true)
+    public KeysetPage<CourseEnrollmentDTO> getEnrollmentsByStudent(String studentId, String afterId, int limit) {
+        return KeysetPage.of(enrollmentRepository.findDtoPageByStudentId(studentId, afterId, KeysetPage.request(limit)),
+                limit, CourseEnrollmentDTO::getId);
     }
 
-    // READ - Check if student is enrolled in course
+    // READ - Course roster with student name and email, one page in enrollment id order (one query)
+    @Transactional(readOnly = true)
+    public KeysetPage<RosterEntryDTO> getCourseRoster(String courseId, String afterId, int limit) {
+        return KeysetPage.of(enrollmentRepository.findRoster(courseId, afterId, KeysetPage.request(limit)),
+                limit, RosterEntryDTO::getEnrollmentId);
+    }
+
+    // READ - Enrollment changes after afterSeq (0 for the start of the log), in commit order.
+    // Only changes EnrollmentChangeSequencer has added to the feed are returned.
+    public KeysetPage<EnrollmentChangeDTO> getChangesAfter(long afterSeq, int limit) {
+        return KeysetPage.of(changeRepository.findAfter(afterSeq, limit + 1),
+                limit, change -> String.valueOf(change.getSeq()));
+    }
+
+    // READ - Feed position of the latest change in the feed: take it before a full download, then
+    // read changes after it to catch up with what changed during the download
+    public long getChangesHead() {
+        return changeRepository.findLastFeedSeq();
+    }
+
+    // READ - Whether changes after afterSeq were already purged, so reading on would miss some
+    public boolean isChangeCursorExpired(long afterSeq) {
+        return afterSeq > 0 && !changeRepository.reachesBack(afterSeq);
+    }
+
+    // READ - Check if student is enrolled in course, from the membership index once it is loaded
     public boolean isStudentEnrolled(String courseId, String studentId) {
-        return enrollmentRepository.findByCourseIdAndStudentId(courseId, studentId).isPresent();
+        Boolean enrolled = membershipIndex.lookup(courseId, studentId);
+        if (enrolled != null) {
+            return enrolled;
+        }
+        return enrollmentRepository.existsByCourseIdAndStudentId(courseId, studentId);
+    }
+
+    // READ (bulk) - Whether each (courseIds[i], studentIds[i]) pair is enrolled,
+    // from the membership index or else with one query
+    public boolean[] areStudentsEnrolled(List<String> courseIds, List<String> studentIds) {
+        boolean[] enrolled = membershipIndex.lookupAll(courseIds, studentIds);
+        if (enrolled != null) {
+            return enrolled;
+        }
+
+        enrolled = new boolean[courseIds.size()];
+        if (courseIds.isEmpty()) {
+            return enrolled;
+        }
+        Set<String> enrolledPairs = new HashSet<>();
+        for (Object[] pair : enrollmentRepository.findEnrolledPairs(new HashSet<>(courseIds), new HashSet<>(studentIds))) {
+            enrolledPairs.add(pair[0] + "/" + pair[1]);
+        }
+        for (int i = 0; i < enrolled.length; i++) {
+            enrolled[i] = enrolledPairs.contains(courseIds.get(i) + "/" + studentIds.get(i));
+        }
+        return enrolled;
+    }
+
+    // Enrollments of the course were written without this service (set-based bulk load)
+    public void courseEnrollmentsChanged(String courseId) {
+        membershipIndex.courseChanged(courseId);
+        countRepository.recountCourse(courseId);
+        catalogCache.allStudentCoursesChanged();
+    }
+
+    // READ - Which of the given students are already enrolled in course (one query)
+    public Set<String> findEnrolledStudentIds(String courseId, Collection<String> studentIds) {
+        if (studentIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(enrollmentRepository.findEnrolledStudentIds(courseId, studentIds));
     }
 
     // READ - Get enrollment by course and student
+    @Transactional(readOnly = true)
     public Optional<CourseEnrollmentDTO> getEnrollmentByCourseAndStudent(String courseId, String studentId) {
-        return enrollmentRepository.findByCourseIdAndStudentId(courseId, studentId)
-                .map(this::convertToDTO);
+        return enrollmentRepository.findDtoByCourseIdAndStudentId(courseId, studentId);
     }
 
     // UPDATE
+    @Transactional
     public Optional<CourseEnrollmentDTO> updateEnrollment(String id, CourseEnrollmentDTO enrollmentDTO) {
         return enrollmentRepository.findById(id)
                 .map(enrollment -> {
-                    if (enrollmentDTO.getStatus() != null) {
+                    if (enrollmentDTO.getStatus() != null && !enrollmentDTO.getStatus().equals(enrollment.getStatus())) {
+                        count(enrollment.getCourseId(), enrollment.getStatus(), -1);
+                        count(enrollment.getCourseId(), enrollmentDTO.getStatus(), 1);
                         enrollment.setStatus(enrollmentDTO.getStatus());
+                        changeRepository.append(EnrollmentChangeRepository.UPDATED, enrollment);
+                        catalogCache.studentsChanged(List.of(enrollment.getStudentId()));
                     }
                     CourseEnrollment updatedEnrollment = enrollmentRepository.save(enrollment);
                     return convertToDTO(updatedEnrollment);
                 });
     }
 
+    // UPDATE (bulk) - Set the status of every enrollment of a course (e.g. "completed" at the end of term)
+    public int updateStatusByCourse(String courseId, String status) {
+        int updated = enrollmentRepository.updateStatusByCourseId(courseId, status);
+        countRepository.recountCourse(courseId);
+        catalogCache.allStudentCoursesChanged();
+        logger.info("Set status {} on {} enrollments of course {}", status, updated, courseId);
+        return updated;
+    }
+
+    // UPDATE (bulk) - Set the status of every enrollment in the courses of a semester
+    public int updateStatusBySemester(String semester, String status) {
+        int updated = enrollmentRepository.updateStatusBySemester(semester, status);
+        countRepository.recountSemester(semester);
+        catalogCache.allStudentCoursesChanged();
+        logger.info("Set status {} on {} enrollments of semester {}", status, updated, semester);
+        return updated;
+    }
+
+    // UPDATE (bulk) - Drop the given students from a course; the enrollment rows are kept
+    public int dropStudents(String courseId, Collection<String> studentIds) {
+        if (studentIds.isEmpty()) {
+            return 0;
+        }
+        int dropped = enrollmentRepository.updateStatusByCourseIdAndStudentIds(courseId, studentIds, "dropped");
+        countRepository.recountCourse(courseId);
+        catalogCache.studentsChanged(studentIds);
+        logger.info("Dropped {} students from course {}", dropped, courseId);
+        return dropped;
+    }
+
     // DELETE
+    @Transactional
     public boolean deleteEnrollment(String id) {
-        if (enrollmentRepository.existsById(id)) {
-            enrollmentRepository.deleteById(id);
-            return true;
-        }
-        return false;
+        return enrollmentRepository.findById(id)
+                .map(enrollment -> {
+                    enrollmentRepository.delete(enrollment);
+                    membershipIndex.removed(enrollment.getCourseId(), enrollment.getStudentId());
+                    count(enrollment.getCourseId(), enrollment.getStatus(), -1);
+                    changeRepository.append(EnrollmentChangeRepository.DELETED, enrollment);
+                    catalogCache.studentsChanged(List.of(enrollment.getStudentId()));
+                    return true;
+                })
+                .orElse(false);
     }
 
     // DELETE - Remove student from course
+    @Transactional
     public boolean removeStudentFromCourse(String courseId, String studentId) {
         return enrollmentRepository.findByCourseIdAndStudentId(courseId, studentId)
                 .map(enrollment -> {
                     enrollmentRepository.delete(enrollment);
+                    membershipIndex.removed(courseId, studentId);
+                    count(courseId, enrollment.getStatus(), -1);
+                    changeRepository.append(EnrollmentChangeRepository.DELETED, enrollment);
+                    catalogCache.studentsChanged(List.of(studentId));
                     return true;
                 })
                 .orElse(false);
     }
 
+    // DELETE (bulk) - Remove every enrollment of a course
+    public int removeAllFromCourse(String courseId) {
+        int deleted = enrollmentRepository.deleteByCourseIdInChunks(courseId);
+        membershipIndex.courseChanged(courseId);
+        countRepository.recountCourse(courseId);
+        catalogCache.allStudentCoursesChanged();
+        logger.info("Removed {} enrollments of course {}", deleted, courseId);
+        return deleted;
+    }
+
     // Helper methods
     private CourseEnrollmentDTO convertToDTO(CourseEnrollment enrollment) {
         CourseEnrollmentDTO dto = new CourseEnrollmentDTO();
@@ -125,4 +305,37 @@ public class CourseEnrollmentService {
         enrollment.setStatus(enrollmentDTO.getStatus() != null ? enrollmentDTO.getStatus() : "enrolled");
         return enrollment;
     }
+
+    // Move the course's count for a status by delta, in the caller's transaction; other statuses are not counted
+    private void count(String courseId, String status, int delta) {
+        int[] counts = new int[3];
+        if (addTo(counts, status, delta)) {
+            countRepository.add(courseId, counts[0], counts[1], counts[2]);
+        }
+    }
+
+    // One counts update per course for a batch of new enrollments
+    private void countAll(List<CourseEnrollment> enrollments) {
+        Map<String, int[]> countsByCourse = new HashMap<>();
+        for (CourseEnrollment enrollment : enrollments) {
+            addTo(countsByCourse.computeIfAbsent(enrollment.getCourseId(), course -> new int[3]), enrollment.getStatus(), 1);
+        }
+        countsByCourse.forEach((courseId, counts) -> countRepository.add(courseId, counts[0], counts[1], counts[2]));
+    }
+
+    // counts is {enrolled, dropped, completed}
+    private static boolean addTo(int[] counts, String status, int delta) {
+        if (status == null) {
+            return false;
+        }
+        switch (status) {
+            case "enrolled" -> counts[0] += delta;
+            case "dropped" -> counts[1] += delta;
+            case "completed" -> counts[2] += delta;
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,173 @@
+package com.app.service;
+
+import com.app.config.CourseSearchProperties;
+import com.app.dto.CourseDTO;
+import com.app.util.InvertedIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory full-text search over course code, name, description and semester, with prefix
+ * and one-typo matching, so catalog searches never reach the database.
+ * A term found in the code outweighs one in the name, then the semester, then the description.
+ * Results are ranked by score, then by code.
+ * Kept current by a RefreshingSnapshot: course writes through CourseService, and a rebuild from
+ * scratch every course.search.refresh-interval.
+ */
+@Component
+public class CourseSearchIndex {
+
+    private static final String LOAD_SQL =
+            "SELECT id, code, name, description, professor_id, semester, status, created_at FROM courses";
+    private static final int FETCH_SIZE = 1000;
+
+    private static final int CODE_WEIGHT = 8;
+    private static final int NAME_WEIGHT = 4;
+    private static final int SEMESTER_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CourseSearchProperties properties;
+    private final Counter indexSearches;
+    private final Counter fallbacks;
+    private final RefreshingSnapshot<Snapshot> snapshot;
+
+    public CourseSearchIndex(JdbcTemplate jdbcTemplate, CourseSearchProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.indexSearches = searchCounter(meterRegistry, "index");
+        this.fallbacks = searchCounter(meterRegistry, "fallback");
+        this.snapshot = new RefreshingSnapshot<>("course search index", this::load,
+                loaded -> loaded.index.size() + " courses");
+        Gauge.builder("course.search.courses", snapshot, courses -> courses.get() != null ? courses.get().index.size() : 0)
+                .description("Courses held by the search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load the index in the background once the application is up, then rebuild it periodically
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        snapshot.start(properties.getRefreshInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        snapshot.stop();
+    }
+
+    /**
+     * Up to limit courses matching every term of the query, best first, or null when the index is not loaded
+     */
+    public List<CourseDTO> search(String query, int limit) {
+        Snapshot current = snapshot.get();
+        if (current == null || !properties.isEnabled()) {
+            fallbacks.increment();
+            return null;
+        }
+        indexSearches.increment();
+        List<String> terms = InvertedIndex.tokenize(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<CourseDTO> found = new ArrayList<>(limit);
+        for (String courseId : current.index.search(terms, limit)) {
+            CourseDTO course = current.courses.get(courseId);
+            if (course != null) {
+                found.add(course);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Index a created or updated course, applied when the current transaction commits
+     */
+    public void courseChanged(CourseDTO course) {
+        snapshot.applyAfterCommit(index -> index.put(course));
+    }
+
+    /**
+     * Drop a deleted course, applied when the current transaction commits
+     */
+    public void courseRemoved(String courseId) {
+        snapshot.applyAfterCommit(index -> index.remove(courseId));
+    }
+
+    /**
+     * Rebuild the index from the database and swap it in
+     */
+    public void reload() {
+        snapshot.reload();
+    }
+
+    private Snapshot load() {
+        Snapshot loaded = new Snapshot();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            Timestamp createdAt = rs.getTimestamp(8);
+            loaded.put(new CourseDTO(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getString(5), rs.getString(6), rs.getString(7),
+                    createdAt != null ? createdAt.toLocalDateTime() : null));
+        });
+        return loaded;
+    }
+
+    private static Counter searchCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("course.search.queries")
+                .description("Course searches by where they were answered; fallback means the database was queried")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One load of the index and the changes applied to it since; written under the index lock
+     */
+    private static final class Snapshot {
+        private final InvertedIndex index = new InvertedIndex();
+        private final Map<String, CourseDTO> courses = new ConcurrentHashMap<>();
+
+        void put(CourseDTO course) {
+            Map<String, Integer> weights = new HashMap<>();
+            addTerms(weights, course.getCode(), CODE_WEIGHT);
+            addTerms(weights, course.getName(), NAME_WEIGHT);
+            addTerms(weights, course.getSemester(), SEMESTER_WEIGHT);
+            addTerms(weights, course.getDescription(), DESCRIPTION_WEIGHT);
+            courses.put(course.getId(), course);
+            index.put(course.getId(), course.getCode(), weights);
+        }
+
+        void remove(String courseId) {
+            index.remove(courseId);
+            courses.remove(courseId);
+        }
+
+        private static void addTerms(Map<String, Integer> weights, String text, int weight) {
+            for (String term : InvertedIndex.tokenize(text)) {
+                weights.merge(term, weight, Math::max);
+            }
+        }
+    }
+}
@@ -1,23 +1,34 @@
 package com.app.service;
 
 import com.app.dto.CourseDTO;
+import com.app.dto.EnrollmentCountsDTO;
+import com.app.dto.KeysetPage;
 import com.app.entity.Course;
+import com.app.repository.CourseEnrollmentCountRepository;
 import com.app.repository.CourseRepository;
-import com.app.repository.CourseEnrollmentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CourseService {
 
     private final CourseRepository courseRepository;
-    private final CourseEnrollmentRepository enrollmentRepository;
+    private final CourseEnrollmentCountRepository countRepository;
+    private final CatalogCache catalogCache;
+    private final CourseSearchIndex searchIndex;
 
     // CREATE
     public CourseDTO createCourse(CourseDTO courseDTO) {
@@ -26,62 +37,114 @@ public class CourseService {
         }
         Course course = convertToEntity(courseDTO);
         Course savedCourse = courseRepository.save(course);
-        return convertToDTO(savedCourse);
+        countRepository.add(savedCourse.getId(), 0, 0, 0);
+        catalogCache.courseChanged(savedCourse.getId(), savedCourse.getCode());
+        CourseDTO created = convertToDTO(savedCourse);
+        searchIndex.courseChanged(created);
+        return created;
     }
 
-    // READ - Get by ID
+    // READ - Get by ID, cached (the repository query runs in its own read-only transaction on a miss)
     public Optional<CourseDTO> getCourseById(String id) {
-        return courseRepository.findById(id)
-                .map(this::convertToDTO);
+        return catalogCache.getCourse(id, () -> courseRepository.findDtoById(id));
     }
 
-    // READ - Get all courses
-    public List<CourseDTO> getAllCourses() {
-        return courseRepository.findAll()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get all courses, one page in id order after afterId ("" for the first page)
+    @Transactional(readOnly = true)
+    public KeysetPage<CourseDTO> getAllCourses(String afterId, int limit) {
+        return KeysetPage.of(courseRepository.findDtoPage(afterId, KeysetPage.request(limit)), limit, CourseDTO::getId);
     }
 
-    // READ - Get by code
+    // READ - Get by code, cached
     public Optional<CourseDTO> getCourseByCode(String code) {
-        return courseRepository.findByCode(code)
-                .map(this::convertToDTO);
+        return catalogCache.getCourseByCode(code, () -> courseRepository.findDtoByCode(code));
+    }
+
+    // READ (bulk) - Course ids for many codes in one lookup, keyed by codeKey(code)
+    // Codes with no course are left out
+    public Map<String, String> getCourseIdsByCodes(Collection<String> codes) {
+        Map<String, String> courseIdsByCode = new HashMap<>();
+        if (codes.isEmpty()) {
+            return courseIdsByCode;
+        }
+        for (Course course : courseRepository.findByCodeIn(codes)) {
+            courseIdsByCode.put(codeKey(course.getCode()), course.getId());
+        }
+        return courseIdsByCode;
+    }
+
+    // Codes are matched case-insensitively, as the courses.code collation does
+    public static String codeKey(String code) {
+        return code.toLowerCase(Locale.ROOT);
     }
 
-    // READ - Get by professor
-    public List<CourseDTO> getCoursesByProfessor(String professorId) {
-        return courseRepository.findByProfessorId(professorId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Search by code, name, description and semester, best match first; from memory once
+    // the search index is loaded, until then a substring match on code and name in the database
+    public List<CourseDTO> searchCourses(String query, int limit) {
+        List<CourseDTO> found = searchIndex.search(query, limit);
+        if (found != null) {
+            return found;
+        }
+        String pattern = "%" + query.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        return courseRepository.findDtoByCodeOrNameLike(pattern, PageRequest.of(0, limit));
     }
 
-    // READ - Get by status
-    public List<CourseDTO> getCoursesByStatus(String status) {
-        return courseRepository.findByStatus(status)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get by professor, one page in id order
+    @Transactional(readOnly = true)
+    public KeysetPage<CourseDTO> getCoursesByProfessor(String professorId, String afterId, int limit) {
+        return KeysetPage.of(courseRepository.findDtoPageByProfessorId(professorId, afterId, KeysetPage.request(limit)),
+                limit, CourseDTO::getId);
     }
 
-    // READ - Get courses by student
-    public List<CourseDTO> getCoursesByStudent(String studentId) {
-        List<String> courseIds = enrollmentRepository.findByStudentId(studentId)
-                .stream()
-                .map(enrollment -> enrollment.getCourseId())
-                .collect(Collectors.toList());
-        
-        return courseRepository.findAllById(courseIds)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get by status, one page in id order
+    @Transactional(readOnly = true)
+    public KeysetPage<CourseDTO> getCoursesByStatus(String status, String afterId, int limit) {
+        return KeysetPage.of(courseRepository.findDtoPageByStatus(status, afterId, KeysetPage.request(limit)),
+                limit, CourseDTO::getId);
+    }
+
+    // READ - Get courses by student, one page in id order (enrollments joined in the query), cached per student.
+    // enrollmentStatus, courseStatus and semester filter when not null.
+    public KeysetPage<CourseDTO> getCoursesByStudent(String studentId, String enrollmentStatus, String courseStatus,
+                                                     String semester, String afterId, int limit) {
+        return catalogCache.getStudentCourses(studentId, enrollmentStatus, courseStatus, semester, afterId, limit,
+                () -> KeysetPage.of(courseRepository.findDtoPageByStudentId(studentId, enrollmentStatus, courseStatus,
+                        semester, afterId, KeysetPage.request(limit)), limit, CourseDTO::getId));
+    }
+
+    // READ - Enrollment counts by status of many courses, in the order asked, unknown courses left out.
+    // One query on the materialized counts; courses not counted yet are counted from their enrollments.
+    @Transactional(readOnly = true)
+    public List<EnrollmentCountsDTO> getEnrollmentCounts(Collection<String> courseIds) {
+        Collection<String> distinctIds = new LinkedHashSet<>(courseIds);
+        Map<String, EnrollmentCountsDTO> counts = countRepository.findByCourseIds(distinctIds);
+        if (counts.size() < distinctIds.size()) {
+            List<String> missing = new ArrayList<>();
+            for (String courseId : distinctIds) {
+                if (!counts.containsKey(courseId)) {
+                    missing.add(courseId);
+                }
+            }
+            for (EnrollmentCountsDTO actual : countRepository.countActual(missing)) {
+                counts.put(actual.getCourseId(), actual);
+            }
+        }
+
+        List<EnrollmentCountsDTO> ordered = new ArrayList<>(counts.size());
+        for (String courseId : distinctIds) {
+            if (counts.containsKey(courseId)) {
+                ordered.add(counts.get(courseId));
+            }
+        }
+        return ordered;
     }
 
     // UPDATE
     public Optional<CourseDTO> updateCourse(String id, CourseDTO courseDTO) {
         return courseRepository.findById(id)
                 .map(course -> {
+                    String oldCode = course.getCode();
                     if (courseDTO.getCode() != null) course.setCode(courseDTO.getCode());
                     if (courseDTO.getName() != null) course.setName(courseDTO.getName());
                     if (courseDTO.getDescription() != null) course.setDescription(courseDTO.getDescription());
@@ -89,14 +152,23 @@ public class CourseService {
                     if (courseDTO.getSemester() != null) course.setSemester(courseDTO.getSemester());
                     if (courseDTO.getStatus() != null) course.setStatus(courseDTO.getStatus());
                     Course updatedCourse = courseRepository.save(course);
-                    return convertToDTO(updatedCourse);
+                    catalogCache.courseChanged(id, oldCode, updatedCourse.getCode());
+                    catalogCache.allStudentCoursesChanged();
+                    CourseDTO updated = convertToDTO(updatedCourse);
+                    searchIndex.courseChanged(updated);
+                    return updated;
                 });
     }
 
     // DELETE
     public boolean deleteCourse(String id) {
-        if (courseRepository.existsById(id)) {
+        Optional<Course> course = courseRepository.findById(id);
+        if (course.isPresent()) {
             courseRepository.deleteById(id);
+            countRepository.delete(id);
+            catalogCache.courseChanged(id, course.get().getCode());
+            catalogCache.allStudentCoursesChanged();
+            searchIndex.courseRemoved(id);
             return true;
         }
         return false;
@@ -0,0 +1,59 @@
+package com.app.service;
+
+import com.app.config.EnrollmentChangesProperties;
+import com.app.repository.EnrollmentChangeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes enrollment changes older than enrollment.changes.retention, once an hour
+ */
+@Component
+public class EnrollmentChangePurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentChangePurger.class);
+    private static final int ROWS_PER_DELETE = 5000;
+
+    private final EnrollmentChangeRepository changeRepository;
+    private final EnrollmentChangesProperties properties;
+    private final ScheduledExecutorService scheduler;
+
+    public EnrollmentChangePurger(EnrollmentChangeRepository changeRepository, EnrollmentChangesProperties properties) {
+        this.changeRepository = changeRepository;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "enrollment-change-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::purgeQuietly, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void purgeQuietly() {
+        try {
+            int purged = changeRepository.purgeOlderThan(properties.getRetention(), ROWS_PER_DELETE);
+            if (purged > 0) {
+                logger.info("Purged {} enrollment changes older than {}", purged, properties.getRetention());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not purge enrollment changes: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.app.service;
+
+import com.app.config.EnrollmentChangesProperties;
+import com.app.repository.EnrollmentChangeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds committed enrollment changes to the feed every enrollment.changes.sequence-interval.
+ * Every node runs one; the sequence lock in the database lets one at a time through.
+ */
+@Component
+public class EnrollmentChangeSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentChangeSequencer.class);
+    // Changes numbered per transaction, so a bulk load does not hold the sequence lock for long
+    private static final int CHANGES_PER_RUN = 5000;
+
+    private final EnrollmentChangeRepository changeRepository;
+    private final EnrollmentChangesProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService scheduler;
+
+    public EnrollmentChangeSequencer(EnrollmentChangeRepository changeRepository,
+                                     EnrollmentChangesProperties properties,
+                                     PlatformTransactionManager transactionManager) {
+        this.changeRepository = changeRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "enrollment-change-sequence");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = Math.max(100, properties.getSequenceInterval().toMillis());
+        scheduler.scheduleWithFixedDelay(this::sequenceQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Give every change committed so far its feed_seq; returns how many were added to the feed
+     */
+    public int sequence() {
+        int total = 0;
+        Integer sequenced;
+        do {
+            sequenced = transactionTemplate.execute(status -> changeRepository.sequence(CHANGES_PER_RUN));
+            total += sequenced;
+        } while (sequenced == CHANGES_PER_RUN);
+        return total;
+    }
+
+    private void sequenceQuietly() {
+        try {
+            sequence();
+        } catch (RuntimeException e) {
+            logger.warn("Could not add enrollment changes to the feed: {}", e.getMessage());
+        }
+    }
+}
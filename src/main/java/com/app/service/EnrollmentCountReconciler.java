@@ -0,0 +1,100 @@
+package com.app.service;
+
+import com.app.config.EnrollmentCountsProperties;
+import com.app.dto.EnrollmentCountsDTO;
+import com.app.repository.CourseEnrollmentCountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically checks the materialized enrollment counts against a GROUP BY over
+ * course_enrollments and recounts every course that drifted, e.g. after enrollments were
+ * changed directly in the database. The first run, at startup, also fills in the counts
+ * of courses that have none yet.
+ */
+@Component
+public class EnrollmentCountReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentCountReconciler.class);
+
+    private final CourseEnrollmentCountRepository countRepository;
+    private final EnrollmentCountsProperties properties;
+    private final Counter corrections;
+    private final ScheduledExecutorService scheduler;
+
+    public EnrollmentCountReconciler(CourseEnrollmentCountRepository countRepository,
+                                     EnrollmentCountsProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.countRepository = countRepository;
+        this.properties = properties;
+        this.corrections = Counter.builder("enrollment.counts.corrections")
+                .description("Courses whose enrollment counts were found wrong and recounted")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "enrollment-count-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = Math.max(1000, properties.getReconcileInterval().toMillis());
+        scheduler.scheduleWithFixedDelay(this::reconcileQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Recount every course whose stored counts differ from its enrollments, and drop the counts
+     * of deleted courses. Returns the number of courses corrected.
+     * A course changed between the two reads is recounted needlessly, never left wrong.
+     */
+    public int reconcile() {
+        Map<String, EnrollmentCountsDTO> stored = new HashMap<>();
+        for (EnrollmentCountsDTO counts : countRepository.findAll()) {
+            stored.put(counts.getCourseId(), counts);
+        }
+
+        int corrected = 0;
+        for (EnrollmentCountsDTO actual : countRepository.countActual()) {
+            if (!actual.equals(stored.remove(actual.getCourseId()))) {
+                countRepository.recountCourse(actual.getCourseId());
+                corrected++;
+            }
+        }
+        // Left in stored: counts of courses that no longer exist
+        for (String courseId : stored.keySet()) {
+            countRepository.delete(courseId);
+        }
+
+        corrections.increment(corrected);
+        if (corrected > 0) {
+            logger.info("Recounted enrollments of {} courses", corrected);
+        }
+        return corrected;
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            logger.warn("Could not reconcile enrollment counts: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.app.service;
+
+import com.app.config.EnrollmentIndexProperties;
+import com.app.dto.EnrollmentChangeDTO;
+import com.app.repository.EnrollmentChangeRepository;
+import com.app.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of which students are enrolled in which course, answering enrollment
+ * checks without a database round trip.
+ * Student ids are mapped to int ordinals and each course keeps a sorted int[] of its
+ * students; a Bloom filter over (course, student) in front rejects most non-enrolled pairs
+ * before any map is touched. Reads take no lock: course arrays are replaced, never modified.
+ * Kept current by a RefreshingSnapshot: writes through CourseEnrollmentService, and every
+ * enrollment.index.refresh-interval the changes logged in the enrollment change feed since the
+ * last pass. Rebuilt from course_enrollments at startup, every full-reload-interval, and when
+ * the feed was purged past the point the index had read to.
+ */
+@Component
+public class EnrollmentMembershipIndex {
+
+    private static final String LOAD_SQL = "SELECT course_id, student_id FROM course_enrollments";
+    private static final String LOAD_COURSE_SQL = "SELECT student_id FROM course_enrollments WHERE course_id = ?";
+    private static final int FETCH_SIZE = 1000;
+    private static final int[] NO_STUDENTS = new int[0];
+    private static final int CHANGES_PER_READ = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EnrollmentChangeRepository changeRepository;
+    private final EnrollmentIndexProperties properties;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bloomNegatives;
+    private final Counter fallbacks;
+    private final RefreshingSnapshot<Snapshot> snapshot;
+
+    public EnrollmentMembershipIndex(JdbcTemplate jdbcTemplate,
+                                     EnrollmentChangeRepository changeRepository,
+                                     EnrollmentIndexProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeRepository = changeRepository;
+        this.properties = properties;
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.bloomNegatives = lookupCounter(meterRegistry, "bloom_negative");
+        this.fallbacks = lookupCounter(meterRegistry, "fallback");
+        this.snapshot = new RefreshingSnapshot<>("enrollment index", this::load,
+                loaded -> loaded.enrollments + " enrollments in " + loaded.courses.size() + " courses");
+        Gauge.builder("enrollment.index.age", this, EnrollmentMembershipIndex::ageSeconds)
+                .description("Seconds since the index last caught up with the database")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("enrollment.index.enrollments", snapshot, index -> index.get() != null ? index.get().enrollments : 0)
+                .description("Enrollments held by the index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load the index in the background once the application is up, then keep it current from the change feed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        snapshot.start(properties.getRefreshInterval(), this::refresh);
+    }
+
+    @PreDestroy
+    public void stop() {
+        snapshot.stop();
+    }
+
+    /**
+     * Whether the student is enrolled in the course, or null when the index is not loaded
+     */
+    public Boolean lookup(String courseId, String studentId) {
+        Snapshot current = snapshot.get();
+        if (current == null || !properties.isEnabled()) {
+            fallbacks.increment();
+            return null;
+        }
+        return contains(current, courseId, studentId);
+    }
+
+    /**
+     * Whether each (courseIds[i], studentIds[i]) pair is enrolled, all read from the same
+     * snapshot, or null when the index is not loaded
+     */
+    public boolean[] lookupAll(List<String> courseIds, List<String> studentIds) {
+        Snapshot current = snapshot.get();
+        if (current == null || !properties.isEnabled()) {
+            fallbacks.increment(courseIds.size());
+            return null;
+        }
+        boolean[] enrolled = new boolean[courseIds.size()];
+        for (int i = 0; i < enrolled.length; i++) {
+            enrolled[i] = contains(current, courseIds.get(i), studentIds.get(i));
+        }
+        return enrolled;
+    }
+
+    /**
+     * Record a new enrollment, applied when the current transaction commits (at once outside one)
+     */
+    public void added(String courseId, String studentId) {
+        snapshot.applyAfterCommit(index -> index.add(courseId, studentId));
+    }
+
+    /**
+     * Record many new enrollments given as (course id, student id) pairs, applied on commit
+     */
+    public void addedAll(List<String[]> courseAndStudentIds) {
+        snapshot.applyAfterCommit(index -> {
+            for (String[] pair : courseAndStudentIds) {
+                index.add(pair[0], pair[1]);
+            }
+        });
+    }
+
+    /**
+     * Record a removed enrollment, applied when the current transaction commits
+     */
+    public void removed(String courseId, String studentId) {
+        snapshot.applyAfterCommit(index -> index.remove(courseId, studentId));
+    }
+
+    /**
+     * Re-read one course's students, after it was changed without going through this index
+     * (e.g. a set-based bulk load). Applied when the current transaction commits.
+     */
+    public void courseChanged(String courseId) {
+        RefreshingSnapshot.afterCommit(() -> {
+            if (!properties.isEnabled()) {
+                return;
+            }
+            List<String> students = jdbcTemplate.queryForList(LOAD_COURSE_SQL, String.class, courseId);
+            snapshot.apply(index -> index.replace(courseId, students));
+        });
+    }
+
+    /**
+     * Rebuild the index from the database and swap it in
+     */
+    public void reload() {
+        snapshot.reload();
+    }
+
+    /**
+     * Apply the changes logged in the change feed since the index last read it, or rebuild the
+     * index when it is not loaded, is due a full reload, or the feed no longer reaches back to it
+     */
+    public void refresh() {
+        Snapshot current = snapshot.get();
+        if (current == null
+                || System.nanoTime() - current.loadedAt >= properties.getFullReloadInterval().toNanos()
+                || !changeRepository.reachesBack(current.feedSeq)) {
+            reload();
+            return;
+        }
+        long refreshedAt = System.nanoTime();
+        List<EnrollmentChangeDTO> changes;
+        do {
+            changes = changeRepository.findAfter(snapshot.get().feedSeq, CHANGES_PER_READ);
+            List<EnrollmentChangeDTO> read = changes;
+            snapshot.apply(index -> index.apply(read));
+        } while (changes.size() == CHANGES_PER_READ);
+        snapshot.get().refreshedAt = refreshedAt;
+    }
+
+    private boolean contains(Snapshot current, String courseId, String studentId) {
+        if (!current.bloom.mightContain(courseId, studentId)) {
+            bloomNegatives.increment();
+            return false;
+        }
+        Integer student = current.ordinals.get(studentId);
+        int[] students = current.courses.getOrDefault(courseId, NO_STUDENTS);
+        if (student != null && Arrays.binarySearch(students, student) >= 0) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    private Snapshot load() {
+        // Read first: changes up to here are committed, so the scan sees them; later ones are
+        // replayed from the feed, which is harmless for those the scan saw as well
+        long feedSeq = changeRepository.findLastFeedSeq();
+        long loadedAt = System.nanoTime();
+        Map<String, List<String>> studentsByCourse = new HashMap<>();
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            studentsByCourse.computeIfAbsent(rs.getString(1), course -> new ArrayList<>()).add(rs.getString(2));
+            count[0]++;
+        });
+
+        // Headroom for enrollments added before the next reload
+        BloomFilter bloom = BloomFilter.create(count[0] + count[0] / 2 + 1024, properties.getBloomFalsePositiveRate());
+        Snapshot loaded = new Snapshot(bloom, loadedAt, feedSeq);
+        studentsByCourse.forEach(loaded::replace);
+        return loaded;
+    }
+
+    private double ageSeconds() {
+        Snapshot current = snapshot.get();
+        return current != null ? (System.nanoTime() - current.refreshedAt) / 1e9 : Double.NaN;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("enrollment.index.lookups")
+                .description("Enrollment checks by outcome; fallback means the database was queried")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One load of the index and the changes applied to it since; written under the index lock
+     */
+    private static final class Snapshot {
+        private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+        private final Map<String, int[]> courses = new ConcurrentHashMap<>();
+        private final BloomFilter bloom;
+        private final long loadedAt;
+        // Last change feed position applied, and when the index last caught up with the database
+        private volatile long feedSeq;
+        private volatile long refreshedAt;
+        private volatile long enrollments = 0;
+        private int nextOrdinal = 0;
+
+        Snapshot(BloomFilter bloom, long loadedAt, long feedSeq) {
+            this.bloom = bloom;
+            this.loadedAt = loadedAt;
+            this.feedSeq = feedSeq;
+            this.refreshedAt = loadedAt;
+        }
+
+        /**
+         * Replay changes read from the feed, in feed order; an UPDATED change only moves the
+         * status, so the enrollment is still there
+         */
+        void apply(List<EnrollmentChangeDTO> changes) {
+            for (EnrollmentChangeDTO change : changes) {
+                if (change.getSeq() <= feedSeq) {
+                    continue;
+                }
+                if (EnrollmentChangeRepository.DELETED.equals(change.getChangeType())) {
+                    remove(change.getCourseId(), change.getStudentId());
+                } else {
+                    add(change.getCourseId(), change.getStudentId());
+                }
+                feedSeq = change.getSeq();
+            }
+        }
+
+        void add(String courseId, String studentId) {
+            int student = ordinal(studentId);
+            int[] students = courses.getOrDefault(courseId, NO_STUDENTS);
+            int at = Arrays.binarySearch(students, student);
+            if (at < 0) {
+                at = -at - 1;
+                int[] grown = new int[students.length + 1];
+                System.arraycopy(students, 0, grown, 0, at);
+                grown[at] = student;
+                System.arraycopy(students, at, grown, at + 1, students.length - at);
+                courses.put(courseId, grown);
+                enrollments++;
+            }
+            bloom.put(courseId, studentId);
+        }
+
+        void remove(String courseId, String studentId) {
+            Integer student = ordinals.get(studentId);
+            int[] students = courses.getOrDefault(courseId, NO_STUDENTS);
+            int at = student != null ? Arrays.binarySearch(students, student) : -1;
+            if (at >= 0) {
+                int[] shrunk = new int[students.length - 1];
+                System.arraycopy(students, 0, shrunk, 0, at);
+                System.arraycopy(students, at + 1, shrunk, at, students.length - at - 1);
+                courses.put(courseId, shrunk);
+                enrollments--;
+            }
+            // The Bloom filter keeps the pair, the course array answers for it
+        }
+
+        void replace(String courseId, List<String> studentIds) {
+            int[] students = new int[studentIds.size()];
+            for (int i = 0; i < students.length; i++) {
+                students[i] = ordinal(studentIds.get(i));
+                bloom.put(courseId, studentIds.get(i));
+            }
+            Arrays.sort(students);
+            int[] previous = courses.put(courseId, students);
+            enrollments += students.length - (previous != null ? previous.length : 0);
+        }
+
+        private int ordinal(String studentId) {
+            Integer ordinal = ordinals.get(studentId);
+            if (ordinal == null) {
+                ordinal = nextOrdinal++;
+                ordinals.put(studentId, ordinal);
+            }
+            return ordinal;
+        }
+    }
+}
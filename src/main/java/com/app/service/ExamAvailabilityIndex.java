@@ -0,0 +1,220 @@
+package com.app.service;
+
+import com.app.config.ExamAvailabilityProperties;
+import com.app.dto.ExamDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exams by course, each course's exams sorted by the start of their availability window, to
+ * answer "which exams of these courses are open at this instant" without the database: a binary
+ * search finds the exams already opened, and only those have their window end checked.
+ * A missing start or end leaves the window open on that side.
+ * Kept current by a RefreshingSnapshot: exam writes through ExamService, and a rebuild every
+ * exam.availability.refresh-interval.
+ */
+@Component
+public class ExamAvailabilityIndex {
+
+    private static final String LOAD_SQL =
+            "SELECT id, course_id, title, description, professor_id, exam_file_url, duration_minutes, "
+                    + "start_available_at, end_available_at, recording_required, created_at FROM exams";
+    private static final int FETCH_SIZE = 1000;
+
+    private static final Comparator<ExamDTO> BY_START =
+            Comparator.comparing(ExamDTO::getStartAvailableAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * Order of open exams: closing soonest first, those that never close last, then by id
+     */
+    public static final Comparator<ExamDTO> CLOSING_FIRST =
+            Comparator.comparing(ExamDTO::getEndAvailableAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(ExamDTO::getId);
+
+    private static final ExamDTO[] NO_EXAMS = new ExamDTO[0];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExamAvailabilityProperties properties;
+    private final Counter indexLookups;
+    private final Counter fallbacks;
+    private final RefreshingSnapshot<Snapshot> snapshot;
+
+    public ExamAvailabilityIndex(JdbcTemplate jdbcTemplate, ExamAvailabilityProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.indexLookups = lookupCounter(meterRegistry, "index");
+        this.fallbacks = lookupCounter(meterRegistry, "fallback");
+        this.snapshot = new RefreshingSnapshot<>("exam availability index", this::load,
+                loaded -> loaded.courseOfExam.size() + " exams");
+        Gauge.builder("exam.availability.exams", snapshot, exams -> exams.get() != null ? exams.get().courseOfExam.size() : 0)
+                .description("Exams held by the availability index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load the index in the background once the application is up, then rebuild it periodically
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        snapshot.start(properties.getRefreshInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        snapshot.stop();
+    }
+
+    /**
+     * Exams of the courses whose window contains the instant, closing soonest first,
+     * or null when the index is not loaded
+     */
+    public List<ExamDTO> findOpen(Collection<String> courseIds, LocalDateTime at) {
+        Snapshot current = snapshot.get();
+        if (current == null || !properties.isEnabled()) {
+            fallbacks.increment();
+            return null;
+        }
+        indexLookups.increment();
+        List<ExamDTO> open = new ArrayList<>();
+        for (String courseId : courseIds) {
+            ExamDTO[] exams = current.examsByCourse.getOrDefault(courseId, NO_EXAMS);
+            for (int i = 0, opened = openedBy(exams, at); i < opened; i++) {
+                LocalDateTime end = exams[i].getEndAvailableAt();
+                if (end == null || !end.isBefore(at)) {
+                    open.add(exams[i]);
+                }
+            }
+        }
+        open.sort(CLOSING_FIRST);
+        return open;
+    }
+
+    /**
+     * Index a created or updated exam, applied when the current transaction commits
+     */
+    public void examChanged(ExamDTO exam) {
+        snapshot.applyAfterCommit(index -> index.put(exam));
+    }
+
+    /**
+     * Drop a deleted exam, applied when the current transaction commits
+     */
+    public void examRemoved(String examId) {
+        snapshot.applyAfterCommit(index -> index.remove(examId));
+    }
+
+    /**
+     * Rebuild the index from the database and swap it in
+     */
+    public void reload() {
+        snapshot.reload();
+    }
+
+    // How many of the exams, sorted by start, have opened by the instant
+    private static int openedBy(ExamDTO[] exams, LocalDateTime at) {
+        int low = 0;
+        int high = exams.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            LocalDateTime start = exams[middle].getStartAvailableAt();
+            if (start == null || !start.isAfter(at)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private Snapshot load() {
+        Map<String, List<ExamDTO>> byCourse = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            ExamDTO exam = new ExamDTO(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getString(5), rs.getString(6), rs.getObject(7, Integer.class),
+                    toLocalDateTime(rs.getTimestamp(8)), toLocalDateTime(rs.getTimestamp(9)),
+                    rs.getObject(10) != null ? rs.getBoolean(10) : null, toLocalDateTime(rs.getTimestamp(11)));
+            byCourse.computeIfAbsent(exam.getCourseId(), courseId -> new ArrayList<>()).add(exam);
+        });
+        Snapshot loaded = new Snapshot();
+        byCourse.forEach((courseId, exams) -> {
+            ExamDTO[] sorted = exams.toArray(NO_EXAMS);
+            Arrays.sort(sorted, BY_START);
+            loaded.examsByCourse.put(courseId, sorted);
+            for (ExamDTO exam : sorted) {
+                loaded.courseOfExam.put(exam.getId(), courseId);
+            }
+        });
+        return loaded;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("exam.availability.lookups")
+                .description("Open-exam lookups by where they were answered; fallback means the database was queried")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One load of the index and the changes applied to it since; written under the index lock.
+     * A course's array is replaced on every change, never modified, so lookups need no lock.
+     */
+    private static final class Snapshot {
+        private final Map<String, ExamDTO[]> examsByCourse = new ConcurrentHashMap<>();
+        private final Map<String, String> courseOfExam = new ConcurrentHashMap<>();
+
+        void put(ExamDTO exam) {
+            remove(exam.getId());
+            ExamDTO[] current = examsByCourse.getOrDefault(exam.getCourseId(), NO_EXAMS);
+            ExamDTO[] added = Arrays.copyOf(current, current.length + 1);
+            added[current.length] = exam;
+            Arrays.sort(added, BY_START);
+            examsByCourse.put(exam.getCourseId(), added);
+            courseOfExam.put(exam.getId(), exam.getCourseId());
+        }
+
+        void remove(String examId) {
+            String courseId = courseOfExam.remove(examId);
+            if (courseId == null) {
+                return;
+            }
+            ExamDTO[] remaining = Arrays.stream(examsByCourse.get(courseId))
+                    .filter(exam -> !exam.getId().equals(examId))
+                    .toArray(ExamDTO[]::new);
+            if (remaining.length == 0) {
+                examsByCourse.remove(courseId);
+            } else {
+                examsByCourse.put(courseId, remaining);
+            }
+        }
+    }
+}
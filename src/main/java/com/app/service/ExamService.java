@@ -1,21 +1,31 @@
 package com.app.service;
 
 import com.app.dto.ExamDTO;
+import com.app.dto.KeysetPage;
 import com.app.entity.Exam;
+import com.app.repository.CourseEnrollmentRepository;
 import com.app.repository.ExamRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ExamService {
 
+    private static final String ENROLLED = "enrolled";
+
     private final ExamRepository examRepository;
+    private final CatalogCache catalogCache;
+    private final ExamAvailabilityIndex availabilityIndex;
+    private final CourseEnrollmentRepository enrollmentRepository;
 
     // CREATE
     public ExamDTO createExam(ExamDTO examDTO) {
@@ -24,13 +34,15 @@ public class ExamService {
         }
         Exam exam = convertToEntity(examDTO);
         Exam savedExam = examRepository.save(exam);
-        return convertToDTO(savedExam);
+        catalogCache.examChanged(savedExam.getId(), savedExam.getCourseId());
+        ExamDTO created = convertToDTO(savedExam);
+        availabilityIndex.examChanged(created);
+        return created;
     }
 
-    // READ - Get by ID
+    // READ - Get by ID, cached (the repository query runs in its own read-only transaction on a miss)
     public Optional<ExamDTO> getExamById(String id) {
-        return examRepository.findById(id)
-                .map(this::convertToDTO);
+        return catalogCache.getExam(id, () -> examRepository.findDtoById(id));
     }
 
     // READ - Get exams by course code
@@ -41,34 +53,50 @@ public class ExamService {
     //             .collect(Collectors.toList());
     // }
 
-    // READ - Get all exams
-    public List<ExamDTO> getAllExams() {
-        return examRepository.findAll()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get all exams, one page in id order after afterId ("" for the first page)
+    @Transactional(readOnly = true)
+    public KeysetPage<ExamDTO> getAllExams(String afterId, int limit) {
+        return KeysetPage.of(examRepository.findDtoPage(afterId, KeysetPage.request(limit)), limit, ExamDTO::getId);
+    }
+
+    // READ - Get exams by course, one page in id order, cached
+    public KeysetPage<ExamDTO> getExamsByCourse(String courseId, String afterId, int limit) {
+        return catalogCache.getExamPage(courseId, afterId, limit, () -> KeysetPage.of(
+                examRepository.findDtoPageByCourseId(courseId, afterId, KeysetPage.request(limit)), limit, ExamDTO::getId));
     }
 
-    // READ - Get exams by course
-    public List<ExamDTO> getExamsByCourse(String courseId) {
-        return examRepository.findByCourseId(courseId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get exams by professor, one page in id order
+    @Transactional(readOnly = true)
+    public KeysetPage<ExamDTO> getExamsByProfessor(String professorId, String afterId, int limit) {
+        return KeysetPage.of(examRepository.findDtoPageByProfessorId(professorId, afterId, KeysetPage.request(limit)),
+                limit, ExamDTO::getId);
+    }
+
+    // READ - Exams of the courses open at the instant, closing soonest first; from memory once the
+    // availability index is loaded, until then from the exams_course_window index
+    public List<ExamDTO> getOpenExams(Collection<String> courseIds, LocalDateTime at) {
+        if (courseIds.isEmpty()) {
+            return List.of();
+        }
+        List<ExamDTO> open = availabilityIndex.findOpen(courseIds, at);
+        if (open != null) {
+            return open;
+        }
+        List<ExamDTO> found = new ArrayList<>(examRepository.findDtoOpenByCourseIds(courseIds, at));
+        found.sort(ExamAvailabilityIndex.CLOSING_FIRST);
+        return found;
     }
 
-    // READ - Get exams by professor
-    public List<ExamDTO> getExamsByProfessor(String professorId) {
-        return examRepository.findByProfessorId(professorId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Exams open at the instant in the courses the student is enrolled in
+    public List<ExamDTO> getOpenExamsForStudent(String studentId, LocalDateTime at) {
+        return getOpenExams(enrollmentRepository.findCourseIdsByStudentIdAndStatus(studentId, ENROLLED), at);
     }
 
     // UPDATE
     public Optional<ExamDTO> updateExam(String id, ExamDTO examDTO) {
         return examRepository.findById(id)
                 .map(exam -> {
+                    String oldCourseId = exam.getCourseId();
                     if (examDTO.getCourseId() != null) exam.setCourseId(examDTO.getCourseId());
                     if (examDTO.getTitle() != null) exam.setTitle(examDTO.getTitle());
                     if (examDTO.getDescription() != null) exam.setDescription(examDTO.getDescription());
@@ -79,14 +107,20 @@ public class ExamService {
                     if (examDTO.getEndAvailableAt() != null) exam.setEndAvailableAt(examDTO.getEndAvailableAt());
                     if (examDTO.getRecordingRequired() != null) exam.setRecordingRequired(examDTO.getRecordingRequired());
                     Exam updatedExam = examRepository.save(exam);
-                    return convertToDTO(updatedExam);
+                    catalogCache.examChanged(id, oldCourseId, updatedExam.getCourseId());
+                    ExamDTO updated = convertToDTO(updatedExam);
+                    availabilityIndex.examChanged(updated);
+                    return updated;
                 });
     }
 
     // DELETE
     public boolean deleteExam(String id) {
-        if (examRepository.existsById(id)) {
+        Optional<Exam> exam = examRepository.findById(id);
+        if (exam.isPresent()) {
             examRepository.deleteById(id);
+            catalogCache.examChanged(id, exam.get().getCourseId());
+            availabilityIndex.examRemoved(id);
             return true;
         }
         return false;
@@ -0,0 +1,181 @@
+package com.app.service;
+
+import com.app.entity.CourseEnrollment;
+import com.app.entity.Exam;
+import com.app.entity.User;
+import com.app.repository.CourseEnrollmentRepository;
+import com.app.repository.ExamRepository;
+import com.app.repository.UserRepository;
+import com.app.util.CSVWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Full-table exports of users, enrollments and exams, written while they are read.
+ * Rows come from a forward-only database cursor (the repositories' stream* queries),
+ * each entity is written and detached before the next one is read, so memory use does
+ * not grow with the table. Password hashes are never exported.
+ */
+@Service
+public class ExportService {
+
+    private static final Map<String, Function<User, Object>> USER_COLUMNS = new LinkedHashMap<>();
+    private static final Map<String, Function<CourseEnrollment, Object>> ENROLLMENT_COLUMNS = new LinkedHashMap<>();
+    private static final Map<String, Function<Exam, Object>> EXAM_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        USER_COLUMNS.put("id", User::getId);
+        USER_COLUMNS.put("name", User::getName);
+        USER_COLUMNS.put("email", User::getEmail);
+        USER_COLUMNS.put("role", User::getRole);
+        USER_COLUMNS.put("status", User::getStatus);
+        USER_COLUMNS.put("createdAt", User::getCreatedAt);
+        USER_COLUMNS.put("lastLoginAt", User::getLastLoginAt);
+
+        ENROLLMENT_COLUMNS.put("id", CourseEnrollment::getId);
+        ENROLLMENT_COLUMNS.put("courseId", CourseEnrollment::getCourseId);
+        ENROLLMENT_COLUMNS.put("studentId", CourseEnrollment::getStudentId);
+        ENROLLMENT_COLUMNS.put("enrolledAt", CourseEnrollment::getEnrolledAt);
+        ENROLLMENT_COLUMNS.put("status", CourseEnrollment::getStatus);
+
+        EXAM_COLUMNS.put("id", Exam::getId);
+        EXAM_COLUMNS.put("courseId", Exam::getCourseId);
+        EXAM_COLUMNS.put("title", Exam::getTitle);
+        EXAM_COLUMNS.put("description", Exam::getDescription);
+        EXAM_COLUMNS.put("professorId", Exam::getProfessorId);
+        EXAM_COLUMNS.put("examFileUrl", Exam::getExamFileUrl);
+        EXAM_COLUMNS.put("durationMinutes", Exam::getDurationMinutes);
+        EXAM_COLUMNS.put("startAvailableAt", Exam::getStartAvailableAt);
+        EXAM_COLUMNS.put("endAvailableAt", Exam::getEndAvailableAt);
+        EXAM_COLUMNS.put("recordingRequired", Exam::getRecordingRequired);
+        EXAM_COLUMNS.put("createdAt", Exam::getCreatedAt);
+    }
+
+    private final UserRepository userRepository;
+    private final CourseEnrollmentRepository enrollmentRepository;
+    private final ExamRepository examRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ExportService(UserRepository userRepository,
+                         CourseEnrollmentRepository enrollmentRepository,
+                         ExamRepository examRepository,
+                         EntityManager entityManager,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.examRepository = examRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // The cursor stays open for the whole export, which needs a transaction around it
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // READ (export) - All users, without password hashes
+    public void exportUsers(Format format, OutputStream output) throws IOException {
+        export(userRepository::streamAll, USER_COLUMNS, format, output);
+    }
+
+    // READ (export) - All enrollments
+    public void exportEnrollments(Format format, OutputStream output) throws IOException {
+        export(enrollmentRepository::streamAll, ENROLLMENT_COLUMNS, format, output);
+    }
+
+    // READ (export) - All exams
+    public void exportExams(Format format, OutputStream output) throws IOException {
+        export(examRepository::streamAll, EXAM_COLUMNS, format, output);
+    }
+
+    private <E> void export(Supplier<Stream<E>> query, Map<String, Function<E, Object>> columns,
+                            Format format, OutputStream output) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<E> rows = query.get()) {
+                    if (format == Format.CSV) {
+                        writeCsv(rows.iterator(), columns, output);
+                    } else {
+                        writeJson(rows.iterator(), columns, output);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <E> void writeJson(Iterator<E> rows, Map<String, Function<E, Object>> columns, OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        // The servlet container owns the response stream
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        while (rows.hasNext()) {
+            E row = rows.next();
+            generator.writeStartObject();
+            for (Map.Entry<String, Function<E, Object>> column : columns.entrySet()) {
+                generator.writeFieldName(column.getKey());
+                writeJsonValue(generator, column.getValue().apply(row));
+            }
+            generator.writeEndObject();
+            entityManager.detach(row);
+        }
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    // Dates as ISO-8601 text, the format the REST endpoints use
+    private static void writeJsonValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Integer number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Boolean flag) {
+            generator.writeBoolean(flag);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    private <E> void writeCsv(Iterator<E> rows, Map<String, Function<E, Object>> columns, OutputStream output) throws IOException {
+        CSVWriter csv = new CSVWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        for (String name : columns.keySet()) {
+            csv.field(name);
+        }
+        csv.endRecord();
+        while (rows.hasNext()) {
+            E row = rows.next();
+            for (Function<E, Object> column : columns.values()) {
+                csv.field(column.apply(row));
+            }
+            csv.endRecord();
+            entityManager.detach(row);
+        }
+        csv.flush();
+    }
+
+    public enum Format {
+        JSON,
+        CSV
+    }
+}
@@ -0,0 +1,152 @@
+package com.app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory structure loaded from the database, shared by the in-memory indexes.
+ * Writes made through the application are applied to it once their transaction commits, and it
+ * is rebuilt (or caught up some cheaper way) in the background at a fixed interval to pick up
+ * writes made elsewhere. Until the
+ * first load completes, get() returns null and callers are expected to query the database.
+ * Changes are applied under this object's lock; reads take the current snapshot without one.
+ */
+final class RefreshingSnapshot<S> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshingSnapshot.class);
+
+    private final String name;
+    private final Supplier<S> loader;
+    private final Function<S, String> summary;
+    private final ScheduledExecutorService refresher;
+
+    private volatile S snapshot;
+    // Changes made while a reload is reading the database, replayed on the new snapshot; guarded by this
+    private List<Consumer<S>> pending;
+
+    /**
+     * @param name    used in thread names and log lines, e.g. "user search index"
+     * @param loader  reads a complete snapshot from the database
+     * @param summary describes a loaded snapshot for the log, e.g. "120 users"
+     */
+    RefreshingSnapshot(String name, Supplier<S> loader, Function<S, String> summary) {
+        this.name = name;
+        this.loader = loader;
+        this.summary = summary;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name.replace(' ', '-') + "-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load in the background now, then reload every interval (at least one second)
+     */
+    void start(Duration interval) {
+        start(interval, this::reload);
+    }
+
+    /**
+     * Run refresh in the background now, then every interval (at least one second); for a
+     * snapshot that catches up with the database without reading all of it
+     */
+    void start(Duration interval, Runnable refresh) {
+        long millis = Math.max(1000, interval.toMillis());
+        refresher.scheduleWithFixedDelay(() -> refreshQuietly(refresh), 0, millis, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * The current snapshot, or null before the first load
+     */
+    S get() {
+        return snapshot;
+    }
+
+    /**
+     * Read a new snapshot from the database and swap it in, with the changes made meanwhile replayed on it
+     */
+    S reload() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        S loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            pending.forEach(change -> change.accept(loaded));
+            pending = null;
+            snapshot = loaded;
+        }
+        logger.info("Loaded {}: {} in {} ms", name, summary.apply(loaded),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return loaded;
+    }
+
+    /**
+     * Apply a change to the current snapshot, and to the one being loaded if a reload is running
+     */
+    synchronized void apply(Consumer<S> change) {
+        if (snapshot != null) {
+            change.accept(snapshot);
+        }
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    /**
+     * Apply a change once the current transaction commits, at once outside one
+     */
+    void applyAfterCommit(Consumer<S> change) {
+        afterCommit(() -> apply(change));
+    }
+
+    /**
+     * Run once the current transaction commits, at once outside one; nothing runs on rollback
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void refreshQuietly(Runnable refresh) {
+        try {
+            refresh.run();
+        } catch (RuntimeException e) {
+            // Keep answering from the previous snapshot
+            logger.warn("Could not refresh the {}: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.app.service;
+
+import com.app.config.UserSearchProperties;
+import com.app.dto.UserSummaryDTO;
+import com.app.util.InvertedIndex;
+import com.app.util.PrefixIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Autocomplete over user names and emails: every query word must start a word of the user's
+ * name or email, or a query containing "@" must start the email. Accents and case are ignored.
+ * Users are held as UserSummaryDTO in a PrefixIndex (sorted token arrays), so the password hash
+ * never enters the index.
+ * Kept current by a RefreshingSnapshot: writes through UserService, and a rebuild every
+ * user.search.refresh-interval.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final String LOAD_SQL = "SELECT id, name, email, role, status FROM users";
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserSearchProperties properties;
+    private final Counter indexSearches;
+    private final Counter fallbacks;
+    private final RefreshingSnapshot<PrefixIndex<String, UserSummaryDTO>> index;
+
+    public UserSearchIndex(JdbcTemplate jdbcTemplate, UserSearchProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.indexSearches = searchCounter(meterRegistry, "index");
+        this.fallbacks = searchCounter(meterRegistry, "fallback");
+        this.index = new RefreshingSnapshot<>("user search index", this::load, loaded -> loaded.size() + " users");
+        Gauge.builder("user.search.users", index, users -> users.get() != null ? users.get().size() : 0)
+                .description("Users held by the autocomplete index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load the index in the background once the application is up, then rebuild it periodically
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        index.start(properties.getRefreshInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        index.stop();
+    }
+
+    /**
+     * Up to limit users matching the query, with the role and status when given (null for any),
+     * or null when the index is not loaded
+     */
+    public List<UserSummaryDTO> search(String query, String role, String status, int limit) {
+        PrefixIndex<String, UserSummaryDTO> current = index.get();
+        if (current == null || !properties.isEnabled()) {
+            fallbacks.increment();
+            return null;
+        }
+        indexSearches.increment();
+        return current.search(queryTokens(query),
+                user -> (role == null || role.equalsIgnoreCase(user.getRole()))
+                        && (status == null || status.equalsIgnoreCase(user.getStatus())),
+                limit);
+    }
+
+    /**
+     * Index created or updated users, applied when the current transaction commits
+     */
+    public void usersChanged(Collection<UserSummaryDTO> users) {
+        List<UserSummaryDTO> changed = List.copyOf(users);
+        index.applyAfterCommit(current -> {
+            if (changed.size() == 1) {
+                current.put(changed.get(0));
+            } else {
+                current.putAll(changed);
+            }
+        });
+    }
+
+    /**
+     * Drop a deleted user, applied when the current transaction commits
+     */
+    public void userRemoved(String userId) {
+        index.applyAfterCommit(current -> current.remove(userId));
+    }
+
+    /**
+     * Rebuild the index from the database and swap it in
+     */
+    public void reload() {
+        index.reload();
+    }
+
+    // Tokens of a query; a query with "@" is matched against whole emails
+    static List<String> queryTokens(String query) {
+        String trimmed = query.trim();
+        if (trimmed.contains("@")) {
+            return List.of(UserService.emailKey(trimmed));
+        }
+        return InvertedIndex.tokenize(trimmed);
+    }
+
+    // The words of the name, the words of the email's local part, and the whole email
+    static List<String> tokens(UserSummaryDTO user) {
+        List<String> tokens = new ArrayList<>(InvertedIndex.tokenize(user.getName()));
+        String email = user.getEmail();
+        if (email != null) {
+            int at = email.indexOf('@');
+            tokens.addAll(InvertedIndex.tokenize(at >= 0 ? email.substring(0, at) : email));
+            tokens.add(email.toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+
+    private PrefixIndex<String, UserSummaryDTO> load() {
+        List<UserSummaryDTO> users = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            users.add(new UserSummaryDTO(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)));
+        });
+        PrefixIndex<String, UserSummaryDTO> loaded = new PrefixIndex<>(UserSummaryDTO::getId, UserSearchIndex::tokens);
+        loaded.putAll(users);
+        return loaded;
+    }
+
+    private static Counter searchCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("user.search.queries")
+                .description("User autocomplete lookups by where they were answered; fallback means the database was queried")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -1,21 +1,31 @@
 package com.app.service;
 
+import com.app.dto.KeysetPage;
 import com.app.dto.UserDTO;
+import com.app.dto.UserSummaryDTO;
 import com.app.entity.User;
 import com.app.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserSearchIndex searchIndex;
 
     // CREATE
     public UserDTO createUser(UserDTO userDTO) {
@@ -24,6 +34,7 @@ public class UserService {
         }
         User user = convertToEntity(userDTO);
         User savedUser = userRepository.save(user);
+        searchIndex.usersChanged(List.of(summarize(savedUser)));
         return convertToDTO(savedUser);
     }
 
@@ -46,40 +57,102 @@ public class UserService {
         }
     }
 
+    // UPSERT (bulk) - Resolve many emails with one lookup, create the missing students in one batch
+    // Returns users keyed by emailKey(email)
+    public Map<String, UserDTO> upsertUsers(Map<String, String> namesByEmail) {
+        Map<String, UserDTO> usersByEmail = findUsersByEmails(namesByEmail.keySet());
+        if (namesByEmail.isEmpty()) {
+            return usersByEmail;
+        }
+
+        List<User> newUsers = new ArrayList<>();
+        namesByEmail.forEach((email, name) -> {
+            String key = emailKey(email);
+            if (!usersByEmail.containsKey(key)) {
+                User user = new User();
+                user.setId(UUID.randomUUID().toString());
+                user.setName(name);
+                user.setEmail(email);
+                user.setRole("student");
+                user.setStatus("active");
+                user.setCreatedAt(LocalDateTime.now());
+                newUsers.add(user);
+                usersByEmail.put(key, convertToDTO(user));
+            }
+        });
+
+        userRepository.batchInsert(newUsers);
+        if (!newUsers.isEmpty()) {
+            searchIndex.usersChanged(newUsers.stream().map(UserService::summarize).toList());
+        }
+        return usersByEmail;
+    }
+
+    // CREATE (bulk) - Index users inserted by set-based SQL outside this service, e.g. a bulk enrollment load
+    // Applied to the search index when the current transaction commits
+    public void usersCreated(List<UserSummaryDTO> users) {
+        if (!users.isEmpty()) {
+            searchIndex.usersChanged(users);
+        }
+    }
+
+    // READ (bulk) - Existing users for many emails in one lookup, keyed by emailKey(email)
+    public Map<String, UserDTO> findUsersByEmails(Collection<String> emails) {
+        Map<String, UserDTO> usersByEmail = new HashMap<>();
+        if (emails.isEmpty()) {
+            return usersByEmail;
+        }
+        for (User user : userRepository.findByEmailIn(emails)) {
+            usersByEmail.put(emailKey(user.getEmail()), convertToDTO(user));
+        }
+        return usersByEmail;
+    }
+
+    // Emails are matched case-insensitively, as the users.email collation does
+    public static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    // READ - Autocomplete on name and email, optionally of one role and status; from memory once the
+    // search index is loaded, until then a prefix match on the whole name or email in the database
+    public List<UserSummaryDTO> searchUsers(String query, String role, String status, int limit) {
+        List<UserSummaryDTO> found = searchIndex.search(query, role, status, limit);
+        if (found != null) {
+            return found;
+        }
+        String prefix = query.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        return userRepository.findSummariesByPrefix(prefix, role, status, PageRequest.of(0, limit));
+    }
+
     // READ - Get by ID
+    @Transactional(readOnly = true)
     public Optional<UserDTO> getUserById(String id) {
-        return userRepository.findById(id)
-                .map(this::convertToDTO);
+        return userRepository.findDtoById(id);
     }
 
-    // READ - Get all users
-    public List<UserDTO> getAllUsers() {
-        return userRepository.findAll()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get all users, one page in id order after afterId ("" for the first page)
+    @Transactional(readOnly = true)
+    public KeysetPage<UserDTO> getAllUsers(String afterId, int limit) {
+        return KeysetPage.of(userRepository.findDtoPage(afterId, KeysetPage.request(limit)), limit, UserDTO::getId);
     }
 
     // READ - Get by email
+    @Transactional(readOnly = true)
     public Optional<UserDTO> getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .map(this::convertToDTO);
+        return userRepository.findDtoByEmail(email);
     }
 
-    // READ - Get by role
-    public List<UserDTO> getUsersByRole(String role) {
-        return userRepository.findByRole(role)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get by role, one page in id order
+    @Transactional(readOnly = true)
+    public KeysetPage<UserDTO> getUsersByRole(String role, String afterId, int limit) {
+        return KeysetPage.of(userRepository.findDtoPageByRole(role, afterId, KeysetPage.request(limit)), limit, UserDTO::getId);
     }
 
-    // READ - Get by status
-    public List<UserDTO> getUsersByStatus(String status) {
-        return userRepository.findByStatus(status)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get by status, one page in id order
+    @Transactional(readOnly = true)
+    public KeysetPage<UserDTO> getUsersByStatus(String status, String afterId, int limit) {
+        return KeysetPage.of(userRepository.findDtoPageByStatus(status, afterId, KeysetPage.request(limit)), limit, UserDTO::getId);
     }
 
     // UPDATE
@@ -93,6 +166,7 @@ public class UserService {
                     if (userDTO.getStatus() != null) user.setStatus(userDTO.getStatus());
                     if (userDTO.getLastLoginAt() != null) user.setLastLoginAt(userDTO.getLastLoginAt());
                     User updatedUser = userRepository.save(user);
+                    searchIndex.usersChanged(List.of(summarize(updatedUser)));
                     return convertToDTO(updatedUser);
                 });
     }
@@ -101,12 +175,17 @@ public class UserService {
     public boolean deleteUser(String id) {
         if (userRepository.existsById(id)) {
             userRepository.deleteById(id);
+            searchIndex.userRemoved(id);
             return true;
         }
         return false;
     }
 
     // Helper methods
+    private static UserSummaryDTO summarize(User user) {
+        return new UserSummaryDTO(user.getId(), user.getName(), user.getEmail(), user.getRole(), user.getStatus());
+    }
+
     private UserDTO convertToDTO(User user) {
         return new UserDTO(
                 user.getId(),
@@ -1,5 +1,7 @@
 package com.app.util;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,46 +13,19 @@ public class CSVParser {
      */
     public static List<String[]> parseCSV(String csvContent) {
         List<String[]> records = new ArrayList<>();
-        String[] lines = csvContent.split("\n");
 
-        for (String line : lines) {
-            if (line.trim().isEmpty()) {
-                continue;
+        try (CSVRowReader reader = new CSVRowReader(new StringReader(csvContent))) {
+            String[] fields;
+            while ((fields = reader.readRow()) != null) {
+                records.add(fields);
             }
-            String[] fields = parseCSVLine(line);
-            records.add(fields);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed CSV: " + e.getMessage(), e);
         }
 
         return records;
     }
 
-    /**
-     * Parse a single CSV line handling quoted fields
-     */
-    private static String[] parseCSVLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
-        boolean insideQuotes = false;
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-
-            if (c == '"') {
-                insideQuotes = !insideQuotes;
-            } else if (c == ',' && !insideQuotes) {
-                fields.add(currentField.toString().trim());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
-            }
-        }
-
-        // Add the last field
-        fields.add(currentField.toString().trim());
-
-        return fields.toArray(new String[0]);
-    }
-
     /**
      * Extract student data from parsed CSV
      */
@@ -60,26 +35,62 @@ public class CSVParser {
         List<StudentData> students = new ArrayList<>();
 
         for (String[] record : records) {
-            if (record.length <= Math.max(nameColumnIndex, emailColumnIndex)) {
-                continue; // Skip records with insufficient columns
+            StudentData student = extractStudent(record, nameColumnIndex, emailColumnIndex);
+            if (student != null) {
+                students.add(student);
             }
+        }
 
-            String name = record[nameColumnIndex].trim();
-            String email = record[emailColumnIndex].trim();
+        return students;
+    }
 
-            if (!name.isEmpty() && !email.isEmpty() && isValidEmail(email)) {
-                students.add(new StudentData(name, email));
-            }
+    /**
+     * Extract student data from a single parsed record
+     * Returns null if the record has insufficient columns, empty fields or an invalid email
+     */
+    public static StudentData extractStudent(String[] record, int nameColumnIndex, int emailColumnIndex) {
+        if (record.length <= Math.max(nameColumnIndex, emailColumnIndex)) {
+            return null; // Skip records with insufficient columns
         }
 
-        return students;
+        // Unquoted fields are already trimmed by CSVRowReader, trim() then returns the same String
+        String name = record[nameColumnIndex].trim();
+        String email = record[emailColumnIndex].trim();
+
+        if (!name.isEmpty() && !email.isEmpty() && isValidEmail(email)) {
+            return new StudentData(name, email);
+        }
+        return null;
     }
 
     /**
-     * Basic email validation
+     * Basic email validation, same rule as the pattern ^[A-Za-z0-9+_.-]+@(.+)$
+     * Hand-written so that checking a row neither compiles a Pattern nor allocates a Matcher
      */
-    private static boolean isValidEmail(String email) {
-        return email.matches("^[A-Za-z0-9+_.-]+@(.+)$");
+    static boolean isValidEmail(String email) {
+        int at = 0;
+        while (at < email.length() && isLocalPartChar(email.charAt(at))) {
+            at++;
+        }
+        if (at == 0 || at >= email.length() - 1 || email.charAt(at) != '@') {
+            return false;
+        }
+        for (int i = at + 1; i < email.length(); i++) {
+            if (isLineTerminator(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '+' || c == '_' || c == '.' || c == '-';
+    }
+
+    // Characters the pattern's "." does not match
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
 
     /**
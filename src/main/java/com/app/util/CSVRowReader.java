@@ -0,0 +1,223 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental RFC-4180 CSV reader.
+ * Pulls one record at a time from the underlying Reader so that only the
+ * current record is held in memory, whatever the size of the upload.
+ * Supports quoted fields containing commas, line breaks and escaped ("") quotes.
+ * Input is read in blocks into a reusable char buffer and each field is accumulated in a
+ * reusable char array, so the only allocations per record are the field Strings themselves.
+ */
+public class CSVRowReader implements RowReader {
+
+    /**
+     * Upper bound on a single record, protects against an unterminated quote
+     * swallowing the rest of the file into one field
+     */
+    public static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private static final int EOF = -1;
+    private static final char BOM = '\uFEFF';
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private char[] field = new char[128];
+    private int fieldLength = 0;
+    private final List<String> fields = new ArrayList<>();
+
+    private int pending = EOF;
+    private boolean hasPending = false;
+    private boolean started = false;
+    private long lineNumber = 1;
+    private long recordLineNumber = 0;
+
+    public CSVRowReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the next non-blank record.
+     * Returns null once the input is exhausted.
+     */
+    @Override
+    public String[] readRow() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                return null;
+            }
+            unread(c);
+            recordLineNumber = lineNumber;
+            String[] record = readRecord();
+            if (!isBlank(record)) {
+                return record;
+            }
+        }
+    }
+
+    /**
+     * 1-based line number on which the record last returned by readRow() started
+     */
+    @Override
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String[] readRecord() throws IOException {
+        fields.clear();
+        fieldLength = 0;
+        boolean insideQuotes = false;
+        boolean quoted = false;
+        int recordLength = 0;
+
+        while (true) {
+            int c = read();
+            if (++recordLength > MAX_RECORD_LENGTH) {
+                throw new IOException("CSV record starting on line " + recordLineNumber
+                        + " exceeds " + MAX_RECORD_LENGTH + " characters");
+            }
+
+            if (insideQuotes) {
+                if (c == EOF) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLineNumber);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        append('"');
+                    } else {
+                        insideQuotes = false;
+                        unread(next);
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    append((char) c);
+                }
+                continue;
+            }
+
+            if (c == EOF || c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                if (c != EOF) {
+                    lineNumber++;
+                }
+                fields.add(fieldValue(quoted));
+                return fields.toArray(new String[fields.size()]);
+            }
+
+            if (c == ',') {
+                fields.add(fieldValue(quoted));
+                fieldLength = 0;
+                quoted = false;
+            } else if (c == '"' && !quoted && isFieldBlank()) {
+                // Opening quote, leading whitespace before it is not part of the value
+                fieldLength = 0;
+                insideQuotes = true;
+                quoted = true;
+            } else if (quoted) {
+                // Lenient: ignore whitespace between a closing quote and the delimiter
+                if (!Character.isWhitespace(c)) {
+                    append((char) c);
+                }
+            } else {
+                append((char) c);
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (hasPending) {
+            hasPending = false;
+            return pending;
+        }
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        if (!started && limit > 0) {
+            started = true;
+            if (buffer[0] == BOM) {
+                position = 1;
+                return limit > 1 || fill();
+            }
+        }
+        return limit > 0;
+    }
+
+    private void append(char c) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = c;
+    }
+
+    /**
+     * The accumulated field as a String, copied once; unquoted fields are trimmed as String.trim() would
+     */
+    private String fieldValue(boolean quoted) {
+        int start = 0;
+        int end = fieldLength;
+        if (!quoted) {
+            while (start < end && field[start] <= ' ') {
+                start++;
+            }
+            while (end > start && field[end - 1] <= ' ') {
+                end--;
+            }
+        }
+        return start == end ? "" : new String(field, start, end - start);
+    }
+
+    private void unread(int c) {
+        pending = c;
+        hasPending = true;
+    }
+
+    private boolean isFieldBlank() {
+        for (int i = 0; i < fieldLength; i++) {
+            if (!Character.isWhitespace(field[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(String[] record) {
+        for (String value : record) {
+            if (!value.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
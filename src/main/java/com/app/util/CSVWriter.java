@@ -0,0 +1,75 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes CSV records, quoting fields as CSVRowReader reads them back:
+ * a field with a comma, quote or line break is quoted and its quotes doubled.
+ */
+public class CSVWriter {
+
+    private final Writer writer;
+    private boolean firstField = true;
+
+    public CSVWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Append a field to the current record, null written as an empty field
+     */
+    public CSVWriter field(Object value) throws IOException {
+        if (!firstField) {
+            writer.write(',');
+        }
+        firstField = false;
+        if (value == null) {
+            return this;
+        }
+        String text = value.toString();
+        if (!needsQuotes(text)) {
+            writer.write(text);
+            return this;
+        }
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+        return this;
+    }
+
+    /**
+     * End the current record with CRLF, as RFC 4180 has it
+     */
+    public void endRecord() throws IOException {
+        writer.write("\r\n");
+        firstField = true;
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    // Leading or trailing spaces are quoted too, the reader trims unquoted fields
+    private static boolean needsQuotes(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        if (text.charAt(0) <= ' ' || text.charAt(text.length() - 1) <= ' ') {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,294 @@
+package com.app.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from terms to weighted documents, matching query terms exactly, as a prefix of
+ * an indexed term, or within one typo (a letter inserted, deleted, replaced, or two swapped).
+ * Terms are kept in a sorted map, so a prefix is a range scan. Typos are found through every
+ * term's one-letter deletions (a term and a query within one edit share a deletion), so a
+ * lookup never scans the dictionary.
+ * Documents are numbered; a term's postings are a sorted long[] of (number, weight), replaced
+ * on write and never modified, and a search scores into flat arrays indexed by number.
+ * Numbers are not reused, so rebuild the index from scratch now and then when documents churn.
+ * Writes are serialized; search() takes no lock and may see a document half replaced.
+ */
+public class InvertedIndex {
+
+    public static final int MAX_WEIGHT = 255;
+
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.6;
+    private static final double TYPO = 0.4;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_TYPO_LENGTH = 4;
+    // Bounds the work of a short prefix such as "a"
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final long[] NO_POSTINGS = new long[0];
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern LETTER_DIGIT_BOUNDARY = Pattern.compile("(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})");
+
+    // term -> (document number << 8 | weight), sorted by document number
+    private final ConcurrentSkipListMap<String, long[]> postings = new ConcurrentSkipListMap<>();
+    // term or one-letter deletion of a term -> terms
+    private final Map<String, Set<String>> variants = new ConcurrentHashMap<>();
+    // document id -> its number and terms, to take it out again; guarded by this
+    private final Map<String, Document> documents = new HashMap<>();
+    // By document number; null once removed. Elements are written before the array is republished.
+    private volatile String[] ids = new String[64];
+    private volatile String[] sortKeys = new String[64];
+    private int nextNumber = 0;
+
+    /**
+     * Lower-cased terms of a text, accents removed ("Lập trình" gives "lap", "trinh"); a term mixing
+     * letters and digits also gives its parts ("CS101" gives "cs101", "cs", "101")
+     */
+    public static List<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return new ArrayList<>();
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .replace('đ', 'd').replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        for (String term : SEPARATORS.split(normalized)) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            terms.add(term);
+            String[] parts = LETTER_DIGIT_BOUNDARY.split(term);
+            if (parts.length > 1) {
+                terms.addAll(List.of(parts));
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * Add a document, or replace it, with the weight (1 to MAX_WEIGHT) of each of its terms.
+     * Documents scoring the same are ranked by sortKey.
+     */
+    public synchronized void put(String documentId, String sortKey, Map<String, Integer> termWeights) {
+        remove(documentId);
+        int number = nextNumber++;
+        if (number == ids.length) {
+            ids = Arrays.copyOf(ids, number * 2);
+            sortKeys = Arrays.copyOf(sortKeys, number * 2);
+        }
+        String[] currentIds = ids;
+        String[] currentSortKeys = sortKeys;
+        currentIds[number] = documentId;
+        currentSortKeys[number] = sortKey;
+        sortKeys = currentSortKeys;
+        ids = currentIds;
+
+        Map<String, Integer> terms = Map.copyOf(termWeights);
+        documents.put(documentId, new Document(number, terms));
+        terms.forEach((term, weight) -> {
+            long[] current = postings.get(term);
+            if (current == null) {
+                current = NO_POSTINGS;
+                for (String variant : variantsOf(term)) {
+                    variants.computeIfAbsent(variant, v -> ConcurrentHashMap.newKeySet()).add(term);
+                }
+            }
+            // The newest document has the largest number, so it goes last
+            long[] added = Arrays.copyOf(current, current.length + 1);
+            added[current.length] = (long) number << 8 | Math.max(1, Math.min(weight, MAX_WEIGHT));
+            postings.put(term, added);
+        });
+    }
+
+    public synchronized void remove(String documentId) {
+        Document document = documents.remove(documentId);
+        if (document == null) {
+            return;
+        }
+        String[] currentIds = ids;
+        currentIds[document.number] = null;
+        ids = currentIds;
+
+        for (String term : document.terms.keySet()) {
+            long[] current = postings.get(term);
+            if (current.length == 1) {
+                postings.remove(term);
+                for (String variant : variantsOf(term)) {
+                    Set<String> termsOfVariant = variants.get(variant);
+                    termsOfVariant.remove(term);
+                    if (termsOfVariant.isEmpty()) {
+                        variants.remove(variant);
+                    }
+                }
+                continue;
+            }
+            int at = Arrays.binarySearch(current, (long) document.number << 8);
+            at = at >= 0 ? at : -at - 1;
+            long[] removed = new long[current.length - 1];
+            System.arraycopy(current, 0, removed, 0, at);
+            System.arraycopy(current, at + 1, removed, at, current.length - at - 1);
+            postings.put(term, removed);
+        }
+    }
+
+    /**
+     * Ids of up to limit documents matching every query term, best first. A query term scores the
+     * best match among a document's terms, its weight scaled down for a prefix and more for a typo;
+     * a document's score adds up its query terms' scores.
+     */
+    public List<String> search(Collection<String> queryTerms, int limit) {
+        String[] currentIds = ids;
+        String[] currentSortKeys = sortKeys;
+        Scores scores = new Scores(currentIds.length);
+        for (String queryTerm : queryTerms) {
+            scores.round++;
+            boolean any = collect(scores, postings.get(queryTerm), EXACT);
+            if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+                int expanded = 0;
+                for (long[] extension : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).values()) {
+                    if (expanded++ == MAX_PREFIX_TERMS) {
+                        break;
+                    }
+                    any |= collect(scores, extension, PREFIX);
+                }
+            }
+            if (queryTerm.length() >= MIN_TYPO_LENGTH) {
+                Set<String> candidates = new LinkedHashSet<>();
+                for (String variant : variantsOf(queryTerm)) {
+                    candidates.addAll(variants.getOrDefault(variant, Set.of()));
+                }
+                for (String term : candidates) {
+                    if (!term.equals(queryTerm) && withinOneEdit(queryTerm, term)) {
+                        any |= collect(scores, postings.get(term), TYPO);
+                    }
+                }
+            }
+            if (!any) {
+                return new ArrayList<>();
+            }
+        }
+
+        // Keep the best limit documents, the worst of them on top
+        Comparator<Integer> ranking = Comparator.<Integer>comparingDouble(number -> scores.total[number])
+                .thenComparing(number -> currentSortKeys[number], Comparator.nullsFirst(Comparator.reverseOrder()));
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, ranking);
+        for (int number = 0; number < currentIds.length; number++) {
+            if (scores.matched[number] == scores.round && scores.round > 0 && currentIds[number] != null) {
+                best.add(number);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        String[] found = new String[best.size()];
+        for (int i = found.length - 1; i >= 0; i--) {
+            found[i] = currentIds[best.poll()];
+        }
+        return Arrays.asList(found);
+    }
+
+    public synchronized int size() {
+        return documents.size();
+    }
+
+    // Score the documents of one match of the current query term; only documents that matched every
+    // earlier term count. Returns whether any did.
+    private static boolean collect(Scores scores, long[] documentsOfTerm, double factor) {
+        if (documentsOfTerm == null) {
+            return false;
+        }
+        int round = scores.round;
+        boolean any = false;
+        for (long posting : documentsOfTerm) {
+            int number = (int) (posting >>> 8);
+            if (number >= scores.total.length) {
+                continue;
+            }
+            double score = (posting & MAX_WEIGHT) * factor;
+            if (scores.matched[number] == round - 1) {
+                scores.matched[number] = round;
+                scores.before[number] = scores.total[number];
+                scores.total[number] += score;
+                any = true;
+            } else if (scores.matched[number] == round) {
+                scores.total[number] = Math.max(scores.total[number], scores.before[number] + score);
+                any = true;
+            }
+        }
+        return any;
+    }
+
+    // The term and its distinct one-letter deletions; short terms are not matched with typos
+    private static Set<String> variantsOf(String term) {
+        Set<String> variants = new LinkedHashSet<>();
+        variants.add(term);
+        if (term.length() >= MIN_TYPO_LENGTH) {
+            for (int i = 0; i < term.length(); i++) {
+                variants.add(term.substring(0, i) + term.substring(i + 1));
+            }
+        }
+        return variants;
+    }
+
+    // Optimal string alignment distance of at most one
+    static boolean withinOneEdit(String a, String b) {
+        if (Math.abs(a.length() - b.length()) > 1) {
+            return false;
+        }
+        if (a.length() > b.length()) {
+            String longer = a;
+            a = b;
+            b = longer;
+        }
+        int i = 0;
+        while (i < a.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (i == a.length()) {
+            return true;
+        }
+        if (a.length() < b.length()) {
+            return a.regionMatches(i, b, i + 1, a.length() - i);
+        }
+        if (a.regionMatches(i + 1, b, i + 1, a.length() - i - 1)) {
+            return true;
+        }
+        return i + 1 < a.length() && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                && a.regionMatches(i + 2, b, i + 2, a.length() - i - 2);
+    }
+
+    private record Document(int number, Map<String, Integer> terms) {
+    }
+
+    /**
+     * Scores of one search by document number: how many query terms a document matched so far,
+     * its total, and its total before the current term
+     */
+    private static final class Scores {
+        private final int[] matched;
+        private final double[] total;
+        private final double[] before;
+        private int round = 0;
+
+        Scores(int documents) {
+            matched = new int[documents];
+            total = new double[documents];
+            before = new double[documents];
+        }
+    }
+}
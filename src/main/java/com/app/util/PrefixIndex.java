@@ -0,0 +1,266 @@
+package com.app.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Prefix search over the tokens of values, e.g. the words of a user's name and email.
+ * Tokens live in one sorted String[] with a parallel int[] of value numbers, so an entry costs
+ * two array slots and a lookup is a binary search followed by a scan. Values written since the
+ * arrays were built sit in a small sorted map beside them; once it grows past a quarter of the
+ * arrays, everything is rebuilt into new arrays. A replaced or removed value keeps its entries
+ * until then, pointing at an empty slot.
+ * Writes are serialized; search() takes no lock.
+ */
+public class PrefixIndex<K, V> {
+
+    private static final int MIN_COMPACT_ENTRIES = 1024;
+    private static final int[] NO_NUMBERS = new int[0];
+
+    private final Function<V, K> keyOf;
+    private final Function<V, List<String>> tokensOf;
+    // Guarded by this
+    private final Map<K, Integer> numbers = new HashMap<>();
+    private volatile State<V> state = new State<>(new String[0], NO_NUMBERS, new Object[64], 0);
+    private int size = 0;
+
+    /**
+     * Index values by the key keyOf gives (one value per key) and the tokens tokensOf gives,
+     * which must be normalized as queries will be
+     */
+    public PrefixIndex(Function<V, K> keyOf, Function<V, List<String>> tokensOf) {
+        this.keyOf = keyOf;
+        this.tokensOf = tokensOf;
+    }
+
+    /**
+     * Add a value, or replace the value with the same key
+     */
+    public synchronized void put(V value) {
+        int number = store(value);
+        State<V> current = state;
+        int added = 0;
+        for (String token : tokensOf.apply(value)) {
+            current.recent.merge(token, new int[]{number}, PrefixIndex::append);
+            added++;
+        }
+        state = new State<>(current.tokens, current.tokenNumbers, current.values, current.nextNumber, current.recent,
+                current.recentEntries + added);
+        if (state.recentEntries > Math.max(MIN_COMPACT_ENTRIES, current.tokens.length / 4)) {
+            compact();
+        }
+    }
+
+    /**
+     * Put many values, then rebuild the arrays once
+     */
+    public synchronized void putAll(Iterable<V> values) {
+        for (V value : values) {
+            store(value);
+        }
+        compact();
+    }
+
+    public synchronized void remove(K key) {
+        Integer number = numbers.remove(key);
+        if (number != null) {
+            State<V> current = state;
+            current.values[number] = null;
+            state = current;
+            size--;
+        }
+    }
+
+    /**
+     * Up to limit values, in token order, with a token starting with each query token (every query
+     * token must match, each any of the value's tokens) and accepted by the filter
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> search(List<String> queryTokens, Predicate<V> filter, int limit) {
+        List<V> found = new ArrayList<>();
+        if (queryTokens.isEmpty()) {
+            return found;
+        }
+        State<V> current = state;
+        // Scan the longest query token, the fewest entries; check the others on each candidate
+        String scanned = queryTokens.get(0);
+        for (String token : queryTokens) {
+            if (token.length() > scanned.length()) {
+                scanned = token;
+            }
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        int at = lowerBound(current.tokens, scanned);
+        Iterator<Map.Entry<String, int[]>> recent = current.recent
+                .subMap(scanned, true, scanned + Character.MAX_VALUE, false).entrySet().iterator();
+        Map.Entry<String, int[]> nextRecent = recent.hasNext() ? recent.next() : null;
+        while (found.size() < limit) {
+            boolean fromArrays = at < current.tokens.length && current.tokens[at].startsWith(scanned);
+            if (!fromArrays && nextRecent == null) {
+                break;
+            }
+            int[] candidates;
+            if (fromArrays && (nextRecent == null || current.tokens[at].compareTo(nextRecent.getKey()) <= 0)) {
+                candidates = new int[]{current.tokenNumbers[at++]};
+            } else {
+                candidates = nextRecent.getValue();
+                nextRecent = recent.hasNext() ? recent.next() : null;
+            }
+            for (int number : candidates) {
+                if (number >= current.nextNumber || !seen.add(number)) {
+                    continue;
+                }
+                V value = (V) current.values[number];
+                if (value != null && filter.test(value) && matchesAll(value, queryTokens, scanned)) {
+                    found.add(value);
+                    if (found.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Give the value the next number, emptying the slot of the value it replaces; its tokens are not indexed yet
+    private int store(V value) {
+        K key = keyOf.apply(value);
+        State<V> current = state;
+        Integer previous = numbers.put(key, current.nextNumber);
+        if (previous != null) {
+            current.values[previous] = null;
+        } else {
+            size++;
+        }
+        int number = current.nextNumber;
+        Object[] values = number < current.values.length ? current.values : Arrays.copyOf(current.values, number * 2);
+        values[number] = value;
+        state = new State<>(current.tokens, current.tokenNumbers, values, number + 1, current.recent, current.recentEntries);
+        return number;
+    }
+
+    private boolean matchesAll(V value, List<String> queryTokens, String scanned) {
+        if (queryTokens.size() == 1) {
+            return true;
+        }
+        List<String> tokens = tokensOf.apply(value);
+        for (String queryToken : queryTokens) {
+            if (queryToken.equals(scanned)) {
+                continue;
+            }
+            boolean matched = false;
+            for (String token : tokens) {
+                if (token.startsWith(queryToken)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Rebuild the sorted arrays from the live values, numbering them afresh
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        State<V> current = state;
+        Object[] values = new Object[Math.max(64, size * 2)];
+        List<String> tokens = new ArrayList<>();
+        List<Integer> tokenNumbers = new ArrayList<>();
+        Map<String, String> shared = new HashMap<>();
+        int next = 0;
+        numbers.clear();
+        for (int number = 0; number < current.nextNumber; number++) {
+            V value = (V) current.values[number];
+            if (value == null) {
+                continue;
+            }
+            values[next] = value;
+            numbers.put(keyOf.apply(value), next);
+            for (String token : tokensOf.apply(value)) {
+                tokens.add(shared.computeIfAbsent(token, t -> t));
+                tokenNumbers.add(next);
+            }
+            next++;
+        }
+
+        Integer[] order = new Integer[tokens.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byToken = tokens.get(a).compareTo(tokens.get(b));
+            return byToken != 0 ? byToken : Integer.compare(tokenNumbers.get(a), tokenNumbers.get(b));
+        });
+        String[] sortedTokens = new String[order.length];
+        int[] sortedNumbers = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedTokens[i] = tokens.get(order[i]);
+            sortedNumbers[i] = tokenNumbers.get(order[i]);
+        }
+        state = new State<>(sortedTokens, sortedNumbers, values, next);
+    }
+
+    private static int lowerBound(String[] tokens, String prefix) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int[] append(int[] numbers, int[] added) {
+        int[] appended = Arrays.copyOf(numbers, numbers.length + added.length);
+        System.arraycopy(added, 0, appended, numbers.length, added.length);
+        return appended;
+    }
+
+    /**
+     * Sorted token arrays, the values by number, and the entries written since the arrays were built.
+     * Replaced as a whole on write, so a search reads one consistent set.
+     */
+    private static final class State<V> {
+        private final String[] tokens;
+        private final int[] tokenNumbers;
+        private final Object[] values;
+        private final int nextNumber;
+        private final ConcurrentSkipListMap<String, int[]> recent;
+        private final int recentEntries;
+
+        State(String[] tokens, int[] tokenNumbers, Object[] values, int nextNumber) {
+            this(tokens, tokenNumbers, values, nextNumber, new ConcurrentSkipListMap<>(), 0);
+        }
+
+        State(String[] tokens, int[] tokenNumbers, Object[] values, int nextNumber,
+              ConcurrentSkipListMap<String, int[]> recent, int recentEntries) {
+            this.tokens = tokens;
+            this.tokenNumbers = tokenNumbers;
+            this.values = values;
+            this.nextNumber = nextNumber;
+            this.recent = recent;
+            this.recentEntries = recentEntries;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.app.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source of enrollment rows read one at a time (CSV or spreadsheet)
+ */
+public interface RowReader extends Closeable {
+
+    /**
+     * Read the next non-blank row, its cells trimmed.
+     * Returns null once the input is exhausted.
+     */
+    String[] readRow() throws IOException;
+
+    /**
+     * 1-based line (or sheet row) number on which the row last returned by readRow() started
+     */
+    long getRecordLineNumber();
+}
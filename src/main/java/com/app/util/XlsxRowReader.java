@@ -0,0 +1,250 @@
+package com.app.util;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Incremental reader for the first sheet of an Excel (.xlsx) workbook.
+ * The sheet XML is pulled one row at a time with StAX instead of being loaded as a
+ * workbook DOM, so only the current row and the shared strings table are held in memory.
+ * Cells are returned by column position (A = 0), missing cells as "", like CSV fields.
+ */
+public class XlsxRowReader implements RowReader {
+
+    public static final String MEDIA_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    /**
+     * Columns in an Excel sheet (A to XFD)
+     */
+    public static final int MAX_COLUMNS = 16384;
+
+    private final Path file;
+    private final List<String> cells = new ArrayList<>();
+
+    private OPCPackage workbook;
+    private SharedStrings sharedStrings;
+    private InputStream sheet;
+    private XMLStreamReader xml;
+    private long rowNumber = 0;
+    private long recordLineNumber = 0;
+
+    private XlsxRowReader(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Whether an upload is a .xlsx workbook rather than CSV, by content type or file name
+     */
+    public static boolean isXlsx(String filename, String contentType) {
+        return MEDIA_TYPE.equals(contentType)
+                || (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".xlsx"));
+    }
+
+    /**
+     * Copy the upload to a temporary file, read with random access and deleted on close().
+     * The workbook is opened on the first readRow(), so a corrupt file is reported like a malformed CSV.
+     */
+    public static XlsxRowReader open(InputStream content) throws IOException {
+        Path file = Files.createTempFile("enrollment-", ".xlsx");
+        try {
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new XlsxRowReader(file);
+    }
+
+    @Override
+    public String[] readRow() throws IOException {
+        if (xml == null) {
+            openSheet();
+        }
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+                    String reference = xml.getAttributeValue(null, "r");
+                    rowNumber = reference != null ? Long.parseLong(reference) : rowNumber + 1;
+                    String[] row = readCells();
+                    if (!isBlank(row)) {
+                        recordLineNumber = rowNumber;
+                        return row;
+                    }
+                }
+            }
+            return null;
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new IOException("Unreadable sheet row after row " + rowNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 1-based sheet row number of the row last returned by readRow()
+     */
+    @Override
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (xml != null) {
+                xml.close();
+            }
+            if (sheet != null) {
+                sheet.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            if (workbook != null) {
+                // Read-only package: release the file without writing anything back
+                workbook.revert();
+            }
+            xml = null;
+            sheet = null;
+            workbook = null;
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void openSheet() throws IOException {
+        try {
+            workbook = OPCPackage.open(file.toFile(), PackageAccess.READ);
+            sharedStrings = new ReadOnlySharedStringsTable(workbook);
+            Iterator<InputStream> sheets = new XSSFReader(workbook).getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IOException("The workbook has no sheet");
+            }
+            sheet = sheets.next();
+            xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(sheet);
+        } catch (OpenXML4JException | SAXException | XMLStreamException | RuntimeException e) {
+            throw new IOException("Not a readable .xlsx workbook: " + e.getMessage(), e);
+        }
+    }
+
+    private String[] readCells() throws XMLStreamException, IOException {
+        cells.clear();
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                break;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                String reference = xml.getAttributeValue(null, "r");
+                int column = reference != null ? columnIndex(reference) : cells.size();
+                String value = readCell(xml.getAttributeValue(null, "t"));
+                while (cells.size() <= column) {
+                    cells.add("");
+                }
+                cells.set(column, value);
+            }
+        }
+        return cells.toArray(new String[cells.size()]);
+    }
+
+    /**
+     * Value of the current <c> element as text, trimmed like an unquoted CSV field
+     */
+    private String readCell(String type) throws XMLStreamException, IOException {
+        String value = null;
+        StringBuilder inline = null;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+                break;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if ("v".equals(xml.getLocalName())) {
+                    value = xml.getElementText();
+                } else if ("t".equals(xml.getLocalName())) {
+                    // Inline string, possibly split in rich text runs
+                    inline = inline != null ? inline : new StringBuilder();
+                    inline.append(xml.getElementText());
+                }
+            }
+        }
+
+        if ("inlineStr".equals(type)) {
+            return inline != null ? inline.toString().trim() : "";
+        }
+        if (value == null) {
+            return "";
+        }
+        if ("s".equals(type)) {
+            int index = Integer.parseInt(value.trim());
+            if (index < 0 || index >= sharedStrings.getCount()) {
+                throw new IOException("Unknown shared string " + index + " on row " + rowNumber);
+            }
+            return sharedStrings.getItemAt(index).getString().trim();
+        }
+        if ("b".equals(type)) {
+            return "1".equals(value) ? "TRUE" : "FALSE";
+        }
+        if (type == null || "n".equals(type)) {
+            return number(value.trim());
+        }
+        // Formula strings and error codes are kept as written in the sheet
+        return value.trim();
+    }
+
+    /**
+     * Plain digits for a numeric cell, e.g. a student number stored as 2.0240001E7
+     */
+    private static String number(String value) {
+        try {
+            return new BigDecimal(value).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    /**
+     * 0-based column of a cell reference such as "B7" or "AA12"
+     */
+    private int columnIndex(String reference) throws IOException {
+        int column = 0;
+        int i = 0;
+        while (i < reference.length() && Character.isLetter(reference.charAt(i))) {
+            column = column * 26 + (Character.toUpperCase(reference.charAt(i)) - 'A' + 1);
+            if (column > MAX_COLUMNS) {
+                break;
+            }
+            i++;
+        }
+        if (column < 1 || column > MAX_COLUMNS) {
+            throw new IOException("Invalid cell reference " + reference + " on row " + rowNumber);
+        }
+        return column - 1;
+    }
+
+    private static boolean isBlank(String[] row) {
+        for (String value : row) {
+            if (!value.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -56,8 +56,76 @@ CREATE TABLE `test_sessions` (
   `created_at` timestamp DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE TABLE `batch_enrollment_jobs` (
+  `id` VARCHAR(36) PRIMARY KEY,
+  `course_id` VARCHAR(36) NOT NULL,
+  `name_column_index` integer,
+  `email_column_index` integer,
+  `input_path` varchar(1024) COMMENT 'Spooled upload, deleted once the job finishes',
+  `lease_owner` varchar(36) COMMENT 'Node running the job',
+  `lease_renewed_at` timestamp DEFAULT CURRENT_TIMESTAMP COMMENT 'Another node takes the job over once this is older than the lease',
+  `status` varchar(50) COMMENT 'queued | running | completed | failed | cancelled',
+  `rows_parsed` integer,
+  `success_count` integer,
+  `skipped_count` integer,
+  `error_count` integer,
+  `message` text,
+  `result_json` longtext,
+  `created_at` timestamp DEFAULT CURRENT_TIMESTAMP,
+  `started_at` timestamp NULL,
+  `finished_at` timestamp NULL
+);
+
+CREATE TABLE `batch_enrollment_staging` (
+  `import_id` VARCHAR(36) NOT NULL COMMENT 'One bulk load, rows deleted once it is merged',
+  `row_no` integer NOT NULL,
+  `name` varchar(255),
+  `email` varchar(255) NOT NULL,
+  `new_user_id` VARCHAR(36) NOT NULL COMMENT 'Used if no user has this email yet',
+  `enrollment_id` VARCHAR(36) NOT NULL,
+  `user_id` VARCHAR(36),
+  `status` varchar(16) NOT NULL COMMENT 'PENDING | SUCCESS | SKIPPED',
+  PRIMARY KEY (`import_id`, `row_no`)
+);
+
+CREATE TABLE `course_enrollment_counts` (
+  `course_id` VARCHAR(36) PRIMARY KEY COMMENT 'Maintained by the application, reconciled periodically',
+  `enrolled` integer NOT NULL DEFAULT 0,
+  `dropped` integer NOT NULL DEFAULT 0,
+  `completed` integer NOT NULL DEFAULT 0
+);
+
+CREATE TABLE `enrollment_changes` (
+  `seq` BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT 'Insert order, not commit order',
+  `feed_seq` BIGINT COMMENT 'Feed position, given in commit order once the change is committed',
+  `change_type` varchar(16) NOT NULL COMMENT 'CREATED | UPDATED | DELETED',
+  `enrollment_id` VARCHAR(36) NOT NULL,
+  `course_id` VARCHAR(36) NOT NULL,
+  `student_id` VARCHAR(36) NOT NULL,
+  `status` varchar(50) COMMENT 'Enrollment status after the change',
+  `changed_at` timestamp(3) NOT NULL,
+  UNIQUE KEY `enrollment_changes_feed_seq` (`feed_seq`)
+);
+
+CREATE TABLE `enrollment_change_sequence` (
+  `id` INT PRIMARY KEY,
+  `last_feed_seq` BIGINT NOT NULL COMMENT 'Last feed_seq handed out'
+);
+
+INSERT INTO `enrollment_change_sequence` (`id`, `last_feed_seq`) VALUES (1, 0);
+
 CREATE UNIQUE INDEX `course_enrollments_index_0` ON `course_enrollments` (`course_id`, `student_id`);
 
+CREATE INDEX `users_role_id` ON `users` (`role`, `id`);
+
+CREATE INDEX `users_status_id` ON `users` (`status`, `id`);
+
+CREATE INDEX `courses_status_id` ON `courses` (`status`, `id`);
+
+CREATE INDEX `course_enrollments_student_course` ON `course_enrollments` (`student_id`, `course_id`, `status`);
+
+CREATE INDEX `exams_course_window` ON `exams` (`course_id`, `start_available_at`, `end_available_at`);
+
 ALTER TABLE `courses` ADD FOREIGN KEY (`professor_id`) REFERENCES `users` (`id`);
 
 ALTER TABLE `course_enrollments` ADD FOREIGN KEY (`course_id`) REFERENCES `courses` (`id`);
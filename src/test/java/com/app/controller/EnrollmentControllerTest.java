@@ -1,29 +1,49 @@
 package com.app.controller;
 
+import com.app.config.BatchEnrollmentProperties;
+import com.app.dto.BatchEnrollmentJobDTO;
 import com.app.dto.BatchEnrollmentResultDTO;
 import com.app.dto.CSVUploadRequest;
 import com.app.dto.EnrollmentResultDTO;
+import com.app.security.CustomUserDetailsService;
+import com.app.security.JwtService;
+import com.app.service.BatchEnrollmentIdempotencyService;
+import com.app.service.BatchEnrollmentJobService;
 import com.app.service.BatchEnrollmentService;
 import com.app.service.CourseEnrollmentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+// The security filter chain is left out; the JWT filter's dependencies only have to exist
 @WebMvcTest(EnrollmentController.class)
+@AutoConfigureMockMvc(addFilters = false)
 @DisplayName("Enrollment Controller Tests")
 class EnrollmentControllerTest {
 
@@ -36,9 +56,32 @@ class EnrollmentControllerTest {
     @MockBean
     private BatchEnrollmentService batchEnrollmentService;
 
+    @MockBean
+    private BatchEnrollmentJobService batchEnrollmentJobService;
+
+    @MockBean
+    private BatchEnrollmentProperties batchEnrollmentProperties;
+
+    @MockBean
+    private BatchEnrollmentIdempotencyService idempotencyService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private CustomUserDetailsService userDetailsService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @BeforeEach
+    void setUp() throws Exception {
+        // Every upload runs, as a first submission does
+        when(idempotencyService.runOnce(any(), any(), any())).thenAnswer(invocation -> new BatchEnrollmentIdempotencyService.Outcome(
+                invocation.<BatchEnrollmentIdempotencyService.ImportRun>getArgument(2).run(),
+                BatchEnrollmentIdempotencyService.Status.RAN));
+    }
+
     @Test
     @DisplayName("Should successfully process batch CSV enrollment")
     void testProcessBatchCSVEnrollment() throws Exception {
@@ -77,9 +120,9 @@ class EnrollmentControllerTest {
         batchResult.setResults(results);
         batchResult.setTimestamp("2026-02-10T10:45:30");
 
-        when(batchEnrollmentService.processCSVEnrollment(any())).thenReturn(batchResult);
+        when(batchEnrollmentService.processCSVEnrollment(any(CSVUploadRequest.class), any())).thenReturn(batchResult);
 
-        mockMvc.perform(post("/api/enrollments/batch-csv")
+        mockMvc.perform(post("/api/enrollments/batch-csv").contextPath("/api")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -112,9 +155,9 @@ class EnrollmentControllerTest {
         batchResult.setErrorCount(1);
         batchResult.setResults(List.of(errorResult));
 
-        when(batchEnrollmentService.processCSVEnrollment(any())).thenReturn(batchResult);
+        when(batchEnrollmentService.processCSVEnrollment(any(CSVUploadRequest.class), any())).thenReturn(batchResult);
 
-        mockMvc.perform(post("/api/enrollments/batch-csv")
+        mockMvc.perform(post("/api/enrollments/batch-csv").contextPath("/api")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -146,9 +189,9 @@ class EnrollmentControllerTest {
         batchResult.setErrorCount(0);
         batchResult.setResults(List.of(skipResult));
 
-        when(batchEnrollmentService.processCSVEnrollment(any())).thenReturn(batchResult);
+        when(batchEnrollmentService.processCSVEnrollment(any(CSVUploadRequest.class), any())).thenReturn(batchResult);
 
-        mockMvc.perform(post("/api/enrollments/batch-csv")
+        mockMvc.perform(post("/api/enrollments/batch-csv").contextPath("/api")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -174,9 +217,9 @@ class EnrollmentControllerTest {
         batchResult.setErrorCount(1);
         batchResult.setResults(List.of(errorResult));
 
-        when(batchEnrollmentService.processCSVEnrollment(any())).thenReturn(batchResult);
+        when(batchEnrollmentService.processCSVEnrollment(any(CSVUploadRequest.class), any())).thenReturn(batchResult);
 
-        mockMvc.perform(post("/api/enrollments/batch-csv")
+        mockMvc.perform(post("/api/enrollments/batch-csv").contextPath("/api")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -211,9 +254,9 @@ class EnrollmentControllerTest {
         batchResult.setErrorCount(0);
         batchResult.setResults(results);
 
-        when(batchEnrollmentService.processCSVEnrollment(any())).thenReturn(batchResult);
+        when(batchEnrollmentService.processCSVEnrollment(any(CSVUploadRequest.class), any())).thenReturn(batchResult);
 
-        mockMvc.perform(post("/api/enrollments/batch-csv")
+        mockMvc.perform(post("/api/enrollments/batch-csv").contextPath("/api")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -222,4 +265,115 @@ class EnrollmentControllerTest {
                 .andExpect(jsonPath("$.skippedCount").value(1))
                 .andExpect(jsonPath("$.results", hasSize(2)));
     }
+
+    @Test
+    @DisplayName("Should accept a job with 202 and its location")
+    void testSubmitJob() throws Exception {
+        when(batchEnrollmentJobService.submitJob(any(CSVUploadRequest.class))).thenReturn(job("job-1", "queued"));
+
+        mockMvc.perform(post("/api/enrollments/batch-csv/jobs").contextPath("/api")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(uploadRequest())))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/enrollments/batch-csv/jobs/job-1"))
+                .andExpect(jsonPath("$.status").value("queued"));
+    }
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After when the job queue is full")
+    void testSubmitJobQueueFull() throws Exception {
+        when(batchEnrollmentProperties.getJobs()).thenReturn(new BatchEnrollmentProperties.Jobs());
+        when(batchEnrollmentJobService.submitJob(any(CSVUploadRequest.class)))
+                .thenThrow(new TaskRejectedException("queue full"));
+
+        mockMvc.perform(post("/api/enrollments/batch-csv/jobs").contextPath("/api")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(uploadRequest())))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+    }
+
+    @Test
+    @DisplayName("Should answer 202 for the result of a running job and 409 when cancelling a finished one")
+    void testJobResultAndCancel() throws Exception {
+        when(batchEnrollmentJobService.getJob("job-1")).thenReturn(Optional.of(job("job-1", "running")));
+        when(batchEnrollmentJobService.getJobResult("job-1")).thenReturn(Optional.empty());
+        when(batchEnrollmentJobService.cancelJob("job-1")).thenReturn(Optional.of(job("job-1", "completed")));
+        when(batchEnrollmentJobService.cancelJob("job-2")).thenReturn(Optional.of(job("job-2", "cancelled")));
+
+        mockMvc.perform(get("/api/enrollments/batch-csv/jobs/job-1/result").contextPath("/api"))
+                .andExpect(status().isAccepted());
+        mockMvc.perform(delete("/api/enrollments/batch-csv/jobs/job-1").contextPath("/api"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value("completed"));
+        mockMvc.perform(delete("/api/enrollments/batch-csv/jobs/job-2").contextPath("/api"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/enrollments/batch-csv/jobs/job-3").contextPath("/api"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should preview instead of enrolling on dryRun=true")
+    void testDryRun() throws Exception {
+        BatchEnrollmentResultDTO preview = new BatchEnrollmentResultDTO();
+        preview.setCourseId("course-123");
+        preview.setDryRun(true);
+        preview.setTotalRecords(1);
+        preview.setSuccessCount(1);
+        when(batchEnrollmentService.previewCSVEnrollment(any(CSVUploadRequest.class), any())).thenReturn(preview);
+
+        mockMvc.perform(post("/api/enrollments/batch-csv").contextPath("/api")
+                .param("dryRun", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(uploadRequest())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dryRun").value(true))
+                .andExpect(jsonPath("$.successCount").value(1));
+
+        verify(batchEnrollmentService, never()).processCSVEnrollment(any(CSVUploadRequest.class), any());
+        // A preview and an import of the same upload are told apart
+        verify(idempotencyService).fingerprint(eq("preview"), eq("course-123"), eq(0), eq(1), anyString());
+    }
+
+    @Test
+    @DisplayName("Should mark a replayed result and reject a reused Idempotency-Key with 422")
+    void testIdempotentReplayAndKeyReuse() throws Exception {
+        BatchEnrollmentResultDTO previous = new BatchEnrollmentResultDTO();
+        previous.setCourseId("course-123");
+        previous.setTotalRecords(1);
+        previous.setSuccessCount(1);
+        doReturn(new BatchEnrollmentIdempotencyService.Outcome(previous, BatchEnrollmentIdempotencyService.Status.REPLAYED))
+                .when(idempotencyService).runOnce(eq("key-1"), any(), any());
+        doReturn(new BatchEnrollmentIdempotencyService.Outcome(null, BatchEnrollmentIdempotencyService.Status.KEY_REUSED))
+                .when(idempotencyService).runOnce(eq("key-2"), any(), any());
+
+        mockMvc.perform(post("/api/enrollments/batch-csv").contextPath("/api")
+                .header(EnrollmentController.IDEMPOTENCY_KEY_HEADER, "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(uploadRequest())))
+                .andExpect(status().isOk())
+                .andExpect(header().string(EnrollmentController.IDEMPOTENT_REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.successCount").value(1));
+
+        mockMvc.perform(post("/api/enrollments/batch-csv").contextPath("/api")
+                .header(EnrollmentController.IDEMPOTENCY_KEY_HEADER, "key-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(uploadRequest())))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(batchEnrollmentService, never()).processCSVEnrollment(any(CSVUploadRequest.class), any());
+    }
+
+    private static BatchEnrollmentJobDTO job(String id, String status) {
+        return new BatchEnrollmentJobDTO(id, "course-123", status, 0, 0, 0, 0, null, null, null, null);
+    }
+
+    private static CSVUploadRequest uploadRequest() {
+        CSVUploadRequest request = new CSVUploadRequest();
+        request.setCourseId("course-123");
+        request.setNameColumnIndex(0);
+        request.setEmailColumnIndex(1);
+        request.setCsvContent("John Doe,john@example.com");
+        return request;
+    }
 }
@@ -0,0 +1,59 @@
+package com.app.controller;
+
+import com.app.dto.KeysetPage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Keyset Pagination Tests")
+class PaginationTest {
+
+    @Test
+    @DisplayName("Should give a next key only when more rows than the limit were read")
+    void testPageFromRows() {
+        KeysetPage<String> middle = KeysetPage.of(List.of("a", "b", "c"), 2, id -> id, String::toUpperCase);
+        assertEquals(List.of("A", "B"), middle.getItems());
+        assertEquals("b", middle.getNextKey());
+
+        KeysetPage<String> last = KeysetPage.of(List.of("c"), 2, id -> id, String::toUpperCase);
+        assertEquals(List.of("C"), last.getItems());
+        assertNull(last.getNextKey());
+    }
+
+    @Test
+    @DisplayName("Should round-trip the sort key through the Next-Cursor header")
+    void testCursorRoundTrip() {
+        String id = "2b7d45b2-970e-4de6-a7f8-b39fb234abd1";
+        ResponseEntity<List<String>> response = Pagination.ok(new KeysetPage<>(List.of("x"), id));
+
+        String cursor = response.getHeaders().getFirst(Pagination.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+        assertNotEquals(id, cursor);
+        assertEquals(id, Pagination.afterKey(cursor));
+        assertEquals("", Pagination.afterKey(null));
+
+        assertNull(Pagination.ok(new KeysetPage<>(List.of("x"), null)).getHeaders().getFirst(Pagination.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should cap the page size and reject a cursor it did not issue")
+    void testLimitAndInvalidCursor() {
+        assertEquals(Pagination.DEFAULT_LIMIT, Pagination.limit(null));
+        assertEquals(Pagination.MAX_LIMIT, Pagination.limit(1_000_000));
+        assertEquals(1, Pagination.limit(0));
+
+        // Lists that predate pagination stay whole for unpaged calls, for one release
+        assertEquals(Pagination.UNPAGED, Pagination.listLimit(null, null));
+        assertEquals(Pagination.DEFAULT_LIMIT, Pagination.listLimit(null, "YQ"));
+        assertEquals(20, Pagination.listLimit(20, null));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> Pagination.afterKey("not base64!"));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+}
@@ -0,0 +1,95 @@
+package com.app.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk enrollment changes and their change log entries against H2 in MySQL mode, using the real schema and chunks of two rows
+ */
+@DisplayName("Course Enrollment Repository - Bulk Change Tests")
+class CourseEnrollmentRepositoryImplTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CourseEnrollmentRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bulkchange;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("fack_db.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES ('prof-1', 'Prof', 'prof@example.com', 'professor', 'active')");
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES (?, ?, ?, 'student', 'active')",
+                    "s" + i, "s" + i, "s" + i + "@example.com");
+        }
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id, semester) VALUES ('c1', 'CS101', 'Intro', 'prof-1', 'Fall 2024')");
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id, semester) VALUES ('c2', 'CS201', 'Data', 'prof-1', 'Spring 2025')");
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES (?, 'c1', ?, 'enrolled')",
+                    "e1-" + i, "s" + i);
+        }
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e2-1', 'c2', 's1', 'enrolled')");
+
+        repository = new CourseEnrollmentRepositoryImpl(jdbcTemplate, new EnrollmentChangeRepository(jdbcTemplate),
+                new DataSourceTransactionManager(dataSource));
+        repository.chunkSize = 2;
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should update a course or semester chunk by chunk and count only rows that changed")
+    void testUpdateStatusByCourse() {
+        jdbcTemplate.update("UPDATE course_enrollments SET status = 'completed' WHERE id = 'e1-1'");
+
+        assertEquals(4, repository.updateStatusByCourseId("c1", "completed"));
+        assertEquals(5, count("c1", "completed"));
+        assertEquals(1, count("c2", "enrolled"));
+        assertEquals(4, logged("UPDATED"));
+
+        assertEquals(0, repository.updateStatusByCourseId("c1", "completed"));
+        assertEquals(1, repository.updateStatusBySemester("Spring 2025", "completed"));
+        assertEquals(1, count("c2", "completed"));
+        assertEquals(5, count("c1", "completed"));
+    }
+
+    @Test
+    @DisplayName("Should drop listed students in chunks and delete a course's enrollments")
+    void testDropAndDelete() {
+        assertEquals(3, repository.updateStatusByCourseIdAndStudentIds("c1", List.of("s1", "s2", "s3", "unknown"), "dropped"));
+        assertEquals(3, count("c1", "dropped"));
+        assertEquals(1, count("c2", "enrolled"));
+
+        assertEquals(5, repository.deleteByCourseIdInChunks("c1"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM course_enrollments WHERE course_id = 'c1'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM course_enrollments", Integer.class));
+        assertEquals(3, logged("UPDATED"));
+        assertEquals(5, logged("DELETED"));
+    }
+
+    private int logged(String changeType) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM enrollment_changes WHERE change_type = ?",
+                Integer.class, changeType);
+    }
+
+    private int count(String courseId, String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM course_enrollments WHERE course_id = ? AND status = ?",
+                Integer.class, courseId, status);
+    }
+}
@@ -0,0 +1,129 @@
+package com.app.repository;
+
+import com.app.dto.EnrollmentChangeDTO;
+import com.app.entity.CourseEnrollment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Enrollment change log on H2 in MySQL mode, using the real schema
+ */
+@DisplayName("Enrollment Change Repository Tests")
+class EnrollmentChangeRepositoryTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private EnrollmentChangeRepository changeRepository;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:changes;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("fack_db.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        changeRepository = new EnrollmentChangeRepository(jdbcTemplate);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should read changes in feed order once they are sequenced")
+    void testFindAfter() {
+        changeRepository.appendAll(EnrollmentChangeRepository.CREATED,
+                List.of(enrollment("e1", "enrolled"), enrollment("e2", "enrolled"), enrollment("e3", "enrolled")));
+        changeRepository.append(EnrollmentChangeRepository.UPDATED, enrollment("e2", "dropped"));
+
+        // Not in the feed until sequenced
+        assertTrue(changeRepository.findAfter(0, 10).isEmpty());
+        assertEquals(0, changeRepository.findLastFeedSeq());
+        assertEquals(4, sequence());
+
+        List<EnrollmentChangeDTO> first = changeRepository.findAfter(0, 3);
+        assertEquals(List.of("e1", "e2", "e3"), first.stream().map(EnrollmentChangeDTO::getEnrollmentId).toList());
+        assertEquals(List.of(1L, 2L, 3L), first.stream().map(EnrollmentChangeDTO::getSeq).toList());
+
+        List<EnrollmentChangeDTO> rest = changeRepository.findAfter(first.get(2).getSeq(), 3);
+        assertEquals(1, rest.size());
+        assertEquals(EnrollmentChangeRepository.UPDATED, rest.get(0).getChangeType());
+        assertEquals("dropped", rest.get(0).getStatus());
+        assertEquals(4, changeRepository.findLastFeedSeq());
+        assertEquals(0, sequence());
+    }
+
+    @Test
+    @DisplayName("Should put a change from a long transaction after changes already read, not behind the cursor")
+    void testLongTransactionCommitsAfterCursor() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            // A bulk merge logs its change first and commits last
+            connection.setAutoCommit(false);
+            new EnrollmentChangeRepository(new JdbcTemplate(new SingleConnectionDataSource(connection, true)))
+                    .append(EnrollmentChangeRepository.CREATED, enrollment("slow", "enrolled"));
+
+            changeRepository.append(EnrollmentChangeRepository.CREATED, enrollment("fast", "enrolled"));
+            assertEquals(1, sequence());
+            List<EnrollmentChangeDTO> read = changeRepository.findAfter(0, 10);
+            assertEquals(List.of("fast"), read.stream().map(EnrollmentChangeDTO::getEnrollmentId).toList());
+            long cursor = read.get(0).getSeq();
+
+            connection.commit();
+            assertEquals(1, sequence());
+            List<EnrollmentChangeDTO> next = changeRepository.findAfter(cursor, 10);
+            assertEquals(List.of("slow"), next.stream().map(EnrollmentChangeDTO::getEnrollmentId).toList());
+            assertEquals(cursor + 1, next.get(0).getSeq());
+        }
+    }
+
+    @Test
+    @DisplayName("Should purge sequenced changes older than the retention in chunks")
+    void testPurge() {
+        changeRepository.appendAll(EnrollmentChangeRepository.CREATED,
+                List.of(enrollment("e1", "enrolled"), enrollment("e2", "enrolled"), enrollment("e3", "enrolled")));
+        sequence();
+        changeRepository.append(EnrollmentChangeRepository.CREATED, enrollment("e4", "enrolled"));
+        jdbcTemplate.update("UPDATE enrollment_changes SET changed_at = ? WHERE enrollment_id NOT IN ('e3')",
+                LocalDateTime.now().minusDays(40));
+
+        // e4 is not in the feed yet, so it stays whatever its age
+        assertEquals(2, changeRepository.purgeOlderThan(Duration.ofDays(30), 1));
+        assertEquals(3, changeRepository.findMinFeedSeq());
+        assertTrue(changeRepository.reachesBack(2));
+        assertFalse(changeRepository.reachesBack(1));
+        assertEquals(0, changeRepository.purgeOlderThan(Duration.ofDays(30), 1));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM enrollment_changes", Integer.class));
+    }
+
+    private int sequence() {
+        return transaction.execute(status -> changeRepository.sequence(100));
+    }
+
+    private static CourseEnrollment enrollment(String id, String status) {
+        CourseEnrollment enrollment = new CourseEnrollment();
+        enrollment.setId(id);
+        enrollment.setCourseId("c1");
+        enrollment.setStudentId("s1");
+        enrollment.setStatus(status);
+        return enrollment;
+    }
+}
@@ -0,0 +1,129 @@
+package com.app.repository;
+
+import com.app.dto.KeysetPage;
+import com.app.dto.UserDTO;
+import com.app.entity.User;
+import com.app.main;
+import com.app.service.UserService;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Allocation of the user list read path, paging through the whole table:
+ * entities loaded into a read-write persistence context and copied into DTOs (the old path)
+ * against UserService, which projects straight into DTOs in a read-only transaction.
+ * Runs the application against an in-memory H2 database. Not part of the test suite; run after
+ * mvn test-compile with the test classpath (mvn dependency:build-classpath) and
+ * java -cp target/classes:target/test-classes:$CP com.app.repository.ReadProjectionBenchmark [users] [page size]
+ */
+public class ReadProjectionBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int limit = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        // System properties override application.properties; devtools would restart this main
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        System.setProperty("spring.datasource.url", "jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        System.setProperty("spring.datasource.username", "sa");
+        System.setProperty("spring.datasource.password", "");
+        System.setProperty("spring.datasource.driver-class-name", "org.h2.Driver");
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "create-drop");
+        System.setProperty("server.port", "0");
+        System.setProperty("enrollment.index.enabled", "false");
+        System.setProperty("logging.level.root", "WARN");
+        System.setProperty("logging.level.com.app", "WARN");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(main.class).run()) {
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            UserService userService = context.getBean(UserService.class);
+            EntityManager entityManager = context.getBean(EntityManager.class);
+            TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+            transaction.executeWithoutResult(status -> userRepository.batchInsert(generate(users)));
+
+            IntSupplier entities = () -> {
+                int read = 0;
+                String afterId = "";
+                while (afterId != null) {
+                    String after = afterId;
+                    KeysetPage<UserDTO> page = transaction.execute(status -> KeysetPage.of(
+                            entityManager.createQuery("SELECT u FROM User u WHERE u.id > :afterId ORDER BY u.id", User.class)
+                                    .setParameter("afterId", after)
+                                    .setMaxResults(limit + 1)
+                                    .getResultList(),
+                            limit, User::getId, ReadProjectionBenchmark::convertToDTO));
+                    read += page.getItems().size();
+                    afterId = page.getNextKey();
+                }
+                return read;
+            };
+            IntSupplier projections = () -> {
+                int read = 0;
+                String afterId = "";
+                while (afterId != null) {
+                    KeysetPage<UserDTO> page = userService.getAllUsers(afterId, limit);
+                    read += page.getItems().size();
+                    afterId = page.getNextKey();
+                }
+                return read;
+            };
+
+            measure("entities + convertToDTO", entities);
+            measure("DTO projection, read-only", projections);
+        }
+    }
+
+    private static void measure(String name, IntSupplier readAll) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            readAll.getAsInt();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long rows = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            rows += readAll.getAsInt();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-28s %d rows, %.1f ns/row, %.0f bytes allocated/row%n",
+                name, rows, (double) elapsed / rows, (double) allocated / rows);
+    }
+
+    // Same copy UserService made before its reads were projected
+    private static UserDTO convertToDTO(User user) {
+        return new UserDTO(user.getId(), user.getName(), user.getEmail(), user.getPasswordHash(),
+                user.getRole(), user.getStatus(), user.getCreatedAt(), user.getLastLoginAt());
+    }
+
+    private static List<User> generate(int users) {
+        List<User> generated = new ArrayList<>(users);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setId(String.format("user-%08d", i));
+            user.setName("Student " + i);
+            user.setEmail("student" + i + "@example.com");
+            user.setRole(i % 20 == 0 ? "professor" : "student");
+            user.setStatus("active");
+            user.setCreatedAt(now);
+            generated.add(user);
+        }
+        return generated;
+    }
+}
@@ -0,0 +1,122 @@
+package com.app.service;
+
+import com.app.config.BatchEnrollmentProperties;
+import com.app.dto.BatchEnrollmentResultDTO;
+import com.app.dto.CourseDTO;
+import com.app.dto.UserSummaryDTO;
+import com.app.repository.BatchEnrollmentStagingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the bulk load's set-based SQL against H2 in MySQL mode, using the real schema
+ */
+@DisplayName("Batch Enrollment Bulk Load Tests")
+class BatchEnrollmentBulkLoadTest {
+
+    @Mock
+    private UserService userService;
+    @Mock
+    private CourseEnrollmentService enrollmentService;
+    @Mock
+    private CourseService courseService;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private BatchEnrollmentService batchEnrollmentService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Emails compare case-insensitively, as with the MySQL collation
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bulk;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("fack_db.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES ('prof-1', 'Prof', 'prof@example.com', 'professor', 'active')");
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id) VALUES ('course-123', 'CS101', 'Intro', 'prof-1')");
+        when(courseService.getCourseById("course-123")).thenReturn(Optional.of(new CourseDTO()));
+
+        BatchEnrollmentProperties properties = new BatchEnrollmentProperties();
+        properties.setChunkSize(2);
+        batchEnrollmentService = new BatchEnrollmentService(
+                userService, enrollmentService, courseService, properties,
+                new BatchEnrollmentTransactions(new DataSourceTransactionManager(dataSource), dataSource),
+                new SyncTaskExecutor(), new BatchEnrollmentStagingRepository(jdbcTemplate));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should merge staged rows into users and enrollments with counts only")
+    void testBulkLoad() {
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES ('user-1', 'Jane', 'jane@example.com', 'student', 'active')");
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES ('user-2', 'Ann', 'ann@example.com', 'student', 'active')");
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('enr-1', 'course-123', 'user-2', 'enrolled')");
+
+        String csv = "John Doe,john@example.com\n"
+                + "Jane Smith,JANE@example.com\n"
+                + "Ann Lee,ann@example.com\n"
+                + "John Again,John@Example.com\n"
+                + "Bob Ray,bob@example.com\n"
+                + "not a row\n";
+
+        BatchEnrollmentResultDTO result = batchEnrollmentService.bulkLoadCSVEnrollment("course-123", 0, 1, new StringReader(csv));
+
+        assertEquals(5, result.getTotalRecords());
+        assertEquals(3, result.getSuccessCount());
+        // Ann already enrolled, John listed twice
+        assertEquals(2, result.getSkippedCount());
+        assertEquals(0, result.getErrorCount());
+        assertTrue(result.getResults().isEmpty());
+
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE role = 'student'", Integer.class));
+        assertEquals(4, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM course_enrollments WHERE course_id = 'course-123' AND status = 'enrolled'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM course_enrollments e JOIN users u ON u.id = e.student_id WHERE u.email = 'jane@example.com'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM batch_enrollment_staging", Integer.class));
+        // John and Bob were created by the merge and are added to the search index
+        verify(userService).usersCreated(argThat(users ->
+                users.stream().map(UserSummaryDTO::getEmail).toList().equals(List.of("john@example.com", "bob@example.com"))));
+        verifyNoMoreInteractions(userService);
+        // Only told to refresh the course in the membership index
+        verify(enrollmentService).courseEnrollmentsChanged("course-123");
+        verifyNoMoreInteractions(enrollmentService);
+    }
+
+    @Test
+    @DisplayName("Should skip every row on a second load of the same file")
+    void testBulkLoadTwice() {
+        String csv = "John Doe,john@example.com\nJane Smith,jane@example.com\nBob Ray,bob@example.com";
+
+        batchEnrollmentService.bulkLoadCSVEnrollment("course-123", 0, 1, new StringReader(csv));
+        BatchEnrollmentResultDTO again = batchEnrollmentService.bulkLoadCSVEnrollment("course-123", 0, 1, new StringReader(csv));
+
+        assertEquals(0, again.getSuccessCount());
+        assertEquals(3, again.getSkippedCount());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM course_enrollments", Integer.class));
+    }
+}
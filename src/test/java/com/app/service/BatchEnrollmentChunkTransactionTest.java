@@ -0,0 +1,144 @@
+package com.app.service;
+
+import com.app.config.BatchEnrollmentProperties;
+import com.app.dto.BatchEnrollmentResultDTO;
+import com.app.dto.CSVUploadRequest;
+import com.app.dto.CourseDTO;
+import com.app.dto.UserDTO;
+import com.app.repository.BatchEnrollmentStagingRepository;
+import com.app.repository.CourseEnrollmentCountRepository;
+import com.app.repository.CourseEnrollmentRepository;
+import com.app.repository.CourseEnrollmentRepositoryImpl;
+import com.app.repository.EnrollmentChangeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Chunk transactions and savepoints against H2 in MySQL mode, with CourseEnrollmentService behind a
+ * transactional proxy as in the application, so a failed bulk insert is seen by the transaction interceptor
+ */
+@DisplayName("Batch Enrollment - Chunk Transaction Tests")
+class BatchEnrollmentChunkTransactionTest {
+
+    @Mock
+    private UserService userService;
+    @Mock
+    private CourseService courseService;
+    @Mock
+    private CourseEnrollmentRepository enrollmentRepository;
+    @Mock
+    private EnrollmentMembershipIndex membershipIndex;
+    @Mock
+    private CatalogCache catalogCache;
+    @Mock
+    private BatchEnrollmentStagingRepository stagingRepository;
+
+    private JdbcTemplate jdbcTemplate;
+    private BatchEnrollmentService batchEnrollmentService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:chunktransaction;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("fack_db.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES ('prof-1', 'Prof', 'prof@example.com', 'professor', 'active')");
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id) VALUES ('c1', 'CS101', 'Intro', 'prof-1')");
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES (?, ?, ?, 'student', 'active')",
+                    "s" + i, "Student " + i, "s" + i + "@example.com");
+        }
+
+        EnrollmentChangeRepository changeRepository = new EnrollmentChangeRepository(jdbcTemplate);
+        CourseEnrollmentRepositoryImpl bulkRepository =
+                new CourseEnrollmentRepositoryImpl(jdbcTemplate, changeRepository, transactionManager);
+        doAnswer(invocation -> {
+            bulkRepository.batchInsert(invocation.getArgument(0));
+            return null;
+        }).when(enrollmentRepository).batchInsert(anyList());
+        // The lookup misses an enrollment committed concurrently, so the bulk insert hits the unique key
+        when(enrollmentRepository.findEnrolledStudentIds(anyString(), anyCollection())).thenReturn(List.of());
+
+        CourseEnrollmentService target = new CourseEnrollmentService(enrollmentRepository, membershipIndex,
+                new CourseEnrollmentCountRepository(jdbcTemplate), changeRepository, catalogCache);
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        CourseEnrollmentService enrollmentService = (CourseEnrollmentService) proxyFactory.getProxy();
+
+        CourseDTO course = new CourseDTO();
+        course.setId("c1");
+        when(courseService.getCourseById("c1")).thenReturn(Optional.of(course));
+        when(userService.upsertUsers(anyMap())).thenReturn(Map.of(
+                "s1@example.com", user("s1"), "s2@example.com", user("s2"), "s3@example.com", user("s3")));
+
+        batchEnrollmentService = new BatchEnrollmentService(userService, enrollmentService, courseService,
+                new BatchEnrollmentProperties(), new BatchEnrollmentTransactions(transactionManager, dataSource),
+                new SyncTaskExecutor(), stagingRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should commit the other rows of a chunk whose bulk insert hits a duplicate key")
+    void testDuplicateKeyFailsOnlyItsRow() {
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e-2', 'c1', 's2', 'enrolled')");
+
+        CSVUploadRequest request = new CSVUploadRequest();
+        request.setCourseId("c1");
+        request.setNameColumnIndex(0);
+        request.setEmailColumnIndex(1);
+        request.setCsvContent("Student 1,s1@example.com\nStudent 2,s2@example.com\nStudent 3,s3@example.com");
+
+        BatchEnrollmentResultDTO result = batchEnrollmentService.processCSVEnrollment(request);
+
+        assertEquals(2, result.getSuccessCount());
+        assertEquals(1, result.getErrorCount());
+        assertEquals(List.of("SUCCESS", "ERROR", "SUCCESS"),
+                result.getResults().stream().map(row -> row.getStatus()).toList());
+        assertEquals(List.of("s1", "s2", "s3"), jdbcTemplate.queryForList(
+                "SELECT student_id FROM course_enrollments WHERE course_id = 'c1' ORDER BY student_id", String.class));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM enrollment_changes WHERE change_type = 'CREATED'", Integer.class));
+        // The rolled back bulk attempt never reached the membership index
+        verify(membershipIndex, times(1)).addedAll(argThat(pairs -> pairs.size() == 2
+                && pairs.get(0)[1].equals("s1") && pairs.get(1)[1].equals("s3")));
+    }
+
+    private static UserDTO user(String id) {
+        UserDTO user = new UserDTO();
+        user.setId(id);
+        user.setEmail(id + "@example.com");
+        return user;
+    }
+}
@@ -0,0 +1,154 @@
+package com.app.service;
+
+import com.app.config.BatchEnrollmentProperties;
+import com.app.dto.BatchEnrollmentResultDTO;
+import com.app.dto.EnrollmentResultDTO;
+import com.app.service.BatchEnrollmentIdempotencyService.Outcome;
+import com.app.service.BatchEnrollmentIdempotencyService.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Batch Enrollment Idempotency Service Tests")
+class BatchEnrollmentIdempotencyServiceTest {
+
+    private static final String CSV = "John Doe,john@example.com\nJane Smith,jane@example.com";
+
+    private BatchEnrollmentIdempotencyService idempotencyService;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new BatchEnrollmentIdempotencyService(new BatchEnrollmentProperties());
+    }
+
+    @Test
+    @DisplayName("Should replay the result of an identical upload")
+    void testReplayIdenticalUpload() throws Exception {
+        String fingerprint = idempotencyService.fingerprint("enroll", "course-123", 0, 1, CSV);
+        // The same content uploaded as a file has the same fingerprint
+        assertEquals(fingerprint, idempotencyService.fingerprint("enroll", "course-123", 0, 1,
+                new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8))));
+        assertNotEquals(fingerprint, idempotencyService.fingerprint("enroll", "course-123", 1, 0, CSV));
+        assertNotEquals(fingerprint, idempotencyService.fingerprint("preview", "course-123", 0, 1, CSV));
+
+        Outcome first = idempotencyService.runOnce(null, fingerprint, this::runImport);
+        Outcome second = idempotencyService.runOnce(null, fingerprint, this::runImport);
+
+        assertEquals(Status.RAN, first.status());
+        assertEquals(Status.REPLAYED, second.status());
+        assertEquals(first.result(), second.result());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should attach a repeated upload to the import still running")
+    void testAttachToRunningImport() throws Exception {
+        String fingerprint = idempotencyService.fingerprint("enroll", "course-123", 0, 1, CSV);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Outcome> first = executor.submit(() -> idempotencyService.runOnce(null, fingerprint, () -> {
+                started.countDown();
+                release.join();
+                return runImport();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Future<Outcome> second = executor.submit(() -> idempotencyService.runOnce(null, fingerprint, this::runImport));
+            release.complete(null);
+
+            assertEquals(Status.RAN, first.get(5, TimeUnit.SECONDS).status());
+            assertEquals(Status.REPLAYED, second.get(5, TimeUnit.SECONDS).status());
+            assertEquals(first.get().result(), second.get().result());
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject an Idempotency-Key reused for another upload and forget failed runs")
+    void testIdempotencyKey() throws Exception {
+        String fingerprint = idempotencyService.fingerprint("enroll", "course-123", 0, 1, CSV);
+        String other = idempotencyService.fingerprint("enroll", "course-123", 0, 1, CSV + "\nBob,bob@example.com");
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.runOnce("key-1", fingerprint, () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals(Status.RAN, idempotencyService.runOnce("key-1", fingerprint, this::runImport).status());
+        assertEquals(Status.KEY_REUSED, idempotencyService.runOnce("key-1", other, this::runImport).status());
+        // Without the key the other upload is its own import
+        assertEquals(Status.RAN, idempotencyService.runOnce(null, other, this::runImport).status());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should run every upload when the window is zero")
+    void testDisabled() throws Exception {
+        BatchEnrollmentProperties properties = new BatchEnrollmentProperties();
+        properties.getIdempotency().setWindow(Duration.ZERO);
+        idempotencyService = new BatchEnrollmentIdempotencyService(properties);
+        String fingerprint = idempotencyService.fingerprint("enroll", "course-123", 0, 1, CSV);
+
+        idempotencyService.runOnce(null, fingerprint, this::runImport);
+        idempotencyService.runOnce(null, fingerprint, this::runImport);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should replay only the counts and the first error rows")
+    void testReplayKeepsCountsAndFirstErrors() throws Exception {
+        BatchEnrollmentProperties properties = new BatchEnrollmentProperties();
+        properties.getIdempotency().setReplayErrorRows(1);
+        idempotencyService = new BatchEnrollmentIdempotencyService(properties);
+        String fingerprint = idempotencyService.fingerprint("enroll", "course-123", 0, 1, CSV);
+        BatchEnrollmentResultDTO result = new BatchEnrollmentResultDTO("course-123", false, 3, 1, 0, 2,
+                List.of(row("SUCCESS", "john@example.com"), row("ERROR", "bad"), row("ERROR", "worse")), "now");
+
+        Outcome first = idempotencyService.runOnce(null, fingerprint, () -> result);
+        Outcome second = idempotencyService.runOnce(null, fingerprint, this::runImport);
+
+        assertSame(result, first.result());
+        assertEquals(Status.REPLAYED, second.status());
+        assertEquals(3, second.result().getTotalRecords());
+        assertEquals(1, second.result().getSuccessCount());
+        assertEquals(2, second.result().getErrorCount());
+        assertEquals(List.of(row("ERROR", "bad")), second.result().getResults());
+        assertEquals(0, runs.get());
+    }
+
+    private static EnrollmentResultDTO row(String status, String email) {
+        EnrollmentResultDTO row = new EnrollmentResultDTO();
+        row.setStatus(status);
+        row.setEmail(email);
+        return row;
+    }
+
+    private BatchEnrollmentResultDTO runImport() {
+        runs.incrementAndGet();
+        BatchEnrollmentResultDTO result = new BatchEnrollmentResultDTO();
+        result.setCourseId("course-123");
+        result.setTotalRecords(2);
+        result.setSuccessCount(2);
+        return result;
+    }
+}
@@ -0,0 +1,401 @@
+package com.app.service;
+
+import com.app.config.BatchEnrollmentProperties;
+import com.app.dto.BatchEnrollmentJobDTO;
+import com.app.dto.BatchEnrollmentResultDTO;
+import com.app.dto.CSVUploadRequest;
+import com.app.dto.EnrollmentResultDTO;
+import com.app.entity.BatchEnrollmentJob;
+import com.app.repository.BatchEnrollmentJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Batch Enrollment Job Service Tests")
+class BatchEnrollmentJobServiceTest {
+
+    @Mock
+    private BatchEnrollmentJobRepository jobRepository;
+    @Mock
+    private BatchEnrollmentService batchEnrollmentService;
+
+    @TempDir
+    Path spoolDir;
+
+    private final Map<String, BatchEnrollmentJob> jobs = new HashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BatchEnrollmentProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new BatchEnrollmentProperties();
+        properties.getJobs().setSpoolDir(spoolDir.toString());
+
+        // In-memory stand-in for the jobs table
+        when(jobRepository.save(any())).thenAnswer(invocation -> {
+            BatchEnrollmentJob job = invocation.getArgument(0);
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(jobRepository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(jobs.get(invocation.<String>getArgument(0))));
+        when(jobRepository.findStatusById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(jobs.get(invocation.<String>getArgument(0))).map(BatchEnrollmentJob::getStatus));
+        when(jobRepository.renewLease(anyCollection(), anyString())).thenReturn(1);
+        // Conditional state changes, matched like their WHERE clauses
+        when(jobRepository.requeue(anyString(), anyString())).thenAnswer(invocation ->
+                transition(invocation.getArgument(0), invocation.getArgument(1), List.of("queued", "running"),
+                        job -> job.setStatus("queued")));
+        when(jobRepository.markRunning(anyString(), anyString(), any())).thenAnswer(invocation ->
+                transition(invocation.getArgument(0), invocation.getArgument(1), List.of("queued"), job -> {
+                    job.setStatus("running");
+                    job.setStartedAt(invocation.getArgument(2));
+                }));
+        when(jobRepository.saveResult(anyString(), anyString(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+                .thenAnswer(invocation -> transition(invocation.getArgument(0), invocation.getArgument(1),
+                        List.of("queued", "running", "cancelled"), job -> {
+                            job.setRowsParsed(invocation.getArgument(2));
+                            job.setSuccessCount(invocation.getArgument(3));
+                            job.setSkippedCount(invocation.getArgument(4));
+                            job.setErrorCount(invocation.getArgument(5));
+                            job.setResultJson(invocation.getArgument(6));
+                        }));
+        when(jobRepository.finish(anyString(), anyString(), anyCollection(), anyString(), any(), any()))
+                .thenAnswer(invocation -> transition(invocation.getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2), job -> {
+                            job.setStatus(invocation.getArgument(3));
+                            job.setMessage(invocation.getArgument(4));
+                            job.setFinishedAt(invocation.getArgument(5));
+                        }));
+    }
+
+    private int transition(String jobId, String owner, Collection<String> fromStatuses, Consumer<BatchEnrollmentJob> change) {
+        BatchEnrollmentJob job = jobs.get(jobId);
+        if (job == null || !owner.equals(job.getLeaseOwner()) || job.getFinishedAt() != null
+                || !fromStatuses.contains(job.getStatus())) {
+            return 0;
+        }
+        change.accept(job);
+        return 1;
+    }
+
+    @Test
+    @DisplayName("Should run a submitted job and store its result")
+    void testSubmitAndCompleteJob() throws Exception {
+        BatchEnrollmentResultDTO result = new BatchEnrollmentResultDTO();
+        result.setCourseId("course-123");
+        result.setTotalRecords(2);
+        result.setSuccessCount(1);
+        result.setSkippedCount(1);
+        result.setResults(List.of(new EnrollmentResultDTO(), new EnrollmentResultDTO()));
+
+        when(batchEnrollmentService.processCSVEnrollment(eq("course-123"), eq(0), eq(1), any(), any()))
+                .thenReturn(result);
+
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, new SyncTaskExecutor(), properties, objectMapper);
+
+        BatchEnrollmentJobDTO submitted = jobService.submitJob(uploadRequest());
+
+        assertEquals("queued", submitted.getStatus());
+        BatchEnrollmentJobDTO finished = jobService.getJob(submitted.getId()).orElseThrow();
+        assertEquals("completed", finished.getStatus());
+        assertEquals(2, finished.getRowsParsed());
+        assertEquals(1, finished.getSuccessCount());
+        assertEquals(1, finished.getSkippedCount());
+        assertNotNull(finished.getFinishedAt());
+
+        BatchEnrollmentResultDTO stored = jobService.getJobResult(submitted.getId()).orElseThrow();
+        assertEquals("course-123", stored.getCourseId());
+        assertEquals(2, stored.getResults().size());
+
+        // Spooled upload is removed once the job is done
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject and clean up when the job queue is full")
+    void testRejectWhenQueueFull() {
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService,
+                task -> { throw new TaskRejectedException("queue full"); },
+                properties, objectMapper);
+
+        assertThrows(TaskRejectedException.class, () -> jobService.submitJob(uploadRequest()));
+
+        verify(jobRepository, times(1)).deleteById(anyString());
+        verify(batchEnrollmentService, never()).processCSVEnrollment(anyString(), anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not start a job cancelled while queued")
+    void testCancelQueuedJob() throws Exception {
+        List<Runnable> queue = new ArrayList<>();
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, queue::add, properties, objectMapper);
+
+        BatchEnrollmentJobDTO submitted = jobService.submitJob(uploadRequest());
+
+        when(jobRepository.existsById(submitted.getId())).thenReturn(true);
+        when(jobRepository.cancel(submitted.getId())).thenAnswer(invocation -> {
+            jobs.get(submitted.getId()).setStatus("cancelled");
+            return 1;
+        });
+
+        assertEquals("cancelled", jobService.cancelJob(submitted.getId()).orElseThrow().getStatus());
+
+        queue.forEach(Runnable::run);
+
+        assertEquals("cancelled", jobService.getJob(submitted.getId()).orElseThrow().getStatus());
+        assertTrue(jobService.getJobResult(submitted.getId()).isEmpty());
+        verify(batchEnrollmentService, never()).processCSVEnrollment(anyString(), anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should finish as completed when a cancel arrives after the last row")
+    void testCancelAfterLastRowCompletes() throws Exception {
+        when(batchEnrollmentService.processCSVEnrollment(eq("course-123"), eq(0), eq(1), any(), any()))
+                .thenAnswer(invocation -> {
+                    BatchEnrollmentListener listener = invocation.getArgument(4);
+                    jobs.values().forEach(job -> job.setStatus("cancelled"));
+                    listener.onChunkProcessed(List.of(success()));
+                    return oneRowResult();
+                });
+
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, new SyncTaskExecutor(), properties, objectMapper);
+
+        BatchEnrollmentJobDTO submitted = jobService.submitJob(uploadRequest());
+
+        assertEquals("completed", jobService.getJob(submitted.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should finish as cancelled when a cancel left rows unprocessed")
+    void testCancelWithRowsLeftCancels() throws Exception {
+        when(batchEnrollmentService.processCSVEnrollment(eq("course-123"), eq(0), eq(1), any(), any()))
+                .thenAnswer(invocation -> {
+                    BatchEnrollmentListener listener = invocation.getArgument(4);
+                    jobs.values().forEach(job -> job.setStatus("cancelled"));
+                    listener.onChunkProcessed(List.of(success()));
+                    listener.onStoppedEarly();
+                    return oneRowResult();
+                });
+
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, new SyncTaskExecutor(), properties, objectMapper);
+
+        BatchEnrollmentJobDTO submitted = jobService.submitJob(uploadRequest());
+
+        BatchEnrollmentJobDTO finished = jobService.getJob(submitted.getId()).orElseThrow();
+        assertEquals("cancelled", finished.getStatus());
+        assertEquals(1, finished.getSuccessCount());
+    }
+
+    @Test
+    @DisplayName("Should take over a job whose node stopped renewing its lease")
+    void testTakeOverExpiredJob() throws Exception {
+        Path upload = spoolDir.resolve("job-1.csv");
+        Files.writeString(upload, "John Doe,john@example.com");
+        jobs.put("job-1", abandonedJob("job-1", upload.toString()));
+        when(jobRepository.findExpiredLeases(anyLong())).thenReturn(List.of("job-1"));
+        when(jobRepository.takeOver(eq("job-1"), anyString(), anyLong())).thenAnswer(this::takeOver);
+        when(batchEnrollmentService.processCSVEnrollment(eq("course-123"), eq(0), eq(1), any(), any()))
+                .thenReturn(oneRowResult());
+
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, new SyncTaskExecutor(), properties, objectMapper);
+
+        jobService.maintainLeases();
+
+        assertEquals("completed", jobs.get("job-1").getStatus());
+        assertFalse(Files.exists(upload));
+    }
+
+    @Test
+    @DisplayName("Should fail an abandoned job whose upload is gone")
+    void testFailExpiredJobWithoutUpload() {
+        jobs.put("job-1", abandonedJob("job-1", spoolDir.resolve("elsewhere.csv").toString()));
+        when(jobRepository.findExpiredLeases(anyLong())).thenReturn(List.of("job-1"));
+        when(jobRepository.takeOver(eq("job-1"), anyString(), anyLong())).thenAnswer(this::takeOver);
+
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, new SyncTaskExecutor(), properties, objectMapper);
+
+        jobService.maintainLeases();
+
+        BatchEnrollmentJob job = jobs.get("job-1");
+        assertEquals("failed", job.getStatus());
+        assertNotNull(job.getMessage());
+        assertNotNull(job.getFinishedAt());
+        verify(batchEnrollmentService, never()).processCSVEnrollment(anyString(), anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should leave a job alone when another node renewed or took it first")
+    void testSkipJobTakenByAnotherNode() {
+        jobs.put("job-1", abandonedJob("job-1", spoolDir.resolve("job-1.csv").toString()));
+        when(jobRepository.findExpiredLeases(anyLong())).thenReturn(List.of("job-1"));
+        when(jobRepository.takeOver(eq("job-1"), anyString(), anyLong())).thenReturn(0);
+
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, new SyncTaskExecutor(), properties, objectMapper);
+
+        jobService.maintainLeases();
+
+        assertEquals("running", jobs.get("job-1").getStatus());
+        assertNull(jobs.get("job-1").getFinishedAt());
+    }
+
+    @Test
+    @DisplayName("Should store only the first error rows with the result")
+    void testStoredResultKeepsFirstErrors() throws Exception {
+        properties.getJobs().setResultErrorRows(2);
+        List<Boolean> kept = new ArrayList<>();
+        when(batchEnrollmentService.processCSVEnrollment(eq("course-123"), eq(0), eq(1), any(), any()))
+                .thenAnswer(invocation -> {
+                    BatchEnrollmentListener listener = invocation.getArgument(4);
+                    kept.add(listener.keepResult(success()));
+                    for (int i = 0; i < 3; i++) {
+                        EnrollmentResultDTO error = new EnrollmentResultDTO();
+                        error.setStatus("ERROR");
+                        kept.add(listener.keepResult(error));
+                    }
+                    return oneRowResult();
+                });
+
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, new SyncTaskExecutor(), properties, objectMapper);
+
+        jobService.submitJob(uploadRequest());
+
+        assertEquals(List.of(false, true, true, false), kept);
+    }
+
+    @Test
+    @DisplayName("Should keep a cancel that arrives after the worker's last check")
+    void testLateCancelNotOverwritten() throws Exception {
+        when(batchEnrollmentService.processCSVEnrollment(eq("course-123"), eq(0), eq(1), any(), any()))
+                .thenAnswer(invocation -> {
+                    BatchEnrollmentListener listener = invocation.getArgument(4);
+                    listener.onChunkProcessed(List.of(success()));
+                    jobs.values().forEach(job -> job.setStatus("cancelled"));
+                    return oneRowResult();
+                });
+
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, new SyncTaskExecutor(), properties, objectMapper);
+
+        BatchEnrollmentJobDTO submitted = jobService.submitJob(uploadRequest());
+
+        BatchEnrollmentJobDTO finished = jobService.getJob(submitted.getId()).orElseThrow();
+        assertEquals("cancelled", finished.getStatus());
+        assertEquals(1, finished.getSuccessCount());
+        assertNotNull(finished.getFinishedAt());
+    }
+
+    @Test
+    @DisplayName("Should not re-queue a taken-over job cancelled since it was read")
+    void testTakeOverCancelledMeanwhile() throws Exception {
+        Path upload = spoolDir.resolve("job-1.csv");
+        Files.writeString(upload, "John Doe,john@example.com");
+        jobs.put("job-1", abandonedJob("job-1", upload.toString()));
+        when(jobRepository.findExpiredLeases(anyLong())).thenReturn(List.of("job-1"));
+        when(jobRepository.takeOver(eq("job-1"), anyString(), anyLong())).thenAnswer(this::takeOver);
+        // The service reads the job as running, then a cancel lands before it is re-queued
+        when(jobRepository.findById("job-1")).thenAnswer(invocation -> {
+            BatchEnrollmentJob read = copy(jobs.get("job-1"));
+            jobs.get("job-1").setStatus("cancelled");
+            return Optional.of(read);
+        });
+
+        BatchEnrollmentJobService jobService = new BatchEnrollmentJobService(
+                jobRepository, batchEnrollmentService, new SyncTaskExecutor(), properties, objectMapper);
+
+        jobService.maintainLeases();
+
+        assertEquals("cancelled", jobs.get("job-1").getStatus());
+        assertNotNull(jobs.get("job-1").getFinishedAt());
+        verify(batchEnrollmentService, never()).processCSVEnrollment(anyString(), anyInt(), anyInt(), any(), any());
+    }
+
+    private int takeOver(InvocationOnMock invocation) {
+        jobs.get(invocation.<String>getArgument(0)).setLeaseOwner(invocation.getArgument(1));
+        return 1;
+    }
+
+    private BatchEnrollmentJob copy(BatchEnrollmentJob job) {
+        BatchEnrollmentJob copy = new BatchEnrollmentJob();
+        copy.setId(job.getId());
+        copy.setCourseId(job.getCourseId());
+        copy.setInputPath(job.getInputPath());
+        copy.setLeaseOwner(job.getLeaseOwner());
+        copy.setStatus(job.getStatus());
+        return copy;
+    }
+
+    private BatchEnrollmentJob abandonedJob(String jobId, String inputPath) {
+        BatchEnrollmentJob job = new BatchEnrollmentJob();
+        job.setId(jobId);
+        job.setCourseId("course-123");
+        job.setNameColumnIndex(0);
+        job.setEmailColumnIndex(1);
+        job.setInputPath(inputPath);
+        job.setLeaseOwner("stopped-node");
+        job.setStatus("running");
+        return job;
+    }
+
+    private EnrollmentResultDTO success() {
+        EnrollmentResultDTO row = new EnrollmentResultDTO();
+        row.setStatus("SUCCESS");
+        return row;
+    }
+
+    private BatchEnrollmentResultDTO oneRowResult() {
+        BatchEnrollmentResultDTO result = new BatchEnrollmentResultDTO();
+        result.setCourseId("course-123");
+        result.setTotalRecords(1);
+        result.setSuccessCount(1);
+        result.setResults(List.of(success()));
+        return result;
+    }
+
+    private CSVUploadRequest uploadRequest() {
+        CSVUploadRequest request = new CSVUploadRequest();
+        request.setCourseId("course-123");
+        request.setNameColumnIndex(0);
+        request.setEmailColumnIndex(1);
+        request.setCsvContent("John Doe,john@example.com\nJane Smith,jane@example.com");
+        return request;
+    }
+}
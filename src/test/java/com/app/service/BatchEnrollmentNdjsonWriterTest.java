@@ -0,0 +1,93 @@
+package com.app.service;
+
+import com.app.dto.BatchEnrollmentResultDTO;
+import com.app.dto.EnrollmentResultDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Batch Enrollment NDJSON Writer Tests")
+class BatchEnrollmentNdjsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should write one line per row followed by a summary line")
+    void testWritesRowsAndSummary() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BatchEnrollmentNdjsonWriter writer = new BatchEnrollmentNdjsonWriter(output, objectMapper, false);
+
+        writer.onChunkProcessed(List.of(row("a@example.com", "SUCCESS"), row("b@example.com", "SKIPPED")));
+        writer.onChunkProcessed(List.of(row("c@example.com", "ERROR")));
+        writer.writeSummary(summary(1, 1, 1));
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("a@example.com", objectMapper.readTree(lines[0]).get("email").asText());
+        assertEquals("ERROR", objectMapper.readTree(lines[2]).get("status").asText());
+
+        JsonNode summary = objectMapper.readTree(lines[3]);
+        assertEquals(3, summary.get("totalRecords").asInt());
+        assertEquals(1, summary.get("errorCount").asInt());
+        assertFalse(summary.has("results"));
+    }
+
+    @Test
+    @DisplayName("Should only write ERROR rows in errors-only mode")
+    void testErrorsOnly() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BatchEnrollmentNdjsonWriter writer = new BatchEnrollmentNdjsonWriter(output, objectMapper, true);
+
+        writer.onChunkProcessed(List.of(row("a@example.com", "SUCCESS"), row("b@example.com", "ERROR")));
+        writer.writeSummary(summary(1, 0, 1));
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("b@example.com", objectMapper.readTree(lines[0]).get("email").asText());
+        assertFalse(writer.keepResult(row("b@example.com", "ERROR")));
+    }
+
+    @Test
+    @DisplayName("Should cancel the import when the client disconnects")
+    void testCancelOnDisconnect() throws IOException {
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        BatchEnrollmentNdjsonWriter writer = new BatchEnrollmentNdjsonWriter(closed, objectMapper, false);
+
+        writer.onChunkProcessed(List.of(row("a@example.com", "SUCCESS")));
+
+        assertTrue(writer.isCancelled());
+    }
+
+    private EnrollmentResultDTO row(String email, String status) {
+        EnrollmentResultDTO result = new EnrollmentResultDTO();
+        result.setEmail(email);
+        result.setStatus(status);
+        return result;
+    }
+
+    private BatchEnrollmentResultDTO summary(int success, int skipped, int error) {
+        BatchEnrollmentResultDTO result = new BatchEnrollmentResultDTO();
+        result.setCourseId("course-123");
+        result.setTotalRecords(success + skipped + error);
+        result.setSuccessCount(success);
+        result.setSkippedCount(skipped);
+        result.setErrorCount(error);
+        result.setResults(new ArrayList<>());
+        return result;
+    }
+}
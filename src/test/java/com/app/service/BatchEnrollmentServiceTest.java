@@ -1,21 +1,41 @@
 package com.app.service;
 
+import com.app.config.BatchEnrollmentProperties;
 import com.app.dto.BatchEnrollmentResultDTO;
 import com.app.dto.CSVUploadRequest;
 import com.app.dto.CourseDTO;
 import com.app.dto.CourseEnrollmentDTO;
+import com.app.dto.EnrollmentResultDTO;
 import com.app.dto.UserDTO;
+import com.app.repository.BatchEnrollmentStagingRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @DisplayName("Batch Enrollment Service Tests")
@@ -27,13 +47,25 @@ class BatchEnrollmentServiceTest {
     private CourseEnrollmentService enrollmentService;
     @Mock
     private CourseService courseService;
+    @Mock
+    private BatchEnrollmentTransactions transactions;
+    @Mock
+    private BatchEnrollmentStagingRepository stagingRepository;
 
     private BatchEnrollmentService batchEnrollmentService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        batchEnrollmentService = new BatchEnrollmentService(userService, enrollmentService, courseService);
+        // Run chunk work directly, without a database transaction
+        when(transactions.inTransaction(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(transactions.withSavepoint(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        batchEnrollmentService = newService(new BatchEnrollmentProperties(), new SyncTaskExecutor());
+    }
+
+    private BatchEnrollmentService newService(BatchEnrollmentProperties properties, TaskExecutor chunkExecutor) {
+        return new BatchEnrollmentService(
+                userService, enrollmentService, courseService, properties, transactions, chunkExecutor, stagingRepository);
     }
 
     @Test
@@ -57,23 +89,12 @@ class BatchEnrollmentServiceTest {
         user2.setName("Jane Smith");
         user2.setEmail("jane@example.com");
         
-        when(userService.upsertUser("John Doe", "john@example.com")).thenReturn(user1);
-        when(userService.upsertUser("Jane Smith", "jane@example.com")).thenReturn(user2);
-        
-        when(enrollmentService.isStudentEnrolled(courseId, "user-1")).thenReturn(false);
-        when(enrollmentService.isStudentEnrolled(courseId, "user-2")).thenReturn(false);
+        when(userService.upsertUsers(anyMap())).thenReturn(Map.of(
+                "john@example.com", user1,
+                "jane@example.com", user2));
         
-        CourseEnrollmentDTO enrollment1 = new CourseEnrollmentDTO();
-        enrollment1.setId("enrollment-1");
-        enrollment1.setCourseId(courseId);
-        enrollment1.setStudentId("user-1");
-        
-        CourseEnrollmentDTO enrollment2 = new CourseEnrollmentDTO();
-        enrollment2.setId("enrollment-2");
-        enrollment2.setCourseId(courseId);
-        enrollment2.setStudentId("user-2");
-        
-        when(enrollmentService.enrollStudent(any())).thenReturn(enrollment1, enrollment2);
+        when(enrollmentService.findEnrolledStudentIds(eq(courseId), anyCollection())).thenReturn(new HashSet<>());
+        when(enrollmentService.enrollStudents(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
         
         CSVUploadRequest request = new CSVUploadRequest();
         request.setCourseId(courseId);
@@ -88,6 +109,16 @@ class BatchEnrollmentServiceTest {
         assertEquals(0, result.getSkippedCount());
         assertEquals(0, result.getErrorCount());
         assertEquals(2, result.getResults().size());
+        assertEquals("user-1", result.getResults().get(0).getStudentId());
+        assertEquals("user-2", result.getResults().get(1).getStudentId());
+        
+        // One bulk call per table, no per-row round trips
+        verify(userService, times(1)).upsertUsers(anyMap());
+        verify(enrollmentService, times(1)).findEnrolledStudentIds(eq(courseId), anyCollection());
+        verify(enrollmentService, times(1)).enrollStudents(anyList());
+        verify(userService, never()).upsertUser(anyString(), anyString());
+        verify(enrollmentService, never()).isStudentEnrolled(anyString(), anyString());
+        verify(enrollmentService, never()).enrollStudent(any());
     }
 
     @Test
@@ -104,8 +135,9 @@ class BatchEnrollmentServiceTest {
         user.setId("user-1");
         user.setEmail("john@example.com");
         
-        when(userService.upsertUser(anyString(), anyString())).thenReturn(user);
-        when(enrollmentService.isStudentEnrolled(courseId, "user-1")).thenReturn(true);
+        when(userService.upsertUsers(anyMap())).thenReturn(Map.of("john@example.com", user));
+        when(enrollmentService.findEnrolledStudentIds(eq(courseId), anyCollection()))
+                .thenReturn(new HashSet<>(Set.of("user-1")));
         
         CSVUploadRequest request = new CSVUploadRequest();
         request.setCourseId(courseId);
@@ -184,15 +216,13 @@ class BatchEnrollmentServiceTest {
         user2.setId("user-2");
         user2.setEmail("jane@example.com");
         
-        when(userService.upsertUser(anyString(), anyString())).thenReturn(user1, user2);
-        
-        when(enrollmentService.isStudentEnrolled(courseId, "user-1")).thenReturn(false);
-        when(enrollmentService.isStudentEnrolled(courseId, "user-2")).thenReturn(true);
-        
-        CourseEnrollmentDTO enrollment = new CourseEnrollmentDTO();
-        enrollment.setId("enrollment-1");
+        when(userService.upsertUsers(anyMap())).thenReturn(Map.of(
+                "john@example.com", user1,
+                "jane@example.com", user2));
         
-        when(enrollmentService.enrollStudent(any())).thenReturn(enrollment);
+        when(enrollmentService.findEnrolledStudentIds(eq(courseId), anyCollection()))
+                .thenReturn(new HashSet<>(Set.of("user-2")));
+        when(enrollmentService.enrollStudents(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
         
         CSVUploadRequest request = new CSVUploadRequest();
         request.setCourseId(courseId);
@@ -229,4 +259,359 @@ class BatchEnrollmentServiceTest {
         assertNotNull(result.getTimestamp());
         assertFalse(result.getTimestamp().isEmpty());
     }
+
+    @Test
+    @DisplayName("Should skip students listed twice in the same file")
+    void testSkipDuplicateRowsInFile() {
+        String courseId = "course-123";
+        
+        CourseDTO course = new CourseDTO();
+        course.setId(courseId);
+        
+        when(courseService.getCourseById(courseId)).thenReturn(Optional.of(course));
+        
+        UserDTO user = new UserDTO();
+        user.setId("user-1");
+        user.setEmail("john@example.com");
+        
+        when(userService.upsertUsers(anyMap())).thenReturn(Map.of("john@example.com", user));
+        when(enrollmentService.findEnrolledStudentIds(eq(courseId), anyCollection())).thenReturn(new HashSet<>());
+        when(enrollmentService.enrollStudents(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        CSVUploadRequest request = new CSVUploadRequest();
+        request.setCourseId(courseId);
+        request.setNameColumnIndex(0);
+        request.setEmailColumnIndex(1);
+        request.setCsvContent("John Doe,john@example.com\nJohn Doe,JOHN@example.com");
+        
+        BatchEnrollmentResultDTO result = batchEnrollmentService.processCSVEnrollment(request);
+        
+        assertEquals(2, result.getTotalRecords());
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(1, result.getSkippedCount());
+        assertEquals("SUCCESS", result.getResults().get(0).getStatus());
+        assertEquals("SKIPPED", result.getResults().get(1).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should issue one bulk lookup per chunk")
+    void testChunkedBulkLookups() {
+        String courseId = "course-123";
+        
+        CourseDTO course = new CourseDTO();
+        course.setId(courseId);
+        
+        when(courseService.getCourseById(courseId)).thenReturn(Optional.of(course));
+        when(userService.upsertUsers(anyMap())).thenAnswer(invocation -> {
+            Map<String, String> namesByEmail = invocation.getArgument(0);
+            Map<String, UserDTO> users = new HashMap<>();
+            namesByEmail.forEach((email, name) -> {
+                UserDTO user = new UserDTO();
+                user.setId("id-" + email);
+                user.setEmail(email);
+                users.put(email, user);
+            });
+            return users;
+        });
+        when(enrollmentService.findEnrolledStudentIds(eq(courseId), anyCollection())).thenReturn(new HashSet<>());
+        when(enrollmentService.enrollStudents(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        BatchEnrollmentProperties properties = new BatchEnrollmentProperties();
+        properties.setChunkSize(2);
+        batchEnrollmentService = newService(properties, new SyncTaskExecutor());
+        
+        CSVUploadRequest request = new CSVUploadRequest();
+        request.setCourseId(courseId);
+        request.setNameColumnIndex(0);
+        request.setEmailColumnIndex(1);
+        request.setCsvContent("A,a@example.com\nB,b@example.com\nC,c@example.com\nD,d@example.com\nE,e@example.com");
+        
+        BatchEnrollmentResultDTO result = batchEnrollmentService.processCSVEnrollment(request);
+        
+        assertEquals(5, result.getSuccessCount());
+        assertEquals(List.of("a@example.com", "b@example.com", "c@example.com", "d@example.com", "e@example.com"),
+                result.getResults().stream().map(r -> r.getEmail()).toList());
+        verify(userService, times(3)).upsertUsers(anyMap());
+        verify(enrollmentService, times(3)).enrollStudents(anyList());
+    }
+
+    @Test
+    @DisplayName("Should report a cancellation as stopping early only when rows were left")
+    void testCancellationStopsEarlyOnlyWithRowsLeft() {
+        String courseId = "course-123";
+
+        CourseDTO course = new CourseDTO();
+        course.setId(courseId);
+
+        when(courseService.getCourseById(courseId)).thenReturn(Optional.of(course));
+        when(userService.upsertUsers(anyMap())).thenAnswer(invocation -> {
+            Map<String, String> namesByEmail = invocation.getArgument(0);
+            Map<String, UserDTO> users = new HashMap<>();
+            namesByEmail.forEach((email, name) -> {
+                UserDTO user = new UserDTO();
+                user.setId("id-" + email);
+                user.setEmail(email);
+                users.put(email, user);
+            });
+            return users;
+        });
+        when(enrollmentService.findEnrolledStudentIds(eq(courseId), anyCollection())).thenReturn(new HashSet<>());
+        when(enrollmentService.enrollStudents(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BatchEnrollmentProperties properties = new BatchEnrollmentProperties();
+        properties.setChunkSize(2);
+        properties.setParallelism(1);
+        batchEnrollmentService = newService(properties, new SyncTaskExecutor());
+
+        CSVUploadRequest request = new CSVUploadRequest();
+        request.setCourseId(courseId);
+        request.setNameColumnIndex(0);
+        request.setEmailColumnIndex(1);
+        request.setCsvContent("A,a@example.com\nB,b@example.com\nC,c@example.com\nD,d@example.com");
+
+        // Cancelled after the first chunk: C and D are never enrolled
+        CancellingListener early = new CancellingListener(1);
+        BatchEnrollmentResultDTO partial = batchEnrollmentService.processCSVEnrollment(request, early);
+        assertEquals(2, partial.getSuccessCount());
+        assertTrue(early.stoppedEarly);
+
+        // Cancelled after the last chunk: every row was enrolled
+        CancellingListener late = new CancellingListener(2);
+        BatchEnrollmentResultDTO complete = batchEnrollmentService.processCSVEnrollment(request, late);
+        assertEquals(4, complete.getTotalRecords());
+        assertFalse(late.stoppedEarly);
+    }
+
+    private static class CancellingListener implements BatchEnrollmentListener {
+        private final int chunksBeforeCancel;
+        private int chunks;
+        private boolean stoppedEarly;
+
+        CancellingListener(int chunksBeforeCancel) {
+            this.chunksBeforeCancel = chunksBeforeCancel;
+        }
+
+        @Override
+        public void onChunkProcessed(List<EnrollmentResultDTO> results) {
+            chunks++;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return chunks >= chunksBeforeCancel;
+        }
+
+        @Override
+        public void onStoppedEarly() {
+            stoppedEarly = true;
+        }
+    }
+
+    @Test
+    @DisplayName("Should report a rejected row as ERROR without failing the rest of the chunk")
+    void testBadRowIsolatedInChunk() {
+        String courseId = "course-123";
+        
+        CourseDTO course = new CourseDTO();
+        course.setId(courseId);
+        
+        when(courseService.getCourseById(courseId)).thenReturn(Optional.of(course));
+        when(userService.upsertUsers(anyMap())).thenAnswer(invocation -> usersFor(invocation.getArgument(0)));
+        when(enrollmentService.findEnrolledStudentIds(eq(courseId), anyCollection())).thenAnswer(invocation -> new HashSet<>());
+        // The batch fails as a whole, then only the row for b@example.com fails on retry
+        when(enrollmentService.enrollStudents(anyList())).thenAnswer(invocation -> {
+            List<CourseEnrollmentDTO> enrollments = invocation.getArgument(0);
+            if (enrollments.size() > 1 || enrollments.get(0).getStudentId().equals("id-b@example.com")) {
+                throw new DuplicateKeyException("Duplicate entry for key 'course_enrollments_index_0'");
+            }
+            return enrollments;
+        });
+        
+        CSVUploadRequest request = new CSVUploadRequest();
+        request.setCourseId(courseId);
+        request.setNameColumnIndex(0);
+        request.setEmailColumnIndex(1);
+        request.setCsvContent("A,a@example.com\nB,b@example.com\nC,c@example.com");
+        
+        BatchEnrollmentResultDTO result = batchEnrollmentService.processCSVEnrollment(request);
+        
+        assertEquals(3, result.getTotalRecords());
+        assertEquals(2, result.getSuccessCount());
+        assertEquals(1, result.getErrorCount());
+        assertEquals(List.of("SUCCESS", "ERROR", "SUCCESS"),
+                result.getResults().stream().map(r -> r.getStatus()).toList());
+        // Bulk attempt plus one savepoint per row, all in the chunk transaction
+        verify(transactions, times(1)).inTransaction(any());
+        verify(transactions, times(4)).withSavepoint(any());
+        // Only the rows that stood are reported to the membership index and caches
+        verify(enrollmentService, times(1)).enrolledInBulk(argThat(enrollments -> enrollments.stream()
+                .map(CourseEnrollmentDTO::getStudentId).toList().equals(List.of("id-a@example.com", "id-c@example.com"))));
+    }
+
+    @Test
+    @DisplayName("Should keep CSV order when chunks run in parallel")
+    void testParallelChunksKeepCsvOrder() {
+        String courseId = "course-123";
+        
+        CourseDTO course = new CourseDTO();
+        course.setId(courseId);
+        
+        when(courseService.getCourseById(courseId)).thenReturn(Optional.of(course));
+        when(userService.upsertUsers(anyMap())).thenAnswer(invocation -> usersFor(invocation.getArgument(0)));
+        when(enrollmentService.findEnrolledStudentIds(eq(courseId), anyCollection())).thenAnswer(invocation -> new HashSet<>());
+        when(enrollmentService.enrollStudents(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        BatchEnrollmentProperties properties = new BatchEnrollmentProperties();
+        properties.setChunkSize(3);
+        properties.setParallelism(4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            batchEnrollmentService = newService(properties, executor::execute);
+            
+            StringBuilder csv = new StringBuilder();
+            List<String> expectedEmails = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                csv.append("Student ").append(i).append(",s").append(i).append("@example.com\n");
+                expectedEmails.add("s" + i + "@example.com");
+            }
+            // Repeated across chunks, answered without a second insert
+            csv.append("Student 0,S0@example.com\n");
+            expectedEmails.add("S0@example.com");
+            
+            CSVUploadRequest request = new CSVUploadRequest();
+            request.setCourseId(courseId);
+            request.setNameColumnIndex(0);
+            request.setEmailColumnIndex(1);
+            request.setCsvContent(csv.toString());
+            
+            BatchEnrollmentResultDTO result = batchEnrollmentService.processCSVEnrollment(request);
+            
+            assertEquals(51, result.getTotalRecords());
+            assertEquals(50, result.getSuccessCount());
+            assertEquals(1, result.getSkippedCount());
+            assertEquals(expectedEmails, result.getResults().stream().map(r -> r.getEmail()).toList());
+            assertEquals("SKIPPED", result.getResults().get(50).getStatus());
+            verify(transactions, times(17)).inTransaction(any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should preview the enrollment without writing anything")
+    void testDryRunWritesNothing() {
+        String courseId = "course-123";
+        
+        CourseDTO course = new CourseDTO();
+        course.setId(courseId);
+        
+        when(courseService.getCourseById(courseId)).thenReturn(Optional.of(course));
+        
+        UserDTO enrolled = new UserDTO();
+        enrolled.setId("user-1");
+        enrolled.setEmail("john@example.com");
+        
+        UserDTO notEnrolled = new UserDTO();
+        notEnrolled.setId("user-2");
+        notEnrolled.setEmail("jane@example.com");
+        
+        when(userService.findUsersByEmails(anyCollection())).thenReturn(Map.of(
+                "john@example.com", enrolled,
+                "jane@example.com", notEnrolled));
+        when(enrollmentService.findEnrolledStudentIds(eq(courseId), anyCollection()))
+                .thenReturn(new HashSet<>(Set.of("user-1")));
+        
+        CSVUploadRequest request = new CSVUploadRequest();
+        request.setCourseId(courseId);
+        request.setNameColumnIndex(0);
+        request.setEmailColumnIndex(1);
+        request.setCsvContent("John Doe,john@example.com\nJane Smith,jane@example.com\nNew Student,new@example.com");
+        
+        BatchEnrollmentResultDTO result = batchEnrollmentService.previewCSVEnrollment(request, BatchEnrollmentListener.NONE);
+        
+        assertTrue(result.isDryRun());
+        assertEquals(3, result.getTotalRecords());
+        assertEquals(2, result.getSuccessCount());
+        assertEquals(1, result.getSkippedCount());
+        assertEquals(List.of("SKIPPED", "SUCCESS", "SUCCESS"),
+                result.getResults().stream().map(r -> r.getStatus()).toList());
+        assertEquals("user-2", result.getResults().get(1).getStudentId());
+        assertNull(result.getResults().get(2).getStudentId());
+        
+        verify(userService, never()).upsertUsers(anyMap());
+        verify(enrollmentService, never()).enrollStudents(anyList());
+        verify(transactions, never()).inTransaction(any());
+    }
+
+    @Test
+    @DisplayName("Should enroll into many courses from one file with one upsert per email")
+    void testMultiCourseImport() {
+        when(courseService.getCourseIdsByCodes(anyCollection())).thenAnswer(invocation -> {
+            Map<String, String> courseIds = new HashMap<>();
+            for (String code : invocation.<Collection<String>>getArgument(0)) {
+                if (!code.equalsIgnoreCase("XX999")) {
+                    courseIds.put(CourseService.codeKey(code), "course-" + CourseService.codeKey(code));
+                }
+            }
+            return courseIds;
+        });
+        when(userService.upsertUsers(anyMap())).thenAnswer(invocation -> usersFor(invocation.getArgument(0)));
+        // Enrollments committed by earlier chunks, as the database would return them
+        Set<String> enrolled = new HashSet<>();
+        when(enrollmentService.findEnrolledStudentIds(anyString(), anyCollection())).thenAnswer(invocation -> {
+            Set<String> studentIds = new HashSet<>();
+            for (String studentId : invocation.<Collection<String>>getArgument(1)) {
+                if (enrolled.contains(invocation.getArgument(0) + "/" + studentId)) {
+                    studentIds.add(studentId);
+                }
+            }
+            return studentIds;
+        });
+        when(enrollmentService.enrollStudents(anyList())).thenAnswer(invocation -> {
+            List<CourseEnrollmentDTO> enrollments = invocation.getArgument(0);
+            enrollments.forEach(enrollment -> enrolled.add(enrollment.getCourseId() + "/" + enrollment.getStudentId()));
+            return enrollments;
+        });
+        
+        BatchEnrollmentProperties properties = new BatchEnrollmentProperties();
+        properties.setChunkSize(2);
+        batchEnrollmentService = newService(properties, new SyncTaskExecutor());
+        
+        CSVUploadRequest request = new CSVUploadRequest();
+        request.setNameColumnIndex(0);
+        request.setEmailColumnIndex(1);
+        request.setCourseCodeColumnIndex(2);
+        request.setCsvContent("A,a@example.com,CS101\nA,a@example.com,MA201\nB,b@example.com,CS101\n"
+                + "C,c@example.com,XX999\nA,a@example.com,cs101\nD,d@example.com,");
+        
+        BatchEnrollmentResultDTO result = batchEnrollmentService.processMultiCourseCSVEnrollment(
+                request, BatchEnrollmentListener.NONE);
+        
+        assertEquals(6, result.getTotalRecords());
+        assertEquals(3, result.getSuccessCount());
+        assertEquals(1, result.getSkippedCount());
+        assertEquals(2, result.getErrorCount());
+        assertEquals(List.of("SUCCESS", "SUCCESS", "SUCCESS", "ERROR", "SKIPPED", "ERROR"),
+                result.getResults().stream().map(r -> r.getStatus()).toList());
+        assertEquals("MA201", result.getResults().get(1).getCourseCode());
+        assertTrue(result.getResults().get(3).getMessage().contains("Course not found: XX999"));
+        // Listed again in a later chunk: found enrolled rather than remembered for the whole file
+        assertEquals("Student already enrolled in this course", result.getResults().get(4).getMessage());
+        
+        // a@example.com is upserted once although it appears for three courses
+        verify(userService, times(2)).upsertUsers(anyMap());
+        verify(courseService, times(2)).getCourseIdsByCodes(anyCollection());
+        verify(courseService, never()).getCourseById(anyString());
+    }
+
+    private Map<String, UserDTO> usersFor(Map<String, String> namesByEmail) {
+        Map<String, UserDTO> users = new HashMap<>();
+        namesByEmail.forEach((email, name) -> {
+            UserDTO user = new UserDTO();
+            user.setId("id-" + email);
+            user.setEmail(email);
+            users.put(email, user);
+        });
+        return users;
+    }
 }
@@ -0,0 +1,132 @@
+package com.app.service;
+
+import com.app.config.CatalogCacheProperties;
+import com.app.dto.CourseDTO;
+import com.app.dto.ExamDTO;
+import com.app.dto.KeysetPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Catalog Cache Tests")
+class CatalogCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogCache catalogCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogCache = new CatalogCache(new CatalogCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should load a course once, match its code case-insensitively and evict it on change")
+    void testCourseLookups() {
+        AtomicInteger loads = new AtomicInteger();
+        CourseDTO course = new CourseDTO("c1", "CS101", "Intro", null, "prof-1", "Fall 2024", "active", null);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Optional.of(course), catalogCache.getCourse("c1", () -> {
+                loads.incrementAndGet();
+                return Optional.of(course);
+            }));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", "courses").tag("result", "hit").functionCounter().count());
+
+        catalogCache.getCourseByCode("CS101", () -> Optional.of(course));
+        assertEquals(Optional.of(course), catalogCache.getCourseByCode("cs101", Optional::empty));
+
+        catalogCache.courseChanged("c1", "CS101");
+        assertEquals(Optional.empty(), catalogCache.getCourse("c1", Optional::empty));
+        assertEquals(Optional.empty(), catalogCache.getCourseByCode("CS101", Optional::empty));
+    }
+
+    @Test
+    @DisplayName("Should not cache lookups that found nothing")
+    void testMissesNotCached() {
+        ExamDTO exam = new ExamDTO();
+        exam.setId("x1");
+
+        assertEquals(Optional.empty(), catalogCache.getExam("x1", Optional::empty));
+        assertEquals(Optional.of(exam), catalogCache.getExam("x1", () -> Optional.of(exam)));
+    }
+
+    @Test
+    @DisplayName("Should evict every cached exam page of the courses an exam moved between")
+    void testExamPagesEvictedByCourse() {
+        KeysetPage<ExamDTO> page = new KeysetPage<>(List.of(), null);
+        KeysetPage<ExamDTO> reloaded = new KeysetPage<>(List.of(), null);
+        catalogCache.getExamPage("c1", "", 20, () -> page);
+        catalogCache.getExamPage("c1", "x5", 20, () -> page);
+        catalogCache.getExamPage("c2", "", 20, () -> page);
+
+        catalogCache.examChanged("x9", "c1");
+
+        assertSame(reloaded, catalogCache.getExamPage("c1", "", 20, () -> reloaded));
+        assertSame(reloaded, catalogCache.getExamPage("c1", "x5", 20, () -> reloaded));
+        assertSame(page, catalogCache.getExamPage("c2", "", 20, () -> reloaded));
+    }
+
+    @Test
+    @DisplayName("Should evict only the course lists of students whose enrollments changed")
+    void testStudentCoursesEvictedByStudent() {
+        KeysetPage<CourseDTO> page = new KeysetPage<>(List.of(), null);
+        KeysetPage<CourseDTO> reloaded = new KeysetPage<>(List.of(), null);
+        catalogCache.getStudentCourses("s1", null, null, null, "", 50, () -> page);
+        catalogCache.getStudentCourses("s1", "enrolled", "active", "Fall 2024", "", 50, () -> page);
+        catalogCache.getStudentCourses("s2", null, null, null, "", 50, () -> page);
+
+        catalogCache.studentsChanged(List.of("s1"));
+
+        assertSame(reloaded, catalogCache.getStudentCourses("s1", null, null, null, "", 50, () -> reloaded));
+        assertSame(reloaded, catalogCache.getStudentCourses("s1", "enrolled", "active", "Fall 2024", "", 50, () -> reloaded));
+        assertSame(page, catalogCache.getStudentCourses("s2", null, null, null, "", 50, () -> reloaded));
+
+        catalogCache.allStudentCoursesChanged();
+        assertSame(reloaded, catalogCache.getStudentCourses("s2", null, null, null, "", 50, () -> reloaded));
+    }
+
+    @Test
+    @DisplayName("Should keep caching a student's pages after the student paged past the per-student limit")
+    void testStudentPagesBounded() {
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            String afterId = "c" + i;
+            catalogCache.getStudentCourses("s1", null, null, null, afterId, 50, () -> {
+                loads.incrementAndGet();
+                return new KeysetPage<>(List.of(), null);
+            });
+        }
+        KeysetPage<CourseDTO> last = catalogCache.getStudentCourses("s1", null, null, null, "c99", 50, () -> null);
+
+        assertEquals(100, loads.get());
+        assertNotNull(last);
+    }
+
+    @Test
+    @DisplayName("Should load whole lists each time instead of caching them")
+    void testUnpagedListsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            catalogCache.getExamPage("c1", "", KeysetPage.UNPAGED, () -> {
+                loads.incrementAndGet();
+                return new KeysetPage<>(List.of(), null);
+            });
+            catalogCache.getStudentCourses("s1", null, null, null, "", KeysetPage.UNPAGED, () -> {
+                loads.incrementAndGet();
+                return new KeysetPage<>(List.of(), null);
+            });
+        }
+
+        assertEquals(4, loads.get());
+    }
+}
@@ -0,0 +1,68 @@
+package com.app.service;
+
+import com.app.repository.CourseEnrollmentCountRepository;
+import com.app.repository.CourseEnrollmentRepository;
+import com.app.repository.EnrollmentChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Course Enrollment Service - Bulk Check Tests")
+class CourseEnrollmentServiceTest {
+
+    @Mock
+    private CourseEnrollmentRepository enrollmentRepository;
+    @Mock
+    private EnrollmentMembershipIndex membershipIndex;
+    @Mock
+    private CourseEnrollmentCountRepository countRepository;
+    @Mock
+    private EnrollmentChangeRepository changeRepository;
+    @Mock
+    private CatalogCache catalogCache;
+
+    private CourseEnrollmentService enrollmentService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        enrollmentService = new CourseEnrollmentService(enrollmentRepository, membershipIndex, countRepository,
+                changeRepository, catalogCache);
+    }
+
+    @Test
+    @DisplayName("Should answer every pair with one query while the index is not loaded")
+    void testBulkCheckWithOneQuery() {
+        when(membershipIndex.lookupAll(anyList(), anyList())).thenReturn(null);
+        when(enrollmentRepository.findEnrolledPairs(any(), any())).thenReturn(List.of(
+                new Object[]{"c1", "s1"},
+                // Enrolled, but not one of the pairs asked for
+                new Object[]{"c2", "s2"}));
+
+        boolean[] enrolled = enrollmentService.areStudentsEnrolled(
+                List.of("c1", "c1", "c2"), List.of("s1", "s2", "s1"));
+
+        assertArrayEquals(new boolean[]{true, false, false}, enrolled);
+        verify(enrollmentRepository, times(1)).findEnrolledPairs(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not query the database once the index is loaded")
+    void testBulkCheckFromIndex() {
+        when(membershipIndex.lookupAll(List.of("c1", "c2"), List.of("s1", "s1"))).thenReturn(new boolean[]{false, true});
+
+        boolean[] enrolled = enrollmentService.areStudentsEnrolled(List.of("c1", "c2"), List.of("s1", "s1"));
+
+        assertArrayEquals(new boolean[]{false, true}, enrolled);
+        verifyNoInteractions(enrollmentRepository);
+    }
+}
@@ -0,0 +1,87 @@
+package com.app.service;
+
+import com.app.config.CourseSearchProperties;
+import com.app.dto.CourseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads the search index from H2 in MySQL mode, using the real schema
+ */
+@DisplayName("Course Search Index Tests")
+class CourseSearchIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CourseSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:coursesearch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("fack_db.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES ('prof-1', 'Prof', 'prof@example.com', 'professor', 'active')");
+        insertCourse("c1", "CS201", "Data Structures", "Lists, trees and graphs", "Fall 2024");
+        insertCourse("c2", "CS301", "Database Systems", "SQL and transactions", "Spring 2025");
+        insertCourse("c3", "MA101", "Calculus", "Limits and data fitting", "Fall 2024");
+
+        index = new CourseSearchIndex(jdbcTemplate, new CourseSearchProperties(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should answer from memory once loaded, ranking name matches above description matches")
+    void testSearchAfterLoad() {
+        assertNull(index.search("data", 10));
+
+        index.reload();
+
+        assertEquals(List.of("c1", "c2", "c3"), ids(index.search("data", 10)));
+        assertEquals(List.of("c1", "c2"), ids(index.search("data", 2)));
+        assertEquals(List.of("c1"), ids(index.search("data struct", 10)));
+        assertEquals(List.of("c2"), ids(index.search("cs301", 10)));
+        assertEquals(List.of("c1", "c3"), ids(index.search("fall 2024", 10)));
+        assertEquals(List.of("c3"), ids(index.search("calculsu", 10)));
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should apply course writes to the loaded index")
+    void testIncrementalUpdates() {
+        index.reload();
+
+        index.courseChanged(new CourseDTO("c4", "CS401", "Distributed Databases", null, "prof-1", "Fall 2025", "active", null));
+        index.courseChanged(new CourseDTO("c2", "CS301", "Operating Systems", null, "prof-1", "Spring 2025", "active", null));
+        index.courseRemoved("c3");
+
+        assertEquals(List.of("c4"), ids(index.search("databa", 10)));
+        assertEquals(List.of("c2"), ids(index.search("operating", 10)));
+        assertTrue(index.search("calculus", 10).isEmpty());
+    }
+
+    private void insertCourse(String id, String code, String name, String description, String semester) {
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, description, professor_id, semester) VALUES (?, ?, ?, ?, 'prof-1', ?)",
+                id, code, name, description, semester);
+    }
+
+    private static List<String> ids(List<CourseDTO> courses) {
+        return courses.stream().map(CourseDTO::getId).toList();
+    }
+}
@@ -0,0 +1,94 @@
+package com.app.service;
+
+import com.app.config.EnrollmentCountsProperties;
+import com.app.dto.EnrollmentCountsDTO;
+import com.app.repository.CourseEnrollmentCountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Materialized enrollment counts on H2 in MySQL mode, using the real schema
+ */
+@DisplayName("Enrollment Count Reconciler Tests")
+class EnrollmentCountReconcilerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CourseEnrollmentCountRepository countRepository;
+    private EnrollmentCountReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:counts;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("fack_db.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES ('prof-1', 'Prof', 'prof@example.com', 'professor', 'active')");
+        for (String student : new String[]{"s1", "s2", "s3"}) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES (?, ?, ?, 'student', 'active')",
+                    student, student, student + "@example.com");
+        }
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id, semester) VALUES ('c1', 'CS101', 'Intro', 'prof-1', 'Fall 2024')");
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id, semester) VALUES ('c2', 'CS201', 'Data', 'prof-1', 'Fall 2024')");
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e1', 'c1', 's1', 'enrolled')");
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e2', 'c1', 's2', 'enrolled')");
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e3', 'c1', 's3', 'dropped')");
+
+        countRepository = new CourseEnrollmentCountRepository(jdbcTemplate);
+        reconciler = new EnrollmentCountReconciler(countRepository, new EnrollmentCountsProperties(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciler.stop();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should add deltas and recount a course or semester from its enrollments")
+    void testDeltasAndRecount() {
+        countRepository.add("c1", 2, 1, 0);
+        countRepository.add("c1", -1, 0, 1);
+        assertEquals(new EnrollmentCountsDTO("c1", 1, 1, 1), countRepository.findByCourseIds(List.of("c1")).get("c1"));
+
+        countRepository.recountCourse("c1");
+        assertEquals(new EnrollmentCountsDTO("c1", 2, 1, 0), countRepository.findByCourseIds(List.of("c1")).get("c1"));
+
+        jdbcTemplate.update("UPDATE course_enrollments SET status = 'completed'");
+        countRepository.recountSemester("Fall 2024");
+        Map<String, EnrollmentCountsDTO> counts = countRepository.findByCourseIds(List.of("c1", "c2", "unknown"));
+        assertEquals(new EnrollmentCountsDTO("c1", 0, 0, 3), counts.get("c1"));
+        assertEquals(new EnrollmentCountsDTO("c2", 0, 0, 0), counts.get("c2"));
+        assertEquals(2, counts.size());
+    }
+
+    @Test
+    @DisplayName("Should recount only drifted courses and drop counts of deleted courses")
+    void testReconcile() {
+        // First run fills in every course
+        assertEquals(2, reconciler.reconcile());
+        assertEquals(0, reconciler.reconcile());
+
+        // Changed behind the application's back
+        jdbcTemplate.update("UPDATE course_enrollments SET status = 'completed' WHERE id = 'e1'");
+        countRepository.add("gone", 4, 0, 0);
+
+        assertEquals(1, reconciler.reconcile());
+        Map<String, EnrollmentCountsDTO> counts = countRepository.findByCourseIds(List.of("c1", "c2", "gone"));
+        assertEquals(new EnrollmentCountsDTO("c1", 1, 1, 1), counts.get("c1"));
+        assertEquals(new EnrollmentCountsDTO("c2", 0, 0, 0), counts.get("c2"));
+        assertFalse(counts.containsKey("gone"));
+    }
+}
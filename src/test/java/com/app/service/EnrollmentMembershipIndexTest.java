@@ -0,0 +1,165 @@
+package com.app.service;
+
+import com.app.config.EnrollmentIndexProperties;
+import com.app.entity.CourseEnrollment;
+import com.app.repository.EnrollmentChangeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads the index from H2 in MySQL mode, using the real schema
+ */
+@DisplayName("Enrollment Membership Index Tests")
+class EnrollmentMembershipIndexTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private EnrollmentChangeRepository changeRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private EnrollmentMembershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:membership;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("fack_db.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES ('prof-1', 'Prof', 'prof@example.com', 'professor', 'active')");
+        for (String student : new String[]{"s1", "s2", "s3"}) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES (?, ?, ?, 'student', 'active')",
+                    student, student, student + "@example.com");
+        }
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id) VALUES ('c1', 'CS101', 'Intro', 'prof-1')");
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id) VALUES ('c2', 'CS201', 'Data', 'prof-1')");
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e1', 'c1', 's1', 'enrolled')");
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e2', 'c1', 's2', 'dropped')");
+
+        changeRepository = new EnrollmentChangeRepository(jdbcTemplate);
+        changeRepository.createTableIfMissing();
+
+        meterRegistry = new SimpleMeterRegistry();
+        index = new EnrollmentMembershipIndex(jdbcTemplate, changeRepository, new EnrollmentIndexProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should answer from memory once loaded and count each outcome")
+    void testLookupAfterLoad() {
+        assertNull(index.lookup("c1", "s1"));
+
+        index.reload();
+
+        assertTrue(index.lookup("c1", "s1"));
+        assertTrue(index.lookup("c1", "s2"));
+        assertFalse(index.lookup("c2", "s1"));
+        assertFalse(index.lookup("c1", "unknown"));
+        assertEquals(2.0, meterRegistry.get("enrollment.index.lookups").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("enrollment.index.lookups").tag("result", "fallback").counter().count());
+        assertEquals(2.0, meterRegistry.get("enrollment.index.lookups").tag("result", "miss").counter().count()
+                + meterRegistry.get("enrollment.index.lookups").tag("result", "bloom_negative").counter().count());
+        assertEquals(2.0, meterRegistry.get("enrollment.index.enrollments").gauge().value());
+        assertTrue(meterRegistry.get("enrollment.index.age").gauge().value() >= 0);
+    }
+
+    @Test
+    @DisplayName("Should apply writes only when their transaction commits")
+    void testWritesAppliedOnCommit() {
+        index.reload();
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transaction.executeWithoutResult(status -> {
+            index.added("c2", "s3");
+            status.setRollbackOnly();
+        });
+        assertFalse(index.lookup("c2", "s3"));
+
+        transaction.executeWithoutResult(status -> {
+            index.added("c2", "s3");
+            index.removed("c1", "s1");
+            assertFalse(index.lookup("c2", "s3"));
+        });
+        assertTrue(index.lookup("c2", "s3"));
+        assertFalse(index.lookup("c1", "s1"));
+    }
+
+    @Test
+    @DisplayName("Should re-read a course changed behind its back")
+    void testCourseChanged() {
+        index.reload();
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e3', 'c2', 's2', 'enrolled')");
+        assertFalse(index.lookup("c2", "s2"));
+
+        index.courseChanged("c2");
+
+        assertTrue(index.lookup("c2", "s2"));
+        assertTrue(index.lookup("c1", "s1"));
+    }
+
+    @Test
+    @DisplayName("Should catch up from the change feed without rescanning enrollments")
+    void testRefreshFromFeed() {
+        index.reload();
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e3', 'c2', 's3', 'enrolled')");
+        changeRepository.append(EnrollmentChangeRepository.CREATED, enrollment("e3", "c2", "s3"));
+        changeRepository.appendCurrent(EnrollmentChangeRepository.DELETED, List.of("e1"));
+        jdbcTemplate.update("DELETE FROM course_enrollments WHERE id = 'e1'");
+        // Written behind the feed's back, so only a full reload would see it
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e4', 'c2', 's1', 'enrolled')");
+        sequence();
+
+        index.refresh();
+
+        assertTrue(index.lookup("c2", "s3"));
+        assertFalse(index.lookup("c1", "s1"));
+        assertTrue(index.lookup("c1", "s2"));
+        assertFalse(index.lookup("c2", "s1"));
+        assertEquals(2.0, meterRegistry.get("enrollment.index.enrollments").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should reload in full when the feed was purged past the index")
+    void testRefreshReloadsWhenFeedPurged() {
+        index.reload();
+        jdbcTemplate.update("INSERT INTO course_enrollments (id, course_id, student_id, status) VALUES ('e3', 'c2', 's3', 'enrolled')");
+        changeRepository.append(EnrollmentChangeRepository.CREATED, enrollment("e3", "c2", "s3"));
+        sequence();
+        jdbcTemplate.update("DELETE FROM enrollment_changes");
+
+        index.refresh();
+
+        assertTrue(index.lookup("c2", "s3"));
+    }
+
+    private void sequence() {
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+                .executeWithoutResult(status -> changeRepository.sequence(100));
+    }
+
+    private static CourseEnrollment enrollment(String id, String courseId, String studentId) {
+        CourseEnrollment enrollment = new CourseEnrollment();
+        enrollment.setId(id);
+        enrollment.setCourseId(courseId);
+        enrollment.setStudentId(studentId);
+        enrollment.setStatus("enrolled");
+        return enrollment;
+    }
+}
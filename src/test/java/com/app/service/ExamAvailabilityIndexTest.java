@@ -0,0 +1,101 @@
+package com.app.service;
+
+import com.app.config.ExamAvailabilityProperties;
+import com.app.dto.ExamDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads the availability index from H2 in MySQL mode, using the real schema
+ */
+@DisplayName("Exam Availability Index Tests")
+class ExamAvailabilityIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 10, 9, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private ExamAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:examavailability;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("fack_db.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES ('prof-1', 'Prof', 'prof@example.com', 'professor', 'active')");
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id) VALUES ('c1', 'CS201', 'Data Structures', 'prof-1')");
+        jdbcTemplate.update("INSERT INTO courses (id, code, name, professor_id) VALUES ('c2', 'CS301', 'Databases', 'prof-1')");
+        insertExam("midterm", "c1", NOW.minusDays(1), NOW.plusHours(2));
+        insertExam("quiz", "c1", NOW.minusHours(1), NOW.plusHours(1));
+        insertExam("past", "c1", NOW.minusDays(7), NOW.minusDays(6));
+        insertExam("future", "c1", NOW.plusDays(1), NOW.plusDays(2));
+        insertExam("practice", "c2", null, null);
+
+        index = new ExamAvailabilityIndex(jdbcTemplate, new ExamAvailabilityProperties(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should find the exams open at an instant, closing soonest first, once loaded")
+    void testFindOpenAfterLoad() {
+        assertNull(index.findOpen(List.of("c1"), NOW));
+
+        index.reload();
+
+        assertEquals(List.of("quiz", "midterm"), ids(index.findOpen(List.of("c1"), NOW)));
+        assertEquals(List.of("quiz", "midterm", "practice"), ids(index.findOpen(List.of("c1", "c2", "c3"), NOW)));
+        assertEquals(List.of("future", "practice"), ids(index.findOpen(List.of("c1", "c2"), NOW.plusDays(1))));
+        // Both ends of the window are inclusive
+        assertEquals(List.of("quiz", "midterm"), ids(index.findOpen(List.of("c1"), NOW.plusHours(1))));
+        assertEquals(List.of("midterm"), ids(index.findOpen(List.of("c1"), NOW.minusDays(1))));
+        assertTrue(index.findOpen(List.of("c3"), NOW).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should apply exam writes to the loaded index")
+    void testIncrementalUpdates() {
+        index.reload();
+
+        index.examChanged(exam("makeup", "c1", NOW.minusMinutes(5), NOW.plusMinutes(30)));
+        index.examChanged(exam("quiz", "c2", NOW.minusHours(1), NOW.plusHours(1)));
+        index.examChanged(exam("future", "c1", NOW.minusHours(3), NOW.plusHours(3)));
+        index.examRemoved("midterm");
+        index.examRemoved("practice");
+
+        assertEquals(List.of("makeup", "future"), ids(index.findOpen(List.of("c1"), NOW)));
+        assertEquals(List.of("quiz"), ids(index.findOpen(List.of("c2"), NOW)));
+    }
+
+    private void insertExam(String id, String courseId, LocalDateTime start, LocalDateTime end) {
+        jdbcTemplate.update("INSERT INTO exams (id, course_id, title, professor_id, start_available_at, end_available_at) "
+                        + "VALUES (?, ?, ?, 'prof-1', ?, ?)",
+                id, courseId, id, start != null ? Timestamp.valueOf(start) : null, end != null ? Timestamp.valueOf(end) : null);
+    }
+
+    private static ExamDTO exam(String id, String courseId, LocalDateTime start, LocalDateTime end) {
+        return new ExamDTO(id, courseId, id, null, "prof-1", null, 60, start, end, true, NOW);
+    }
+
+    private static List<String> ids(List<ExamDTO> exams) {
+        return exams.stream().map(ExamDTO::getId).toList();
+    }
+}
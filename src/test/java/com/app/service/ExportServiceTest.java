@@ -0,0 +1,100 @@
+package com.app.service;
+
+import com.app.entity.CourseEnrollment;
+import com.app.entity.User;
+import com.app.repository.CourseEnrollmentRepository;
+import com.app.repository.ExamRepository;
+import com.app.repository.UserRepository;
+import com.app.util.CSVParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Export Service Tests")
+class ExportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private CourseEnrollmentRepository enrollmentRepository;
+    @Mock
+    private ExamRepository examRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        exportService = new ExportService(userRepository, enrollmentRepository, examRepository,
+                entityManager, objectMapper, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should write users as a JSON array without password hashes, detaching each one")
+    void testExportUsersAsJson() throws Exception {
+        User alice = user("u1", "Alice Brown", "alice@student.edu");
+        User bob = user("u2", "Bob Wilson", "bob@student.edu");
+        when(userRepository.streamAll()).thenReturn(Stream.of(alice, bob));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportUsers(ExportService.Format.JSON, output);
+
+        JsonNode users = objectMapper.readTree(output.toByteArray());
+        assertEquals(2, users.size());
+        assertEquals("alice@student.edu", users.get(0).get("email").asText());
+        assertEquals("2026-02-10T10:45:30", users.get(0).get("createdAt").asText());
+        assertTrue(users.get(1).get("lastLoginAt").isNull());
+        assertFalse(users.get(0).has("passwordHash"));
+        verify(entityManager).detach(alice);
+        verify(entityManager).detach(bob);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should write enrollments as CSV that reads back field for field")
+    void testExportEnrollmentsAsCsv() throws Exception {
+        CourseEnrollment enrollment = new CourseEnrollment("e1", "c1", "s1", LocalDateTime.of(2026, 2, 10, 10, 45, 30), "enrolled, \"late\"");
+        when(enrollmentRepository.streamAll()).thenReturn(Stream.of(enrollment));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportEnrollments(ExportService.Format.CSV, output);
+
+        List<String[]> records = CSVParser.parseCSV(output.toString(StandardCharsets.UTF_8));
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[]{"id", "courseId", "studentId", "enrolledAt", "status"}, records.get(0));
+        assertArrayEquals(new String[]{"e1", "c1", "s1", "2026-02-10T10:45:30", "enrolled, \"late\""}, records.get(1));
+        verify(entityManager).detach(enrollment);
+    }
+
+    private static User user(String id, String name, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(email);
+        user.setPasswordHash("hashed_password");
+        user.setRole("student");
+        user.setStatus("active");
+        user.setCreatedAt(LocalDateTime.of(2026, 2, 10, 10, 45, 30));
+        return user;
+    }
+}
@@ -0,0 +1,96 @@
+package com.app.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Refreshing Snapshot Tests")
+class RefreshingSnapshotTest {
+
+    private RefreshingSnapshot<List<String>> snapshot;
+
+    @AfterEach
+    void tearDown() {
+        if (snapshot != null) {
+            snapshot.stop();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should replay changes made during a reload on the new snapshot")
+    void testChangesDuringReloadReplayed() {
+        AtomicReference<Runnable> duringLoad = new AtomicReference<>(() -> {});
+        snapshot = new RefreshingSnapshot<>("test index", () -> {
+            List<String> loaded = new ArrayList<>(List.of("a"));
+            duringLoad.get().run();
+            return loaded;
+        }, loaded -> loaded.size() + " items");
+
+        assertNull(snapshot.get());
+        // Nothing loaded yet: the change is dropped, the load will read it from the database
+        snapshot.apply(items -> items.add("lost"));
+        assertEquals(List.of("a"), snapshot.reload());
+
+        // Applied to the live snapshot, and again to the one being read
+        duringLoad.set(() -> snapshot.apply(items -> items.add("b")));
+        List<String> previous = snapshot.get();
+        snapshot.reload();
+
+        assertEquals(List.of("a", "b"), previous);
+        assertEquals(List.of("a", "b"), snapshot.get());
+    }
+
+    @Test
+    @DisplayName("Should keep the previous snapshot and stop recording changes when a reload fails")
+    void testFailedReload() {
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        snapshot = new RefreshingSnapshot<>("test index", () -> {
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            return new ArrayList<>(List.of("a"));
+        }, loaded -> loaded.size() + " items");
+        snapshot.reload();
+        List<String> loaded = snapshot.get();
+
+        failure.set(new IllegalStateException("database down"));
+        assertThrows(IllegalStateException.class, snapshot::reload);
+
+        failure.set(null);
+        snapshot.apply(items -> items.add("b"));
+        assertSame(loaded, snapshot.get());
+        assertEquals(List.of("a", "b"), snapshot.get());
+    }
+
+    @Test
+    @DisplayName("Should apply a change only once the transaction commits")
+    void testApplyAfterCommit() {
+        snapshot = new RefreshingSnapshot<>("test index", () -> new ArrayList<>(List.of("a")),
+                loaded -> loaded.size() + " items");
+        snapshot.reload();
+
+        TransactionSynchronizationManager.initSynchronization();
+        snapshot.applyAfterCommit(items -> items.add("b"));
+        assertEquals(List.of("a"), snapshot.get());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of("a", "b"), snapshot.get());
+
+        // Outside a transaction the change is applied at once
+        snapshot.applyAfterCommit(items -> items.add("c"));
+        assertEquals(List.of("a", "b", "c"), snapshot.get());
+    }
+}
@@ -0,0 +1,88 @@
+package com.app.service;
+
+import com.app.config.UserSearchProperties;
+import com.app.dto.UserSummaryDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads the autocomplete index from H2 in MySQL mode, using the real schema
+ */
+@DisplayName("User Search Index Tests")
+class UserSearchIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:usersearch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("fack_db.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        insertUser("u1", "Nguyễn Văn An", "an.nguyen@uni.edu", "student", "active");
+        insertUser("u2", "Trần Thị Anh", "anh.tran@uni.edu", "professor", "active");
+        insertUser("u3", "Nguyễn Thị Bình", "binh.nguyen@uni.edu", "student", "locked");
+
+        index = new UserSearchIndex(jdbcTemplate, new UserSearchProperties(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Should match name and email prefixes without accents, filtered by role and status")
+    void testSearchAfterLoad() {
+        assertNull(index.search("an", null, null, 10));
+
+        index.reload();
+
+        assertEquals(List.of("u1", "u2"), ids(index.search("an", null, null, 10)));
+        assertEquals(List.of("u1", "u3"), ids(index.search("nguyen", null, null, 10)));
+        assertEquals(List.of("u3"), ids(index.search("Nguyễn Th", null, null, 10)));
+        assertEquals(List.of("u3"), ids(index.search("binh.ng", null, null, 10)));
+        assertEquals(List.of("u2"), ids(index.search("ANH.TRAN@uni", null, null, 10)));
+        assertEquals(List.of("u1"), ids(index.search("nguyen", "student", "active", 10)));
+        assertEquals(List.of("u2"), ids(index.search("an", "professor", null, 10)));
+        assertTrue(index.search("le", null, null, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should apply user writes to the loaded index")
+    void testIncrementalUpdates() {
+        index.reload();
+
+        index.usersChanged(List.of(new UserSummaryDTO("u4", "Lê Văn Nam", "nam.le@uni.edu", "student", "active")));
+        index.usersChanged(List.of(new UserSummaryDTO("u2", "Trần Minh", "minh.tran@uni.edu", "professor", "active")));
+        index.userRemoved("u3");
+
+        assertEquals(List.of("u4"), ids(index.search("le va", null, null, 10)));
+        assertEquals(List.of("u2"), ids(index.search("minh", null, null, 10)));
+        assertTrue(index.search("anh.tran", null, null, 10).isEmpty());
+        assertTrue(index.search("binh", null, null, 10).isEmpty());
+    }
+
+    private void insertUser(String id, String name, String email, String role, String status) {
+        jdbcTemplate.update("INSERT INTO users (id, name, email, role, status) VALUES (?, ?, ?, ?, ?)",
+                id, name, email, role, status);
+    }
+
+    private static List<String> ids(List<UserSummaryDTO> users) {
+        return users.stream().map(UserSummaryDTO::getId).toList();
+    }
+}
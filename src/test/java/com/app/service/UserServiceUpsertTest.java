@@ -6,13 +6,20 @@ import com.app.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @DisplayName("User Service - Upsert Tests")
@@ -21,12 +28,18 @@ class UserServiceUpsertTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserSearchIndex searchIndex;
+
+    @Captor
+    private ArgumentCaptor<List<User>> inserted;
+
     private UserService userService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        userService = new UserService(userRepository);
+        userService = new UserService(userRepository, searchIndex);
     }
 
     @Test
@@ -154,4 +167,35 @@ class UserServiceUpsertTest {
         
         assertNotEquals(result1.getId(), result2.getId());
     }
+
+    @Test
+    @DisplayName("Should resolve many emails with one lookup and batch insert the missing ones")
+    void testBulkUpsertUsers() {
+        User existingUser = new User();
+        existingUser.setId("existing-id");
+        existingUser.setName("Existing User");
+        existingUser.setEmail("Existing@example.com");
+        existingUser.setRole("student");
+        existingUser.setStatus("active");
+        
+        when(userRepository.findByEmailIn(anyCollection())).thenReturn(List.of(existingUser));
+        
+        Map<String, String> namesByEmail = new LinkedHashMap<>();
+        namesByEmail.put("existing@example.com", "Existing User");
+        namesByEmail.put("new@example.com", "New Student");
+        
+        Map<String, UserDTO> result = userService.upsertUsers(namesByEmail);
+        
+        assertEquals(2, result.size());
+        assertEquals("existing-id", result.get("existing@example.com").getId());
+        assertEquals("student", result.get("new@example.com").getRole());
+        assertEquals("active", result.get("new@example.com").getStatus());
+        
+        verify(userRepository, times(1)).findByEmailIn(anyCollection());
+        verify(userRepository, times(1)).batchInsert(inserted.capture());
+        assertEquals(1, inserted.getValue().size());
+        assertEquals("new@example.com", inserted.getValue().get(0).getEmail());
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(userRepository, never()).save(any());
+    }
 }
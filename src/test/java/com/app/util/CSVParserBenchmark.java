@@ -0,0 +1,70 @@
+package com.app.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Throughput and allocation of the CSV import path: CSVRowReader plus CSVParser.extractStudent.
+ * Not part of the test suite; run after mvn test-compile with
+ * java -cp target/classes:target/test-classes com.app.util.CSVParserBenchmark [rows]
+ */
+public class CSVParserBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String csv = generate(rows);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parse(csv);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        int students = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            students += parse(csv);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        long totalRows = (long) rows * MEASURED_ROUNDS;
+        System.out.printf("%d rows x %d rounds, %d students extracted%n", rows, MEASURED_ROUNDS, students);
+        System.out.printf("%.0f rows/s, %.1f ns/row, %.0f bytes allocated/row%n",
+                totalRows / (elapsed / 1e9), (double) elapsed / totalRows, (double) allocated / totalRows);
+    }
+
+    private static int parse(String csv) throws IOException {
+        int students = 0;
+        try (CSVRowReader reader = new CSVRowReader(new StringReader(csv))) {
+            String[] record;
+            while ((record = reader.readRow()) != null) {
+                if (CSVParser.extractStudent(record, 0, 1) != null) {
+                    students++;
+                }
+            }
+        }
+        return students;
+    }
+
+    // Registrar-style export: a header, mostly plain rows, some quoted names and a few invalid emails
+    private static String generate(int rows) {
+        StringBuilder csv = new StringBuilder(rows * 64);
+        csv.append("Name,Email,Student Number,Programme\r\n");
+        for (int i = 0; i < rows; i++) {
+            if (i % 10 == 0) {
+                csv.append("\"Doe, John ").append(i).append('"');
+            } else {
+                csv.append("Student ").append(i);
+            }
+            csv.append(", student").append(i);
+            csv.append(i % 50 == 0 ? "-at-example.com" : "@example.com");
+            csv.append(',').append(20240000 + i).append(",Computer Science\r\n");
+        }
+        return csv.toString();
+    }
+}
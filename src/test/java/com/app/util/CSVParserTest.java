@@ -156,4 +156,18 @@ class CSVParserTest {
         
         assertEquals(0, records.size());
     }
+
+    @Test
+    @DisplayName("Should validate emails exactly as the original pattern")
+    void testEmailValidationMatchesPattern() {
+        String[] emails = {
+            "john@example.com", "john.doe+tag@example.co.uk", "j_d-1@x", "a@b",
+            "@example.com", "john@", "john", "john doe@example.com", "jöhn@example.com",
+            "john@@example.com", "john@exa mple.com", "john@example\ncom", "john@example\u2028com",
+            "a@@", "a@\r"
+        };
+        for (String email : emails) {
+            assertEquals(email.matches("^[A-Za-z0-9+_.-]+@(.+)$"), CSVParser.isValidEmail(email), email);
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package com.app.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CSV Row Reader Tests")
+class CSVRowReaderTest {
+
+    @Test
+    @DisplayName("Should read records one at a time")
+    void testReadRowsIncrementally() throws IOException {
+        CSVRowReader reader = new CSVRowReader(new StringReader("John Doe,john@example.com\nJane Smith,jane@example.com"));
+
+        assertArrayEquals(new String[]{"John Doe", "john@example.com"}, reader.readRow());
+        assertArrayEquals(new String[]{"Jane Smith", "jane@example.com"}, reader.readRow());
+        assertNull(reader.readRow());
+    }
+
+    @Test
+    @DisplayName("Should keep line breaks inside quoted fields")
+    void testQuotedFieldSpanningNewlines() throws IOException {
+        CSVRowReader reader = new CSVRowReader(new StringReader("\"Doe,\nJohn\",john@example.com\nJane,jane@example.com"));
+
+        String[] first = reader.readRow();
+        assertEquals("Doe,\nJohn", first[0]);
+        assertEquals("john@example.com", first[1]);
+        assertEquals(1, reader.getRecordLineNumber());
+
+        String[] second = reader.readRow();
+        assertEquals("Jane", second[0]);
+        assertEquals(3, reader.getRecordLineNumber());
+    }
+
+    @Test
+    @DisplayName("Should unescape doubled quotes")
+    void testEscapedQuotes() throws IOException {
+        CSVRowReader reader = new CSVRowReader(new StringReader("\"John \"\"JD\"\" Doe\",john@example.com"));
+
+        assertEquals("John \"JD\" Doe", reader.readRow()[0]);
+    }
+
+    @Test
+    @DisplayName("Should handle CRLF line endings and a byte order mark")
+    void testCrlfAndBom() throws IOException {
+        CSVRowReader reader = new CSVRowReader(new StringReader("\uFEFFJohn,john@example.com\r\n\r\nJane,jane@example.com\r\n"));
+
+        assertArrayEquals(new String[]{"John", "john@example.com"}, reader.readRow());
+        assertArrayEquals(new String[]{"Jane", "jane@example.com"}, reader.readRow());
+        assertEquals(3, reader.getRecordLineNumber());
+        assertNull(reader.readRow());
+    }
+
+    @Test
+    @DisplayName("Should read fields spanning several input blocks")
+    void testFieldAcrossBufferBoundary() throws IOException {
+        String longName = "x".repeat(20_000);
+        CSVRowReader reader = new CSVRowReader(new StringReader("\"" + longName + "\",john@example.com\n  Jane  , jane@example.com "));
+
+        assertArrayEquals(new String[]{longName, "john@example.com"}, reader.readRow());
+        assertArrayEquals(new String[]{"Jane", "jane@example.com"}, reader.readRow());
+        assertNull(reader.readRow());
+    }
+
+    @Test
+    @DisplayName("Should keep empty trailing fields")
+    void testEmptyTrailingField() throws IOException {
+        CSVRowReader reader = new CSVRowReader(new StringReader("John,"));
+
+        assertArrayEquals(new String[]{"John", ""}, reader.readRow());
+    }
+
+    @Test
+    @DisplayName("Should fail on unterminated quoted field")
+    void testUnterminatedQuote() {
+        CSVRowReader reader = new CSVRowReader(new StringReader("John,\"john@example.com\nJane,jane@example.com"));
+
+        IOException e = assertThrows(IOException.class, reader::readRow);
+        assertTrue(e.getMessage().contains("line 1"));
+    }
+}
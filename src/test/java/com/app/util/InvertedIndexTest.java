@@ -0,0 +1,81 @@
+package com.app.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Inverted Index Tests")
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.put("d1", "CS201", Map.of("data", 4, "structures", 4, "cs201", 8, "cs", 8, "201", 8));
+        index.put("d2", "CS301", Map.of("database", 4, "systems", 4));
+        index.put("d3", "CS101", Map.of("algorithms", 4, "data", 1));
+    }
+
+    @Test
+    @DisplayName("Should split terms, drop accents and split letters from digits")
+    void testTokenize() {
+        assertEquals(List.of("lap", "trinh", "java", "cs101", "cs", "101"), InvertedIndex.tokenize("Lập trình JAVA - CS101"));
+        assertEquals(List.of("do", "an"), InvertedIndex.tokenize("Đồ án"));
+        assertTrue(InvertedIndex.tokenize(" - ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should rank exact matches above prefixes, ties by sort key, and require every query term")
+    void testRanking() {
+        assertEquals(List.of("d1", "d2", "d3"), index.search(List.of("data"), 10));
+        assertEquals(List.of("d1", "d2"), index.search(List.of("data"), 2));
+        assertEquals(List.of("d1"), index.search(List.of("data", "cs201"), 10));
+        assertTrue(index.search(List.of("data", "nothing"), 10).isEmpty());
+
+        index.put("d0", "CS001", Map.of("data", 4));
+        assertEquals(List.of("d0", "d1"), index.search(List.of("data"), 2));
+    }
+
+    @Test
+    @DisplayName("Should match one typo: a letter replaced, missing, extra or two swapped")
+    void testTypos() {
+        assertEquals(List.of("d3"), index.search(List.of("algorythms"), 10));
+        assertEquals(List.of("d3"), index.search(List.of("algoritms"), 10));
+        assertEquals(List.of("d3"), index.search(List.of("algorithmss"), 10));
+        assertEquals(List.of("d3"), index.search(List.of("aglorithms"), 10));
+        assertTrue(index.search(List.of("algorytmz"), 10).isEmpty());
+        // Too short to be matched with a typo
+        assertTrue(index.search(List.of("2o1"), 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should forget the terms of a replaced or removed document")
+    void testReplaceAndRemove() {
+        index.put("d2", "CS301", Map.of("networks", 4));
+        assertEquals(List.of("d1", "d3"), index.search(List.of("data"), 10));
+        assertEquals(List.of("d2"), index.search(List.of("netwrks"), 10));
+
+        index.remove("d2");
+        assertTrue(index.search(List.of("networks"), 10).isEmpty());
+        index.remove("d1");
+        assertEquals(List.of("d3"), index.search(List.of("data"), 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Should tell strings within one edit apart from the rest")
+    void testWithinOneEdit() {
+        assertTrue(InvertedIndex.withinOneEdit("data", "date"));
+        assertTrue(InvertedIndex.withinOneEdit("data", "adta"));
+        assertTrue(InvertedIndex.withinOneEdit("data", "dat"));
+        assertTrue(InvertedIndex.withinOneEdit("data", "datas"));
+        assertFalse(InvertedIndex.withinOneEdit("data", "dtaa2"));
+        assertFalse(InvertedIndex.withinOneEdit("data", "atad"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.app.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prefix Index Tests")
+class PrefixIndexTest {
+
+    private PrefixIndex<String, String[]> index;
+
+    @BeforeEach
+    void setUp() {
+        // Values are {id, words...}
+        index = new PrefixIndex<>(value -> value[0], value -> List.of(value).subList(1, value.length));
+        index.putAll(List.of(
+                new String[]{"u1", "nguyen", "van", "an"},
+                new String[]{"u2", "tran", "thi", "anh"},
+                new String[]{"u3", "nguyen", "thi", "binh"}));
+    }
+
+    @Test
+    @DisplayName("Should match every query token as a prefix of some value token")
+    void testSearch() {
+        assertEquals(List.of("u1", "u2"), ids(index.search(List.of("an"), value -> true, 10)));
+        assertEquals(List.of("u1", "u3"), ids(index.search(List.of("ngu"), value -> true, 10)));
+        assertEquals(List.of("u3"), ids(index.search(List.of("ngu", "th"), value -> true, 10)));
+        assertEquals(List.of("u1"), ids(index.search(List.of("ngu"), value -> true, 1)));
+        assertEquals(List.of("u3"), ids(index.search(List.of("ngu"), value -> !value[0].equals("u1"), 10)));
+        assertTrue(index.search(List.of("le"), value -> true, 10).isEmpty());
+        assertTrue(index.search(List.of(), value -> true, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should find values put after the arrays were built, and forget replaced and removed ones")
+    void testWrites() {
+        index.put(new String[]{"u4", "le", "van", "nam"});
+        index.put(new String[]{"u2", "tran", "minh"});
+        index.remove("u3");
+
+        assertEquals(List.of("u4"), ids(index.search(List.of("le"), value -> true, 10)));
+        assertEquals(List.of("u1", "u4"), ids(index.search(List.of("van"), value -> true, 10)));
+        assertEquals(List.of("u1"), ids(index.search(List.of("an"), value -> true, 10)));
+        assertEquals(List.of("u2"), ids(index.search(List.of("mi"), value -> true, 10)));
+        assertTrue(index.search(List.of("binh"), value -> true, 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("Should keep answering the same after many writes force a rebuild")
+    void testCompaction() {
+        for (int i = 0; i < 3000; i++) {
+            index.put(new String[]{"s" + i, "student" + i, "hoc"});
+        }
+        for (int i = 0; i < 3000; i += 2) {
+            index.remove("s" + i);
+        }
+
+        assertEquals(1503, index.size());
+        assertEquals(List.of("s2999"), ids(index.search(List.of("student2999"), value -> true, 10)));
+        assertTrue(index.search(List.of("student2998"), value -> true, 10).isEmpty());
+        assertEquals(1500, index.search(List.of("hoc"), value -> true, 5000).size());
+    }
+
+    private static List<String> ids(List<String[]> values) {
+        List<String> ids = new ArrayList<>();
+        values.forEach(value -> ids.add(value[0]));
+        return ids;
+    }
+}
@@ -0,0 +1,102 @@
+package com.app.util;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("XLSX Row Reader Tests")
+class XlsxRowReaderTest {
+
+    @Test
+    @DisplayName("Should read shared-string and numeric cells row by row")
+    void testReadRows() throws IOException {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet("Students");
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Name");
+        header.createCell(1).setCellValue("Email");
+        Row first = sheet.createRow(1);
+        first.createCell(0).setCellValue(" John Doe ");
+        first.createCell(1).setCellValue("john@example.com");
+        first.createCell(2).setCellValue(20240001);
+        Row second = sheet.createRow(2);
+        second.createCell(0).setCellValue("Jane Smith");
+        second.createCell(1).setCellValue("jane@example.com");
+
+        try (XlsxRowReader reader = XlsxRowReader.open(toStream(workbook))) {
+            assertArrayEquals(new String[]{"Name", "Email"}, reader.readRow());
+            assertEquals(1, reader.getRecordLineNumber());
+            assertArrayEquals(new String[]{"John Doe", "john@example.com", "20240001"}, reader.readRow());
+            assertArrayEquals(new String[]{"Jane Smith", "jane@example.com"}, reader.readRow());
+            assertEquals(3, reader.getRecordLineNumber());
+            assertNull(reader.readRow());
+        }
+    }
+
+    @Test
+    @DisplayName("Should place sparse cells by column and skip blank rows")
+    void testSparseCellsAndBlankRows() throws IOException {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet();
+        Row first = sheet.createRow(0);
+        first.createCell(1).setCellValue("John Doe");
+        first.createCell(3).setCellValue("john@example.com");
+        sheet.createRow(1).createCell(0).setCellValue("");
+        Row third = sheet.createRow(4);
+        third.createCell(1).setCellValue("Jane Smith");
+        third.createCell(3).setCellValue("jane@example.com");
+
+        try (XlsxRowReader reader = XlsxRowReader.open(toStream(workbook))) {
+            String[] row = reader.readRow();
+            assertArrayEquals(new String[]{"", "John Doe", "", "john@example.com"}, row);
+            assertEquals("John Doe", CSVParser.extractStudent(row, 1, 3).name);
+            reader.readRow();
+            assertEquals(5, reader.getRecordLineNumber());
+            assertNull(reader.readRow());
+        }
+    }
+
+    @Test
+    @DisplayName("Should read inline strings written by streaming workbooks")
+    void testInlineStrings() throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        Row row = workbook.createSheet().createRow(0);
+        row.createCell(0).setCellValue("John Doe");
+        row.createCell(1).setCellValue("john@example.com");
+
+        try (XlsxRowReader reader = XlsxRowReader.open(toStream(workbook))) {
+            assertArrayEquals(new String[]{"John Doe", "john@example.com"}, reader.readRow());
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail on a file that is not a workbook")
+    void testNotAWorkbook() throws IOException {
+        try (XlsxRowReader reader = XlsxRowReader.open(
+                new ByteArrayInputStream("John Doe,john@example.com".getBytes(StandardCharsets.UTF_8)))) {
+            IOException e = assertThrows(IOException.class, reader::readRow);
+            assertTrue(e.getMessage().contains(".xlsx"));
+        }
+    }
+
+    private ByteArrayInputStream toStream(Workbook workbook) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (workbook) {
+            workbook.write(output);
+        }
+        return new ByteArrayInputStream(output.toByteArray());
+    }
+}